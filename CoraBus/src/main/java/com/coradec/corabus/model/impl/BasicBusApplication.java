@@ -51,6 +51,15 @@ public abstract class BasicBusApplication extends BasicHub implements BusApplica
         addRoute(Resumption.class, this::resume);
     }
 
+    /**
+     * Returns the application itself as the tenant of its own and all its members' messages.
+     *
+     * @return the application.
+     */
+    @Override public Object getTenant() {
+        return this;
+    }
+
     @Override protected Collection<StateTransition> getSetupTransitions(final Session session,
             final BusContext context, final Invitation invitation) {
         final Collection<StateTransition> result =
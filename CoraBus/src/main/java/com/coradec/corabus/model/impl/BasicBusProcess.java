@@ -28,9 +28,11 @@ import com.coradec.corabus.com.Suspension;
 import com.coradec.corabus.model.BusProcess;
 import com.coradec.corabus.view.BusContext;
 import com.coradec.coracom.model.Request;
+import com.coradec.coraconf.model.Property;
 import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.model.State;
 import com.coradec.coracore.trouble.OperationInterruptedException;
+import com.coradec.coracore.util.ExecUtil;
 import com.coradec.coractrl.model.StateTransition;
 import com.coradec.corasession.model.Session;
 
@@ -43,6 +45,9 @@ import java.util.concurrent.Semaphore;
  */
 public abstract class BasicBusProcess extends BasicNode implements BusProcess {
 
+    private static final Property<Boolean> PROP_VIRTUAL_WORKER =
+            Property.define("VirtualWorker", Boolean.class, false);
+
     private Thread worker;
     private final Semaphore suspension = new Semaphore(1);
 
@@ -134,7 +139,11 @@ public abstract class BasicBusProcess extends BasicNode implements BusProcess {
      * @param session the session context.
      */
     protected @Nullable Request onStart(final Session session) {
-        worker = new Thread(this);
+        worker = PROP_VIRTUAL_WORKER.value()
+                 ? ExecUtil.getVirtualThreadFactory(getClass().getSimpleName() + "-")
+                           .map(factory -> factory.newThread(this))
+                           .orElseGet(() -> new Thread(this))
+                 : new Thread(this);
         worker.start();
         setState(STARTED);
         return null;
@@ -21,7 +21,6 @@
 package com.coradec.corabus.model.impl;
 
 import static com.coradec.corabus.state.HubState.*;
-import static java.util.stream.Collectors.*;
 
 import com.coradec.corabus.com.Invitation;
 import com.coradec.corabus.model.BusHub;
@@ -35,9 +34,9 @@ import com.coradec.corabus.view.BusService;
 import com.coradec.corabus.view.Member;
 import com.coradec.corabus.view.impl.BasicBusContext;
 import com.coradec.coracom.model.Message;
-import com.coradec.coracom.model.ParallelMultiRequest;
 import com.coradec.coracom.model.Request;
 import com.coradec.coracom.model.SerialMultiRequest;
+import com.coradec.coracom.model.WindowedMultiRequest;
 import com.coradec.coracom.model.impl.BasicSessionCommand;
 import com.coradec.coracom.model.impl.BasicSessionRequest;
 import com.coradec.coracore.annotation.Inject;
@@ -62,6 +61,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Basic implementation of a bus hub.​​
@@ -72,7 +72,8 @@ public class BasicHub extends BasicNode implements BusHub {
     private static final Text TEXT_EMPTY_PATH = LocalizedText.define("EmptyPath");
     @Inject private static Factory<Invitation> INVITATION;
     @Inject private static Factory<SerialMultiRequest> SERIALMRQ;
-    @Inject private static Factory<ParallelMultiRequest> PARALLELMRQ;
+    @Inject private static Factory<WindowedMultiRequest> WINDOWEDMRQ;
+    @Inject private static Factory<Request> REQUEST;
 
     private final List<AddMemberRequest> candidates = new ArrayList<>();
     private final Map<String, Member> members = new LinkedHashMap<>();
@@ -144,8 +145,15 @@ public class BasicHub extends BasicNode implements BusHub {
         replaceRoute(AddMemberRequest.class, this::addMember);
         Request result = null;
         if (candidates.isEmpty()) setState(LOADED);
-        else result = inject(SERIALMRQ.create(this, this, candidates)).andThen(
-                () -> execute(() -> setState(LOADED)));
+        else {
+            // the transition is only complete once the hub is actually LOADED
+            final Request loaded = REQUEST.create(this, this);
+            inject(SERIALMRQ.create(this, this, candidates))
+                    .andThen(() -> execute(() -> setState(LOADED)).andThen(loaded::succeed)
+                                                                  .orElse(loaded::fail))
+                    .orElse(loaded::fail);
+            result = loaded;
+        }
         return result;
     }
 
@@ -175,7 +183,8 @@ public class BasicHub extends BasicNode implements BusHub {
      * <p>
      * Can be used to do post-unload work.
      * <p>
-     * The base method invokes the shutdown procedure on all members.
+     * The base method invokes the shutdown procedure on all members, with only a limited number
+     * of them shutting down at the same time (see {@link WindowedMultiRequest}).
      * <p>
      * Subclasses can wrap this method late (i.e. override it and invoke the superclass method as
      * late as possible).
@@ -186,8 +195,10 @@ public class BasicHub extends BasicNode implements BusHub {
         final Map<String, Member> members = getMembers();
         final int memberCount = members.size();
         debug("Unloading %d member%s.", memberCount, memberCount == 1 ? "" : "s");
-        final Request result = memberCount == 0 ? null : inject(PARALLELMRQ.create(this, this,
-                members.values().stream().map(Member::dismiss).collect(toList())));
+        final List<Supplier<Request>> dismissals = new ArrayList<>(memberCount);
+        for (final Member member : members.values()) dismissals.add(member::dismiss);
+        final Request result =
+                memberCount == 0 ? null : inject(WINDOWEDMRQ.create(this, this, dismissals));
         setState(UNLOADED);
         return result;
     }
@@ -299,6 +310,10 @@ public class BasicHub extends BasicNode implements BusHub {
             return BasicHub.this.getPath().add(name);
         }
 
+        @Override public @Nullable Object getTenant() {
+            return BasicHub.this.getTenant();
+        }
+
         @Override public <S extends BusService> boolean provides(final Class<? super S> type,
                 final Object... args) {
             return BasicHub.this.getMembers()
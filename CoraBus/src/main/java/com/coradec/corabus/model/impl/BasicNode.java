@@ -135,6 +135,15 @@ public class BasicNode extends BasicAgent implements BusNode {
         this.context = context;
     }
 
+    /**
+     * Returns the tenant of the node, which is the tenant of the context it is attached through.
+     *
+     * @return the tenant, or {@code null} for the shared tenant.
+     */
+    @Override public @Nullable Object getTenant() {
+        return context.getTenant();
+    }
+
     @ToString @Override public boolean isAttached() {
         return context != DEFAULT_CONTEXT;
     }
@@ -20,6 +20,7 @@
 
 package com.coradec.corabus.view;
 
+import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.trouble.ServiceNotAvailableException;
 import com.coradec.coradir.model.Path;
 
@@ -37,6 +38,16 @@ public interface BusContext {
      */
     void left(String name);
 
+    /**
+     * Returns the tenant of the nodes attached through this context.
+     *
+     * @return the tenant, or {@code null} for the shared tenant.
+     * @see com.coradec.coracom.model.Target#getTenant()
+     */
+    default @Nullable Object getTenant() {
+        return null;
+    }
+
     /**
      * Callback invoked when the specified node has joined the context with the specified name.
      *
@@ -21,16 +21,19 @@
 package com.coradec.corabus.com.impl;
 
 import com.coradec.corabus.com.FocusChangedEvent;
+import com.coradec.coracom.model.Conflatable;
 import com.coradec.coracom.model.impl.BasicEvent;
 import com.coradec.coracore.model.Origin;
 
 import java.nio.channels.SelectableChannel;
+import java.util.Arrays;
 
 /**
- * ​​Basic implementation of a focus changed event.
+ * ​​Basic implementation of a focus changed event.  As the event carries the complete interest set,
+ * it supersedes any pending focus change of the same channel.
  */
 @SuppressWarnings("ClassHasNoToStringMethod")
-public class BasicFocusChangedEvent extends BasicEvent implements FocusChangedEvent {
+public class BasicFocusChangedEvent extends BasicEvent implements FocusChangedEvent, Conflatable {
 
     private final SelectableChannel channel;
     private final int focus;
@@ -56,4 +59,8 @@ public class BasicFocusChangedEvent extends BasicEvent implements FocusChangedEv
         return focus;
     }
 
+    @Override public Object getConflationKey() {
+        return Arrays.asList(FocusChangedEvent.class, channel);
+    }
+
 }
@@ -22,19 +22,23 @@ package com.coradec.corabus.com.impl;
 
 import com.coradec.corabus.com.MetaStateChangedEvent;
 import com.coradec.corabus.state.MetaState;
+import com.coradec.coracom.model.Conflatable;
 import com.coradec.coracom.model.impl.BasicEvent;
 import com.coradec.coracore.annotation.Implementation;
 import com.coradec.coracore.annotation.ToString;
 import com.coradec.coracore.model.Origin;
 
+import java.util.Arrays;
 import java.util.Map;
 
 /**
- * ​​Basic implementation of a meta-state changed event.
+ * ​​Basic implementation of a meta-state changed event.  An observer lagging behind only gets to
+ * see the latest meta-state change of a node, as it supersedes any pending one.
  */
 @SuppressWarnings("ClassHasNoToStringMethod")
 @Implementation
-public class BasicMetaStateChangedEvent extends BasicEvent implements MetaStateChangedEvent {
+public class BasicMetaStateChangedEvent extends BasicEvent
+        implements MetaStateChangedEvent, Conflatable {
 
     private final MetaState oldState;
     private final MetaState newState;
@@ -66,6 +70,10 @@ public class BasicMetaStateChangedEvent extends BasicEvent implements MetaStateC
         return newState;
     }
 
+    @Override public Object getConflationKey() {
+        return Arrays.asList(MetaStateChangedEvent.class, getOrigin());
+    }
+
     @Override protected void collect() {
         super.collect();
         set(PROP_OLD_STATE, getOldState());
@@ -66,9 +66,11 @@ import java.net.SocketAddress;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -372,6 +374,10 @@ public abstract class AbstractNetworkConnection extends BasicNode implements Obs
         return info instanceof RequestCompleteEvent;
     }
 
+    @Override public Set<Class<?>> getInterests() {
+        return Collections.singleton(RequestCompleteEvent.class);
+    }
+
     private <V> byte[] getData(final Voucher<V> voucher) {
         return getProtocol().encode(voucher.getType(), voucher.getValue());
     }
@@ -51,7 +51,9 @@ import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -63,6 +65,8 @@ import java.util.concurrent.BlockingQueue;
 @SuppressWarnings("ClassHasNoToStringMethod")
 public class Network extends BasicBusApplication implements Observer {
 
+    private static final Set<Class<?>> INTERESTS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(FocusChangedEvent.class, KeyProcessedEvent.class)));
     private static final Property<List<String>> PROP_ENABLED_PROTOCOLS =
             Property.define("EnabledProtocols", GenericType.of(List.class, String.class),
                     Collections.singletonList("CMP"));
@@ -218,6 +222,10 @@ public class Network extends BasicBusApplication implements Observer {
         return info instanceof FocusChangedEvent || info instanceof KeyProcessedEvent;
     }
 
+    @Override public Set<Class<?>> getInterests() {
+        return INTERESTS;
+    }
+
     private static class SelectionMessage extends BasicMessage {
 
         private final SelectionKey key;
@@ -30,6 +30,8 @@ import com.coradec.coracore.annotation.Inject;
 import com.coradec.coralog.ctrl.impl.Logger;
 import com.coradec.corasession.model.Session;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.Semaphore;
 
 /**
@@ -76,4 +78,8 @@ public final class Server extends Logger implements Observer {
     @Override public boolean wants(final Information info) {
         return info instanceof BusSystemTerminatedEvent;
     }
+
+    @Override public Set<Class<?>> getInterests() {
+        return Collections.singleton(BusSystemTerminatedEvent.class);
+    }
 }
@@ -20,9 +20,13 @@
 
 package com.coradec.coracom.ctrl;
 
+import com.coradec.coracom.model.Deferred;
 import com.coradec.coracom.model.Information;
+import com.coradec.coracom.model.Target;
 import com.coradec.coracom.trouble.QueueException;
 
+import java.util.Collection;
+
 /**
  * ​A queue for messages.
  */
@@ -37,6 +41,52 @@ public interface MessageQueue {
      */
     <I extends Information> I inject(I info) throws QueueException;
 
+    /**
+     * Injects a batch of information into the queue.  The batch is validated as a whole before any
+     * of it is injected, then injected in the order of the collection.
+     *
+     * @param infos the information to inject.
+     * @throws QueueException if the information could not be injected.
+     */
+    void injectAll(Collection<? extends Information> infos) throws QueueException;
+
+    /**
+     * Revokes the specified deferred information if it is still waiting to become due.  A revoked
+     * request is cancelled.
+     *
+     * @param info the deferred information to revoke.
+     * @return {@code true} if the information was revoked, {@code false} if it was already injected
+     * or never scheduled.
+     */
+    boolean revoke(Deferred info);
+
+    /**
+     * Returns the number of messages currently waiting in the queue or being delivered, not
+     * counting deferred information that is not due yet.
+     *
+     * @return the current depth of the queue.
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the number of messages currently waiting for or being delivered to the specified
+     * target.  Producers may use this to throttle themselves when a target falls behind.
+     *
+     * @param target the target.
+     * @return the current depth of the target's mailbox.
+     */
+    int getQueueDepth(Target target);
+
+    /**
+     * Sets the weight of the specified tenant under fair scheduling: its targets get a share of the
+     * message processors proportional to the weight when there is more work than processors.
+     *
+     * @param tenant the tenant, e.g. a session or a bus application.
+     * @param weight the weight (at least 1).
+     * @see Target#getTenant()
+     */
+    void setTenantWeight(Object tenant, int weight);
+
     /**
      * Subscribes the specified observer for information from the queue.
      *
@@ -23,6 +23,9 @@ package com.coradec.coracom.ctrl;
 import com.coradec.coracom.model.Information;
 import com.coradec.coracom.model.Target;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * ​An object that observes (and gets notified about) state changes in another object.
  */
@@ -51,4 +54,18 @@ public interface Observer extends Target {
      */
     boolean wants(Information info);
 
+    /**
+     * Returns the types (classes or interfaces) of information the observer can possibly want.
+     * The message queue only considers the observer for information of these types or their
+     * subtypes, which spares it from queueing up every single event for an observer that would
+     * reject it anyway in {@link #wants(Information)}.
+     * <p>
+     * The default is any information.
+     *
+     * @return the types of information of interest.
+     */
+    default Set<Class<?>> getInterests() {
+        return Collections.singleton(Information.class);
+    }
+
 }
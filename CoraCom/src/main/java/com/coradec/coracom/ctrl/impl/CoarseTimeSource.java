@@ -0,0 +1,91 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.ctrl.impl;
+
+import static com.coradec.coracore.model.Scope.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import com.coradec.coracom.ctrl.TimeSource;
+import com.coradec.coraconf.model.Property;
+import com.coradec.coracore.annotation.Implementation;
+import com.coradec.coracore.time.Duration;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * ​​Time source truncating the system clock to a fixed resolution and handing out the same
+ * timestamp for all calls within the same tick.
+ * <p>
+ * The time zone is looked up once, when the time source is created; the cached timestamp is
+ * replaced by whichever thread first notices a new tick, so there is no clock thread.  The
+ * resolution is taken from the property {@code TimeResolution} unless specified explicitly.
+ */
+@Implementation(SINGLETON)
+public class CoarseTimeSource implements TimeSource {
+
+    private static final Property<Duration> PROP_TIME_RESOLUTION =
+            Property.define("TimeResolution", Duration.class, Duration.of(1, MILLISECONDS));
+
+    private final long resolution;
+    private final ZoneId zone;
+    private volatile Tick tick;
+
+    /**
+     * Initializes a new instance of CoarseTimeSource with the configured resolution.
+     */
+    public CoarseTimeSource() {
+        this(PROP_TIME_RESOLUTION.value());
+    }
+
+    /**
+     * Initializes a new instance of CoarseTimeSource with the specified resolution.
+     *
+     * @param resolution the resolution (at least one millisecond).
+     */
+    public CoarseTimeSource(final Duration resolution) {
+        this.resolution = Math.max(1, resolution.getUnit().toMillis(resolution.getAmount()));
+        this.zone = ZoneId.systemDefault();
+        this.tick = new Tick(Long.MIN_VALUE, LocalDateTime.MIN);
+    }
+
+    @Override public LocalDateTime now() {
+        final long count = System.currentTimeMillis() / resolution;
+        Tick tick = this.tick;
+        if (tick.count != count) this.tick = tick = new Tick(count,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(count * resolution), zone));
+        return tick.timestamp;
+    }
+
+    private static class Tick {
+
+        final long count;
+        final LocalDateTime timestamp;
+
+        Tick(final long count, final LocalDateTime timestamp) {
+            this.count = count;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
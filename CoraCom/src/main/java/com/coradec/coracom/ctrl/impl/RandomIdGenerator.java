@@ -0,0 +1,40 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.ctrl.impl;
+
+import static com.coradec.coracore.model.Scope.*;
+
+import com.coradec.coracom.ctrl.IdGenerator;
+import com.coradec.coracore.annotation.Implementation;
+
+import java.util.UUID;
+
+/**
+ * ​​ID generator producing random (version 4) UUIDs from the shared secure random generator.
+ */
+@Implementation(SINGLETON)
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override public UUID generate() {
+        return UUID.randomUUID();
+    }
+
+}
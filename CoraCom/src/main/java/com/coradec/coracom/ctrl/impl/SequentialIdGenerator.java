@@ -0,0 +1,75 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.ctrl.impl;
+
+import static com.coradec.coracore.model.Scope.*;
+
+import com.coradec.coracom.ctrl.IdGenerator;
+import com.coradec.coracore.annotation.Implementation;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ​​ID generator producing monotonic 128-bit IDs behind a random prefix.
+ * <p>
+ * The generator draws a random 60-bit prefix from the secure random generator once, when it is
+ * created, and counts a 62-bit sequence number behind it.  The remaining bits mark the IDs as
+ * version 8 (custom) UUIDs of the IETF variant, so they travel on the wire like any other UUID.
+ * As long as fewer than some 2<sup>30</sup> generators are created on the entire bus, a collision
+ * of prefixes is practically impossible; within a generator, IDs never repeat.
+ * <p>
+ * To keep threads from contending on a single counter, the sequence is split into stripes, one
+ * per available processor rounded up to a power of two, whose number takes the upper bits of the
+ * sequence number.  A thread always counts on the same stripe, so its IDs keep increasing.
+ */
+@Implementation(SINGLETON)
+public class SequentialIdGenerator implements IdGenerator {
+
+    private static final SecureRandom SEED = new SecureRandom();
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VERSION = 0x8000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final int SEQUENCE_BITS = 62;
+    /** Spacing of the stripe counters in longs, to keep each on a cache line of its own. */
+    private static final int PADDING = 8;
+
+    private final long prefix = SEED.nextLong() & ~VERSION_MASK | VERSION;
+    private final int stripeMask;
+    private final int counterBits;
+    private final AtomicLongArray counters;
+
+    public SequentialIdGenerator() {
+        final int stripes = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        stripeMask = stripes - 1;
+        counterBits = SEQUENCE_BITS - Integer.numberOfTrailingZeros(stripes);
+        counters = new AtomicLongArray(stripes * PADDING);
+    }
+
+    @Override public UUID generate() {
+        final long stripe = Thread.currentThread().getId() & stripeMask;
+        final long count = counters.getAndIncrement((int)stripe * PADDING);
+        return new UUID(prefix, stripe << counterBits | count | VARIANT);
+    }
+
+}
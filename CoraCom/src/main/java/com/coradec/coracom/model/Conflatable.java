@@ -0,0 +1,61 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coracom.model;
+
+/**
+ * ​API of an information that makes older information of its kind obsolete.
+ * <p>
+ * When a conflatable information is queued for a target that still has an undelivered information
+ * with an equal conflation key waiting, the older one is superseded: it is skipped when its turn
+ * comes, and the newer one is delivered in its own place.  Conflation keys therefore identify both
+ * the kind of information and its subject (e.g. the property a command sets, or the channel an
+ * event is about).  A superseded request completes according to its {@link #getSupersession()
+ * supersession policy}.
+ */
+public interface Conflatable extends Information {
+
+    /**
+     * Returns the key that identifies the information this one supersedes.
+     *
+     * @return the conflation key.
+     */
+    Object getConflationKey();
+
+    /**
+     * Returns how this information, if it is a request, completes when it gets superseded.  The
+     * default is {@link Supersession#CANCEL}.
+     *
+     * @return the supersession policy.
+     */
+    default Supersession getSupersession() {
+        return Supersession.CANCEL;
+    }
+
+    /**
+     * Enumeration of ways a superseded request completes.
+     */
+    enum Supersession {
+        /** The request is cancelled. */
+        CANCEL,
+        /** The request succeeds, as its purpose is served by the information superseding it. */
+        SUCCEED
+    }
+
+}
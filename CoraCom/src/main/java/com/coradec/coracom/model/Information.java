@@ -50,6 +50,14 @@ public interface Information extends Serializable {
      */
     LocalDateTime getCreatedAt();
 
+    /**
+     * Returns the time when the information was last enqueued, in terms of {@link
+     * System#nanoTime()}.
+     *
+     * @return the enqueue timestamp, or 0 if the information was never enqueued.
+     */
+    long getEnqueuedAt();
+
     /**
      * Returns the property with the specified name, cast or converted to the specified generic
      * type, if such a property exists.
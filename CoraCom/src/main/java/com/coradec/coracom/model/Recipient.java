@@ -20,6 +20,10 @@
 
 package com.coradec.coracom.model;
 
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.List;
+
 /**
  * ​Recipient of a message.
  */
@@ -38,4 +42,51 @@ public interface Recipient extends Target {
      * @return the recipient ID.
      */
     String getRecipientId();
+
+    /**
+     * Returns how many messages the recipient can process at the same time.  By default, messages
+     * are delivered to a recipient strictly one at a time; stateless recipients such as service
+     * facades may allow more, in which case their messages are no longer delivered in order.
+     * Commands are still delivered one at a time, while no other message is being processed.
+     *
+     * @return the concurrency level (at least 1).
+     */
+    default int getConcurrencyLevel() {
+        return 1;
+    }
+
+    /**
+     * Returns the key of the batch the specified message belongs to, if the recipient takes
+     * messages like it in batches.  A message queue may then deliver the message together with
+     * the messages of the same batch waiting behind it through {@link #onMessages(List)}.
+     *
+     * @param message the message.
+     * @return the batch key, or {@code null} (the default) to take the message on its own.
+     */
+    default @Nullable Object getBatchKey(final Message message) {
+        return null;
+    }
+
+    /**
+     * Returns the maximum number of messages the recipient takes in one batch.
+     *
+     * @return the batch limit.
+     */
+    default int getBatchLimit() {
+        return 1;
+    }
+
+    /**
+     * Callback invoked with a batch of messages that are ready for processing, all of which have
+     * the same batch key.  Each message keeps its own completion: a request in the batch must
+     * still be completed on its own.
+     * <p>
+     * The default processes the messages one by one.
+     *
+     * @param messages the messages, in the order of their arrival.
+     */
+    default void onMessages(final List<Message> messages) {
+        for (final Message message : messages) onMessage(message);
+    }
+
 }
@@ -40,6 +40,7 @@ public interface Request extends Message, Observer {
     String PROP_REQUEST_STATE = "RequestState";
     String PROP_STATES = "States";
     String PROP_PROBLEM = "Problem";
+    String PROP_DEADLINE = "Deadline";
 
     /**
      * Returns the current request state.
@@ -220,4 +221,25 @@ public interface Request extends Message, Observer {
      */
     Request hold(long amount, TimeUnit unit, final Supplier<Exception> reason);
 
+    /**
+     * Sets a deadline the specified amount of time from now, typically the time the caller is
+     * going to wait for the request.  A request still waiting for delivery when its deadline passes
+     * is failed with a {@link com.coradec.coracom.trouble.DeadlineExceededException} instead of
+     * being delivered; under deadline scheduling, requests with earlier deadlines are delivered
+     * first.  The properties of the request carry the deadline as a wall-clock time, so a request
+     * rebuilt from them, e.g. when it is replayed from a journal, keeps it.
+     *
+     * @param amount the amount of time.
+     * @param unit   the unit of time.
+     * @return this request, for method chaining.
+     */
+    Request within(long amount, TimeUnit unit);
+
+    /**
+     * Returns the deadline of the request as a {@link System#nanoTime()} value.
+     *
+     * @return the deadline, or 0 if the request has none.
+     */
+    long getDeadline();
+
 }
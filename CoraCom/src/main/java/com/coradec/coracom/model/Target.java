@@ -20,9 +20,22 @@
 
 package com.coradec.coracom.model;
 
+import com.coradec.coracore.annotation.Nullable;
+
 /**
  * A message target, such as a message recipient​ or an observer of events.
  */
 public interface Target {
 
+    /**
+     * Returns the tenant the target works for, such as the bus application owning it.  Under fair
+     * scheduling, the message queue shares its processors between tenants rather than between
+     * targets.
+     *
+     * @return the tenant, or {@code null} if the target belongs to the shared tenant.
+     */
+    default @Nullable Object getTenant() {
+        return null;
+    }
+
 }
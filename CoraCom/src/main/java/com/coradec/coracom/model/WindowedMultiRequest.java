@@ -0,0 +1,61 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.model;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * ​​A multi-request consisting of independent sub-requests that are executed in parallel, but with
+ * at most a limited number of them in flight at any time.
+ * <p>
+ * The sub-requests are given as launchers that create (and possibly start) a sub-request only
+ * when there is room for it in the window; as earlier sub-requests complete, later ones are
+ * launched.  In fail-fast mode, the multi-request fails or is cancelled as soon as one of the
+ * sub-requests does, and no further sub-requests are launched; otherwise all sub-requests are
+ * launched and the problems collected, and the multi-request fails at the end if any of them
+ * failed.
+ */
+public interface WindowedMultiRequest extends MultiRequest {
+
+    /**
+     * Returns the maximum number of sub-requests in flight at the same time.
+     *
+     * @return the window size.
+     */
+    int getWindow();
+
+    /**
+     * Checks if the multi-request gives up on the first failed or cancelled sub-request.
+     *
+     * @return {@code true} in fail-fast mode, {@code false} if all problems are collected.
+     */
+    boolean isFailFast();
+
+    /**
+     * Returns the time each completed sub-request took from its launch to its completion, in
+     * the order of completion.
+     *
+     * @return the sub-request timings.
+     */
+    Map<Request, Duration> getTimings();
+
+}
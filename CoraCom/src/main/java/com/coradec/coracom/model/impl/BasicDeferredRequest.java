@@ -59,7 +59,7 @@ public class BasicDeferredRequest extends BasicRequest implements Deferred {
      *
      * @param properties the property map.
      */
-    private BasicDeferredRequest(final Map<String, Object> properties) {
+    public BasicDeferredRequest(final Map<String, Object> properties) {
         super(properties);
         executionTime = get(Long.class, PROP_EXECUTION_TIME);
     }
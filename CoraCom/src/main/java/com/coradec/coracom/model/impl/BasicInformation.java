@@ -22,14 +22,20 @@ package com.coradec.coracom.model.impl;
 
 import static com.coradec.coracom.state.QueueState.*;
 
+import com.coradec.coracom.ctrl.IdGenerator;
 import com.coradec.coracom.ctrl.OriginResolver;
+import com.coradec.coracom.ctrl.TimeSource;
 import com.coradec.coracom.model.Information;
 import com.coradec.coracom.model.SessionInformation;
 import com.coradec.coracom.state.QueueState;
+import com.coradec.coraconf.model.Property;
+import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.annotation.ToString;
+import com.coradec.coracore.model.GenericFactory;
 import com.coradec.coracore.model.GenericType;
 import com.coradec.coracore.model.Origin;
 import com.coradec.coracore.model.State;
+import com.coradec.coracore.trouble.InitializationError;
 import com.coradec.coracore.trouble.PropertyNotFoundException;
 import com.coradec.coracore.util.ClassUtil;
 import com.coradec.coralog.ctrl.impl.Logger;
@@ -46,16 +52,32 @@ import java.util.UUID;
 
 /**
  * ​​Basic implementation of an information.
+ * <p>
+ * The ID and creation timestamp of a new information come from the {@link IdGenerator} and
+ * {@link TimeSource} strategies selected by the properties {@code IdStrategy} and
+ * {@code TimeStrategy}, either by keyword (like {@code Sequential} for the {@code
+ * SequentialIdGenerator} next to the interface) or by the name of any implementation class.  By default, IDs are striped sequences behind a random prefix and
+ * timestamps are cached per millisecond, so creating an information neither contends on the
+ * shared secure random generator nor looks up the time zone.
  */
 public class BasicInformation extends Logger implements Information {
 
     private static final Text TEXT_MAYBE_MISSING_TYPE_CONVERTER =
             LocalizedText.define("MaybeMissingTypeConverter");
-    private final Map<String, Object> properties = new LinkedHashMap<>();
+    private static final Text TEXT_INVALID_ID_STRATEGY = LocalizedText.define("InvalidIdStrategy");
+    private static final Text TEXT_INVALID_TIME_STRATEGY =
+            LocalizedText.define("InvalidTimeStrategy");
+    private static final Property<String> PROP_ID_STRATEGY =
+            Property.define("IdStrategy", String.class, "Sequential");
+    private static final Property<String> PROP_TIME_STRATEGY =
+            Property.define("TimeStrategy", String.class, "Coarse");
+
+    private @Nullable Map<String, Object> properties;
     private final Origin origin;
     private final LocalDateTime createdAt;
     private final UUID id;
     private State state;
+    private long enqueuedAt;
 
     /**
      * Initializes a new instance of BasicInformation from the specified origin.
@@ -64,8 +86,8 @@ public class BasicInformation extends Logger implements Information {
      */
     public BasicInformation(Origin origin) {
         this.origin = origin;
-        this.createdAt = LocalDateTime.now();
-        this.id = UUID.randomUUID();
+        this.createdAt = Stamps.CLOCK.now();
+        this.id = Stamps.IDS.generate();
         this.state = NEW;
     }
 
@@ -75,15 +97,25 @@ public class BasicInformation extends Logger implements Information {
      * @param properties the property map.
      */
     public BasicInformation(Map<String, Object> properties) {
-        this.properties.putAll(properties);
-        final Session session = Session.get(
-                UUID.fromString((String)properties.get(SessionInformation.PROP_SESSION)));
-        this.origin = OriginResolver.resolveOrigin(session, get(String.class, PROP_ORIGIN));
+        this.properties = new LinkedHashMap<>(properties);
+        this.origin =
+                OriginResolver.resolveOrigin(sessionOf(properties), get(String.class, PROP_ORIGIN));
         this.createdAt = get(LocalDateTime.class, PROP_CREATED_AT);
         this.id = get(UUID.class, PROP_ID);
         this.state = lookup(QueueState.class, PROP_STATE).orElse(NEW);
     }
 
+    /**
+     * Returns the session named in the specified property map, if any.
+     *
+     * @param properties the property map.
+     * @return the session, or {@code null} if the information does not belong to a session.
+     */
+    protected static @Nullable Session sessionOf(final Map<String, Object> properties) {
+        final @Nullable Object session = properties.get(SessionInformation.PROP_SESSION);
+        return session == null ? null : Session.get(UUID.fromString(session.toString()));
+    }
+
     /**
      * Checks if the property with the specified name has a value other than {@code null}.
      *
@@ -92,7 +124,7 @@ public class BasicInformation extends Logger implements Information {
      * {@code false}.
      */
     protected boolean hasProperty(final String name) {
-        return properties.containsKey(name);
+        return properties != null && properties.containsKey(name);
     }
 
     /**
@@ -102,6 +134,17 @@ public class BasicInformation extends Logger implements Information {
      */
     @Override public Map<String, Object> getProperties() {
         collect();
+        return properties();
+    }
+
+    /**
+     * Returns the built-in property map, creating it on first use; local information never
+     * needs it unless somebody asks for its properties.
+     *
+     * @return the property map.
+     */
+    private Map<String, Object> properties() {
+        if (properties == null) properties = new LinkedHashMap<>();
         return properties;
     }
 
@@ -130,7 +173,7 @@ public class BasicInformation extends Logger implements Information {
      */
     protected <T> void set(final String name, final T value) {
         //noinspection unchecked
-        properties.put(name, TypeConverter.to((Class<T>)value.getClass()).encode(value));
+        properties().put(name, TypeConverter.to((Class<T>)value.getClass()).encode(value));
     }
 
     /**
@@ -144,12 +187,12 @@ public class BasicInformation extends Logger implements Information {
      * @param value the property value.
      */
     protected <T> void set(GenericType<T> type, final String name, final T value) {
-        properties.put(name, TypeConverter.to(type).encode(value));
+        properties().put(name, TypeConverter.to(type).encode(value));
     }
 
     @Override public <T> Optional<T> lookup(final GenericType<T> type, final String name) {
         try {
-            return Optional.ofNullable(properties.get(name))
+            return Optional.ofNullable(properties != null ? properties.get(name) : null)
                            .map(o -> type.isInstance(o) ? type.cast(o) : type.cast(
                                    TypeConverter.to(type).convert(o)));
         } catch (ClassCastException e) {
@@ -160,7 +203,7 @@ public class BasicInformation extends Logger implements Information {
 
     @Override public <T> Optional<T> lookup(final Class<T> type, final String name) {
         try {
-            return Optional.ofNullable(properties.get(name))
+            return Optional.ofNullable(properties != null ? properties.get(name) : null)
                            .map(o -> type.isInstance(o) ? type.cast(o) : type.cast(
                                    TypeConverter.to(type).convert(o)));
         } catch (ClassCastException e) {
@@ -187,6 +230,10 @@ public class BasicInformation extends Logger implements Information {
         return this.createdAt;
     }
 
+    @Override public long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
     @Override @ToString public State getState() {
         return this.state;
     }
@@ -213,6 +260,7 @@ public class BasicInformation extends Logger implements Information {
                 String.format("Information %s has illegal state %s (should be NEW)", this,
                         getState().name()));
         setState(ENQUEUED);
+        enqueuedAt = System.nanoTime();
     }
 
     @Override public void onDispatch() throws IllegalStateException {
@@ -234,4 +282,47 @@ public class BasicInformation extends Logger implements Information {
     @Override public String toString() {
         return ClassUtil.toString(this);
     }
+
+    /**
+     * Holder of the ID and timestamp strategies, resolved on the first information created rather
+     * than when the class is loaded.
+     */
+    private static class Stamps {
+
+        static final IdGenerator IDS =
+                strategy(IdGenerator.class, PROP_ID_STRATEGY.value(), TEXT_INVALID_ID_STRATEGY);
+        static final TimeSource CLOCK =
+                strategy(TimeSource.class, PROP_TIME_STRATEGY.value(), TEXT_INVALID_TIME_STRATEGY);
+
+        /**
+         * Resolves the specified strategy through the injector.  A keyword names the
+         * implementation of the same name in the {@code impl} package next to the interface (like
+         * {@code Coarse} for {@code impl.CoarseTimeSource}); anything else is taken as the name of
+         * an implementation class.
+         *
+         * @param type     the strategy interface.
+         * @param strategy the keyword or class name.
+         * @param invalid  the text to fail with if there is no such implementation.
+         * @return the strategy.
+         * @throws InitializationError if the strategy does not name an implementation of the
+         *                             interface.
+         */
+        private static <S> S strategy(final Class<S> type, final String strategy,
+                final Text invalid) throws InitializationError {
+            final String keyword = String.format("%s.impl.%s%s", type.getPackage().getName(),
+                    strategy, type.getSimpleName());
+            for (final String name : new String[] {keyword, strategy}) {
+                try {
+                    final Class<?> klass = Class.forName(name);
+                    if (type.isAssignableFrom(klass))
+                        return type.cast(new GenericFactory<>(klass).get());
+                } catch (ClassNotFoundException e) {
+                    // try the class name
+                }
+            }
+            throw new InitializationError(invalid.resolve(strategy, type.getSimpleName()));
+        }
+
+    }
+
 }
@@ -25,15 +25,12 @@ import static com.coradec.coracom.state.QueueState.*;
 import com.coradec.coracom.ctrl.RecipientResolver;
 import com.coradec.coracom.model.Message;
 import com.coradec.coracom.model.Recipient;
-import com.coradec.coracom.model.SessionInformation;
 import com.coradec.coracore.annotation.Implementation;
 import com.coradec.coracore.annotation.ToString;
 import com.coradec.coracore.model.Origin;
 import com.coradec.coracore.model.State;
-import com.coradec.corasession.model.Session;
 
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * ​​Basic implementation of a message.
@@ -44,7 +41,6 @@ public class BasicMessage extends BasicEvent implements Message {
 
     private final boolean urgent;
     private Recipient recipient;
-    private RecipientResolver resolver;
 
     /**
      * Initializes a new instance of BasicMessage with the specified sender and recipient.
@@ -65,10 +61,8 @@ public class BasicMessage extends BasicEvent implements Message {
      */
     public BasicMessage(final Map<String, Object> properties) {
         super(properties);
-        final Session session = Session.get(
-                UUID.fromString((String)properties.get(SessionInformation.PROP_SESSION)));
-        this.recipient =
-                RecipientResolver.resolveRecipient(session, get(String.class, PROP_RECIPIENT));
+        this.recipient = RecipientResolver.resolveRecipient(sessionOf(properties),
+                get(String.class, PROP_RECIPIENT));
         this.urgent = get(Boolean.class, PROP_URGENT, false);
     }
 
@@ -21,6 +21,7 @@
 package com.coradec.coracom.model.impl;
 
 import static com.coradec.coracom.state.RequestState.*;
+import static java.util.concurrent.TimeUnit.*;
 
 import com.coradec.coracom.com.RequestCompleteEvent;
 import com.coradec.coracom.ctrl.MessageQueue;
@@ -52,19 +53,29 @@ import com.coradec.coratext.model.Text;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * ​​Basic implementation of a request.
+ * <p>
+ * Completion runs on a single atomic phase word: the first of {@link #succeed()}, {@link
+ * #fail(Throwable)} and {@link #cancel()} to claim it wins, all later ones are ignored.  Success
+ * and failure callbacks, completion observers and threads standing by are pushed onto a lock-free
+ * stack, which the completing thread takes over and works off exactly once.  It settles the phase
+ * when all callbacks registered so far have run, and only then lets the waiting threads go; once
+ * the request is settled, {@link #standby()} returns at once without allocating anything.
  */
 @SuppressWarnings({"ClassHasNoToStringMethod", "PackageVisibleField", "WeakerAccess"})
 @Implementation
@@ -77,15 +88,30 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     @Inject private static Factory<MessageQueue> MQ;
     @Inject private static Factory<ParallelMultiRequest> PARALLEL_MULTI_REQUEST;
     @Inject private static Factory<SerialMultiRequest> SERIAL_MULTI_REQUEST;
-
-    final Semaphore completion = new Semaphore(0);
-    final Set<Observer> completionObservers = new HashSet<>();
-    Set<Runnable> successCallbacks = new CopyOnWriteArraySet<>();
-    Set<Consumer<Throwable>> failureCallbacks = new CopyOnWriteArraySet<>();
+    private static final Map<Thread, Request> AWAITED = new ConcurrentHashMap<>();
+    private static final AtomicInteger WAITER_TRACKERS = new AtomicInteger();
+
+    private static final int PENDING = 0;
+    private static final int CLAIMED = 1;
+    private static final int SUCCEEDED = 2;
+    private static final int FAILED_ = 3;
+    private static final int CANCELLED_ = 4;
+    private static final int OUTCOME = 7;
+    private static final int SETTLED = 8;
+    private static final AtomicIntegerFieldUpdater<BasicRequest> PHASE =
+            AtomicIntegerFieldUpdater.newUpdater(BasicRequest.class, "phase");
+    private static final AtomicReferenceFieldUpdater<BasicRequest, Node> STACK =
+            AtomicReferenceFieldUpdater.newUpdater(BasicRequest.class, Node.class, "stack");
+    /** Marks the stack of a settled request: nothing can be pushed anymore. */
+    private static final Node CLOSED = new Node(Node.WAITER, null);
+
+    private volatile int phase;
+    private volatile @Nullable Node stack;
 
     private RequestState requestState;
-    final Set<RequestState> states;
+    final RequestStateSet states;
     private @Nullable Throwable problem;
+    private volatile long deadline;
 
     /**
      * Initializes a new instance of BasicRequest with the specified sender and recipient.
@@ -96,7 +122,7 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     public BasicRequest(final Origin sender, final Recipient recipient) {
         super(sender, recipient);
         this.requestState = NEW;
-        this.states = new HashSet<>(Collections.singleton(NEW));
+        this.states = new RequestStateSet(NEW);
     }
 
     /**
@@ -107,72 +133,156 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     public BasicRequest(final Map<String, Object> properties) {
         super(properties);
         this.requestState = get(RequestState.class, PROP_REQUEST_STATE);
-        this.states = get(GenericType.of(Set.class, RequestState.class), PROP_STATES);
+        final Set<RequestState> states =
+                get(GenericType.of(Set.class, RequestState.class), PROP_STATES);
+        this.states = new RequestStateSet(states);
+        final int outcome = states.contains(SUCCESSFUL) ? SUCCEEDED
+                            : states.contains(FAILED) ? FAILED_
+                              : states.contains(CANCELLED) ? CANCELLED_ : PENDING;
+        if (outcome != PENDING) {
+            this.phase = outcome | SETTLED;
+            this.stack = CLOSED;
+        }
+        lookup(Long.class, PROP_DEADLINE).ifPresent(deadline -> this.deadline = deadline(
+                MILLISECONDS.toNanos(deadline - System.currentTimeMillis())));
     }
 
     protected void setRequestState(final RequestState state) {
+        if (state == SUCCESSFUL) complete(SUCCEEDED, state, null);
+        else if (state == FAILED) complete(FAILED_, state, null);
+        else if (state == CANCELLED) complete(CANCELLED_, state, null);
+        else {
+            requestState = state;
+            states.add(state);
+        }
+    }
+
+    /**
+     * Completes the request with the specified outcome, unless it has already been completed.
+     *
+     * @param outcome the outcome (SUCCEEDED, FAILED_ or CANCELLED_).
+     * @param state   the corresponding request state.
+     * @param problem the problem, if any.
+     */
+    private void complete(final int outcome, final RequestState state,
+            final @Nullable Throwable problem) {
+        if (!PHASE.compareAndSet(this, PENDING, CLAIMED)) return;
+        if (problem != null) this.problem = problem;
         requestState = state;
         states.add(state);
-        if (state == SUCCESSFUL) {
-            if (!this.successCallbacks.isEmpty()) {
-                for (final Runnable successCallback : this.successCallbacks) {
-                    try {
-//                            debug("success >> %s", successCallback);
-                        successCallback.run();
-                    } catch (Exception e) {
-                        error(e);
-                    }
-                }
-                this.successCallbacks.clear();
-            }
-            furtherSuccessActions();
-            sendCompletionEvents();
-            this.completion.release();
-        } else if (state == FAILED || state == CANCELLED) {
-            if (!this.failureCallbacks.isEmpty()) {
-                final Throwable problem = getProblem();
-                for (final Consumer<Throwable> failureCallback : this.failureCallbacks) {
-                    try {
-//                            debug("failure >> %s", failureCallback);
-                        failureCallback.accept(problem);
-                    } catch (Exception e) {
-                        error(e);
-                    }
-                }
-                this.failureCallbacks.clear();
-            }
-            sendCompletionEvents();
-            this.completion.release();
-        }
+        phase = outcome;
+        final Node early = reverse(STACK.getAndSet(this, null));
+        runCallbacks(early, outcome);
+        if (outcome == SUCCEEDED) furtherSuccessActions();
+        notifyObservers(early);
+        phase = outcome | SETTLED;
+        final Node late = reverse(STACK.getAndSet(this, CLOSED));
+        runCallbacks(late, outcome);
+        notifyObservers(late);
+        releaseWaiters(early);
+        releaseWaiters(late);
     }
 
-    protected void furtherSuccessActions() {
+    /**
+     * Pushes the specified node onto the stack, unless the request is settled.
+     *
+     * @param node the node.
+     * @return {@code true} if the node was pushed, {@code false} if the stack is closed.
+     */
+    private boolean push(final Node node) {
+        for (Node head = stack; head != CLOSED; head = stack) {
+            node.next = head;
+            if (STACK.compareAndSet(this, head, node)) return true;
+        }
+        return false;
+    }
 
+    /**
+     * Reverses the specified stack in place, so the nodes come in the order of their arrival.
+     *
+     * @param head the top of the stack.
+     * @return the first node that arrived.
+     */
+    private static @Nullable Node reverse(@Nullable Node head) {
+        Node first = null;
+        while (head != null && head != CLOSED) {
+            final Node next = head.next;
+            head.next = first;
+            first = head;
+            head = next;
+        }
+        return first;
+    }
+
+    private void runCallbacks(final @Nullable Node first, final int outcome) {
+        for (Node node = first; node != null; node = node.next) {
+            try {
+                if (node.kind == Node.ON_SUCCESS) {
+                    if (outcome == SUCCEEDED) ((Runnable)node.target).run();
+                } else if (node.kind == Node.ON_FAILURE && outcome != SUCCEEDED) {
+                    @SuppressWarnings("unchecked") final Consumer<Throwable> callback =
+                            (Consumer<Throwable>)node.target;
+                    callback.accept(problem);
+                }
+            } catch (Exception e) {
+                error(e);
+            }
+        }
     }
 
-    private void setRequestState(final RequestState state, @Nullable final Throwable problem) {
-        if (problem != null) this.problem = problem;
-        setRequestState(state);
+    private void notifyObservers(final @Nullable Node first) {
+        RequestCompleteEvent event = null;
+        for (Node node = first; node != null; node = node.next) {
+            if (node.kind == Node.OBSERVER) {
+                if (event == null) event = new RequestCompleteEventImpl(this);
+//                debug("Completion event to %s", node.target);
+                ((Observer)node.target).notify(event);
+            }
+        }
     }
 
-    private void sendCompletionEvents() {
-        final Observer[] co = completionObservers.toArray(new Observer[completionObservers.size()]);
-        if (co.length > 0) {
-            RequestCompleteEvent event = new RequestCompleteEventImpl(this);
-            for (final Observer observer : co) {
-//                debug("Completion event to %s", observer);
-                if (observer.notify(event)) completionObservers.remove(observer);
+    private static void releaseWaiters(final @Nullable Node first) {
+        for (Node node = first; node != null; node = node.next) {
+            if (node.kind == Node.WAITER) {
+                final Thread waiter = (Thread)node.target;
+                node.released = true;
+                if (waiter != null) LockSupport.unpark(waiter);
             }
         }
     }
 
+    protected void furtherSuccessActions() {
+
+    }
+
     @Override @ToString public RequestState getRequestState() {
         return requestState;
     }
 
     @Override
     public Request hold(final long amount, final TimeUnit unit, final Supplier<Exception> reason) {
-        return MQ.get().inject(new FailMeCommand(amount, unit, reason));
+        final FailMeCommand timeout = MQ.get().inject(new FailMeCommand(amount, unit, reason));
+        andThen(() -> MQ.get().revoke(timeout));
+        orElse(problem -> MQ.get().revoke(timeout));
+        return timeout;
+    }
+
+    @Override public Request within(final long amount, final TimeUnit unit) {
+        this.deadline = deadline(unit.toNanos(amount));
+        return this;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} deadline the specified number of nanoseconds from now,
+     * never 0, which stands for no deadline.
+     */
+    private static long deadline(final long nanos) {
+        final long deadline = System.nanoTime() + nanos;
+        return deadline != 0 ? deadline : 1;
+    }
+
+    @Override public long getDeadline() {
+        return deadline;
     }
 
     @Override @ToString public Set<RequestState> getStates() {
@@ -183,13 +293,51 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
         return problem;
     }
 
+    /**
+     * Returns the request the specified thread is currently standing by for.
+     *
+     * @param thread the thread.
+     * @return the awaited request, or {@code null} if the thread is not standing by or waiters
+     * are not being tracked.
+     * @see #trackWaiters(boolean)
+     */
+    public static @Nullable Request getAwaitedBy(final Thread thread) {
+        return AWAITED.get(thread);
+    }
+
+    /**
+     * Starts or stops recording which request each thread is standing by for.  Calls nest: the
+     * waiters are recorded as long as one caller that started tracking them has not stopped it.
+     * Threads that were already standing by when tracking started are not recorded.
+     *
+     * @param track whether to start ({@code true}) or stop ({@code false}) tracking the waiters.
+     */
+    public static void trackWaiters(final boolean track) {
+        if (track) WAITER_TRACKERS.incrementAndGet();
+        else WAITER_TRACKERS.decrementAndGet();
+    }
+
     @Override public Request standby() throws InterruptedException, RequestFailedException {
-        long then = System.currentTimeMillis();
-        try {
-            completion.acquire();
-        } finally {
-            debug("On standby for %d ms.", System.currentTimeMillis() - then);
-            completion.release();
+        if ((phase & SETTLED) == 0) {
+            final long then = System.currentTimeMillis();
+            final Thread waiter = Thread.currentThread();
+            final Node node = new Node(Node.WAITER, waiter);
+            if (push(node)) {
+                final boolean tracked = WAITER_TRACKERS.get() > 0;
+                if (tracked) AWAITED.put(waiter, this);
+                try {
+                    while (!node.released) {
+                        LockSupport.park(this);
+                        if (Thread.interrupted() && !node.released) {
+                            node.target = null;
+                            throw new InterruptedException();
+                        }
+                    }
+                } finally {
+                    if (tracked) AWAITED.remove(waiter, this);
+                    debug("On standby for %d ms.", System.currentTimeMillis() - then);
+                }
+            }
         }
         if (isFailed()) throw Optional.ofNullable(getProblem())
                                       .map(RequestFailedException::new)
@@ -200,14 +348,32 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     @Override public Request standby(final long amount, final TimeUnit unit)
             throws OperationTimedoutException, OperationInterruptedException,
                    RequestFailedException {
-        long then = System.currentTimeMillis();
-        try {
-            if (!completion.tryAcquire(amount, unit)) throw new OperationTimedoutException();
-        } catch (InterruptedException e) {
-            throw new OperationInterruptedException();
-        } finally {
-            debug("On standby for %d ms.", System.currentTimeMillis() - then);
-            completion.release();
+        if ((phase & SETTLED) == 0) {
+            final long then = System.currentTimeMillis();
+            final long deadline = System.nanoTime() + unit.toNanos(amount);
+            final Thread waiter = Thread.currentThread();
+            final Node node = new Node(Node.WAITER, waiter);
+            if (push(node)) {
+                final boolean tracked = WAITER_TRACKERS.get() > 0;
+                if (tracked) AWAITED.put(waiter, this);
+                try {
+                    while (!node.released) {
+                        final long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            node.target = null;
+                            throw new OperationTimedoutException();
+                        }
+                        LockSupport.parkNanos(this, remaining);
+                        if (Thread.interrupted() && !node.released) {
+                            node.target = null;
+                            throw new OperationInterruptedException();
+                        }
+                    }
+                } finally {
+                    if (tracked) AWAITED.remove(waiter, this);
+                    debug("On standby for %d ms.", System.currentTimeMillis() - then);
+                }
+            }
         }
         if (isFailed()) throw Optional.ofNullable(getProblem())
                                       .map(RequestFailedException::new)
@@ -221,7 +387,7 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     }
 
     @Override public void fail(@Nullable final Throwable problem) {
-        setRequestState(FAILED, problem);
+        complete(FAILED_, FAILED, problem);
     }
 
     @Override public void cancel() {
@@ -229,20 +395,19 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     }
 
     @Override public boolean isSuccessful() {
-        return getStates().contains(SUCCESSFUL);
+        return (phase & OUTCOME) == SUCCEEDED;
     }
 
     @Override public boolean isFailed() {
-        return getStates().contains(FAILED);
+        return (phase & OUTCOME) == FAILED_;
     }
 
     @Override public boolean isCancelled() {
-        return getStates().contains(CANCELLED);
+        return (phase & OUTCOME) == CANCELLED_;
     }
 
     public boolean isComplete() {
-        return getStates().stream()
-                          .anyMatch(rs -> rs == SUCCESSFUL || rs == FAILED || rs == CANCELLED);
+        return (phase & OUTCOME) >= SUCCEEDED;
     }
 
     @Override public void reportCompletionTo(final Observer observer) {
@@ -253,11 +418,15 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
         return MQ.get().inject(info);
     }
 
+    protected void injectAll(final Collection<? extends Information> infos) {
+        MQ.get().injectAll(infos);
+    }
+
     @Override public Request andThen(final Runnable action) {
-        if (isSuccessful()) {
+        if (isComplete() || !push(new Node(Node.ON_SUCCESS, action))) {
 //            debug("Exec direct of success action %s", action);
-            action.run();
-        } else successCallbacks.add(action);
+            if (isSuccessful()) action.run();
+        }
         return this;
     }
 
@@ -272,10 +441,12 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
     }
 
     @Override public Request orElse(final Consumer<Throwable> action) {
-        if (isFailed() || isCancelled()) {
-            debug("Exec direct of failure action %s", action);
-            action.accept(getProblem());
-        } else failureCallbacks.add(action);
+        if (isComplete() || !push(new Node(Node.ON_FAILURE, action))) {
+            if (isFailed() || isCancelled()) {
+                debug("Exec direct of failure action %s", action);
+                action.accept(getProblem());
+            }
+        }
         return this;
     }
 
@@ -319,11 +490,18 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
         return info instanceof RequestCompleteEvent;
     }
 
+    @Override public Set<Class<?>> getInterests() {
+        return Collections.singleton(RequestCompleteEvent.class);
+    }
+
     @Override protected void collect() {
         super.collect();
         set(PROP_REQUEST_STATE, requestState);
         set(GenericType.of(Set.class, RequestState.class), PROP_STATES, states);
         if (problem != null) set(PROP_PROBLEM, problem);
+        final long deadline = this.deadline;
+        if (deadline != 0) set(PROP_DEADLINE, System.currentTimeMillis() +
+                                              NANOSECONDS.toMillis(deadline - System.nanoTime()));
     }
 
     @Internal
@@ -355,12 +533,9 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
         }
 
         @Override public void execute() {
-            if (BasicRequest.this.isComplete()) {
+            if (!push(new Node(Node.OBSERVER, observer))) {
 //                debug("Sending completion event directly to %s", observer);
                 observer.notify(new RequestCompleteEventImpl(BasicRequest.this));
-            } else {
-                BasicRequest.this.completionObservers.add(observer);
-//                debug("Added completion observer.");
             }
         }
 
@@ -388,6 +563,9 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
 
     @Override public Request renew() {
         states.clear();
+        phase = PENDING;
+        // a pending request keeps its callbacks and waiters, a settled one starts afresh
+        STACK.compareAndSet(this, CLOSED, null);
         setRequestState(NEW);
         return (Request)super.renew();
     }
@@ -408,4 +586,27 @@ public class BasicRequest extends BasicMessage implements Request, Asynchronous
 
     }
 
+    /**
+     * An entry of the completion stack: a callback, a completion observer or a waiting thread.
+     */
+    private static class Node {
+
+        static final int ON_SUCCESS = 0;
+        static final int ON_FAILURE = 1;
+        static final int OBSERVER = 2;
+        static final int WAITER = 3;
+
+        final int kind;
+        /** The callback, observer or thread; a waiter that gave up clears its thread. */
+        volatile @Nullable Object target;
+        volatile boolean released;
+        @Nullable Node next;
+
+        Node(final int kind, final @Nullable Object target) {
+            this.kind = kind;
+            this.target = target;
+        }
+
+    }
+
 }
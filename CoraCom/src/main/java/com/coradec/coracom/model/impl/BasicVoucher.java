@@ -31,8 +31,6 @@ import com.coradec.coracore.model.Origin;
 
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
@@ -45,7 +43,6 @@ public class BasicVoucher<V> extends BasicRequest implements Voucher<V> {
 
     private @Nullable V value;
     private final GenericType<V> type;
-    Set<Consumer<V>> valueCallbacks = new CopyOnWriteArraySet<>();
 
     /**
      * Initializes a new instance of BasicVoucher with the specified type, sender and recipient.
@@ -113,10 +110,7 @@ public class BasicVoucher<V> extends BasicRequest implements Voucher<V> {
     }
 
     @Override public Voucher<V> andThen(final Consumer<V> action) {
-        if (isSuccessful()) {
-//            debug("Exec direct of success action %s", action);
-            action.accept(getValue());
-        } else valueCallbacks.add(action);
+        andThen(() -> action.accept(getValue()));
         return this;
     }
 
@@ -126,19 +120,4 @@ public class BasicVoucher<V> extends BasicRequest implements Voucher<V> {
         if (value != null) set(PROP_VALUE, value);
     }
 
-    @Override protected void furtherSuccessActions() {
-        super.furtherSuccessActions();
-        if (!this.valueCallbacks.isEmpty()) {
-            for (final Consumer<V> successCallback : this.valueCallbacks) {
-                try {
-//                            debug("success >> %s", successCallback);
-                    successCallback.accept(value);
-                } catch (Exception e) {
-                    error(e);
-                }
-            }
-            this.valueCallbacks.clear();
-        }
-    }
-
 }
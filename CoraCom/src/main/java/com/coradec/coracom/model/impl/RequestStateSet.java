@@ -0,0 +1,166 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.model.impl;
+
+import static com.coradec.coracom.state.RequestState.*;
+
+import com.coradec.coracom.state.RequestState;
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ​​Compact set of request states, kept as a bit mask.
+ * <p>
+ * Every request state gets a bit on first use (the standard states have fixed ones); should the
+ * extensible enumeration ever grow beyond 64 states, the excess states go into an overflow set.
+ * The bit mask is volatile and updated by compare-and-set, so adding and removing a standard
+ * state never blocks; only the overflow set is guarded by the set's monitor.
+ */
+@SuppressWarnings("ClassHasNoToStringMethod")
+class RequestStateSet extends AbstractSet<RequestState> {
+
+    private static final int CAPACITY = Long.SIZE;
+    private static final Map<RequestState, Integer> INDEX = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+    private static final AtomicReferenceArray<RequestState> STATES =
+            new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLongFieldUpdater<RequestStateSet> BITS =
+            AtomicLongFieldUpdater.newUpdater(RequestStateSet.class, "bits");
+
+    static {
+        for (final RequestState state : new RequestState[] {
+                NEW, SUBMITTED, SUCCESSFUL, FAILED, CANCELLED
+        }) indexOf(state);
+    }
+
+    private volatile long bits;
+    private @Nullable Set<RequestState> overflow;
+
+    /**
+     * Initializes a new instance of RequestStateSet containing the specified state.
+     *
+     * @param state the initial state.
+     */
+    RequestStateSet(final RequestState state) {
+        add(state);
+    }
+
+    /**
+     * Initializes a new instance of RequestStateSet containing the specified states.
+     *
+     * @param states the initial states.
+     */
+    RequestStateSet(final Collection<RequestState> states) {
+        addAll(states);
+    }
+
+    private static int indexOf(final RequestState state) {
+        return INDEX.computeIfAbsent(state, s -> {
+            final int index = NEXT_INDEX.getAndIncrement();
+            if (index < CAPACITY) STATES.set(index, s);
+            return index;
+        });
+    }
+
+    @Override public boolean contains(final Object o) {
+        if (!(o instanceof RequestState)) return false;
+        final int index = indexOf((RequestState)o);
+        if (index < CAPACITY) return (bits & 1L << index) != 0;
+        synchronized (this) {
+            return overflow != null && overflow.contains(o);
+        }
+    }
+
+    @Override public boolean add(final RequestState state) {
+        final int index = indexOf(state);
+        if (index < CAPACITY) {
+            final long bit = 1L << index;
+            for (long current = bits; (current & bit) == 0; current = bits)
+                if (BITS.compareAndSet(this, current, current | bit)) return true;
+            return false;
+        }
+        synchronized (this) {
+            if (overflow == null) overflow = new HashSet<>();
+            return overflow.add(state);
+        }
+    }
+
+    @Override public boolean remove(final Object o) {
+        if (!(o instanceof RequestState)) return false;
+        final int index = indexOf((RequestState)o);
+        if (index < CAPACITY) {
+            final long bit = 1L << index;
+            for (long current = bits; (current & bit) != 0; current = bits)
+                if (BITS.compareAndSet(this, current, current & ~bit)) return true;
+            return false;
+        }
+        synchronized (this) {
+            return overflow != null && overflow.remove(o);
+        }
+    }
+
+    @Override public synchronized void clear() {
+        bits = 0;
+        overflow = null;
+    }
+
+    @Override public synchronized int size() {
+        return Long.bitCount(bits) + (overflow != null ? overflow.size() : 0);
+    }
+
+    @Override public synchronized Iterator<RequestState> iterator() {
+        final List<RequestState> states = new ArrayList<>(size());
+        for (long rest = bits; rest != 0; rest &= rest - 1)
+            states.add(STATES.get(Long.numberOfTrailingZeros(rest)));
+        if (overflow != null) states.addAll(overflow);
+        return new Iterator<RequestState>() {
+            private final Iterator<RequestState> snapshot = states.iterator();
+            private @Nullable RequestState current;
+
+            @Override public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override public RequestState next() {
+                return current = snapshot.next();
+            }
+
+            @Override public void remove() {
+                if (current == null) throw new IllegalStateException();
+                RequestStateSet.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+}
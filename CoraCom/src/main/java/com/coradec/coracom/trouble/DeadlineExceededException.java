@@ -0,0 +1,52 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coracom.trouble;
+
+import com.coradec.coracom.model.Request;
+import com.coradec.coracore.annotation.ToString;
+
+/**
+ * ​​Indicates that a request was due for delivery after its deadline had passed.
+ */
+public class DeadlineExceededException extends CommunicationException {
+
+    private final Request request;
+    private final long overdue;
+
+    /**
+     * Initializes a new instance of DeadlineExceededException for the specified request.
+     *
+     * @param request the request.
+     * @param overdue by how many nanoseconds the deadline had passed.
+     */
+    public DeadlineExceededException(final Request request, final long overdue) {
+        this.request = request;
+        this.overdue = overdue;
+    }
+
+    @ToString public Request getRequest() {
+        return request;
+    }
+
+    @ToString public long getOverdue() {
+        return overdue;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.trouble;
+
+import com.coradec.coracore.annotation.ToString;
+
+import java.util.List;
+
+/**
+ * ​​Indicates that one or more sub-requests of a multi-request have failed or were cancelled.
+ */
+public class SubRequestsFailedException extends RequestFailedException {
+
+    private final List<Throwable> problems;
+
+    /**
+     * Initializes a new instance of SubRequestsFailedException with the specified problems.
+     *
+     * @param problems the problems of the failed sub-requests (at least one).
+     */
+    public SubRequestsFailedException(final List<Throwable> problems) {
+        super(problems.get(0));
+        this.problems = problems;
+    }
+
+    @ToString public List<Throwable> getProblems() {
+        return problems;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.IdGenerator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SequentialIdGeneratorTest {
+
+    private final IdGenerator testee = new SequentialIdGenerator();
+
+    @Test public void idsShouldBeVersion8UuidsSurvivingTheWireFormat() {
+        final UUID id = testee.generate();
+        assertThat(id.version(), is(8));
+        assertThat(id.variant(), is(2));
+        assertThat(UUID.fromString(id.toString()), is(id));
+    }
+
+    @Test public void idsShouldBeMonotonicPerThread() {
+        final UUID first = testee.generate();
+        final UUID second = testee.generate();
+        assertThat(second.getMostSignificantBits(), is(first.getMostSignificantBits()));
+        assertThat(second.getLeastSignificantBits() - first.getLeastSignificantBits(), is(1L));
+    }
+
+    @Test public void idsShouldBeUniqueAcrossThreads() throws InterruptedException {
+        final Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) threads.add(new Thread(() -> {
+            for (int j = 0; j < 10000; ++j) ids.add(testee.generate());
+        }));
+        for (final Thread thread : threads) thread.start();
+        for (final Thread thread : threads) thread.join();
+        assertThat(ids.size(), is(80000));
+    }
+
+    @Test public void idsShouldShareTheGeneratorPrefixAcrossThreads() throws InterruptedException {
+        final UUID[] other = new UUID[1];
+        final Thread thread = new Thread(() -> other[0] = testee.generate());
+        thread.start();
+        thread.join();
+        assertThat(other[0].getMostSignificantBits(),
+                is(testee.generate().getMostSignificantBits()));
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.model.impl;
+
+import static com.coradec.coracom.state.RequestState.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.state.RequestState;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class RequestStateSetTest {
+
+    @Test public void standardStatesShouldBeKeptAsBits() {
+        final RequestStateSet testee = new RequestStateSet(NEW);
+        assertThat(testee.add(SUBMITTED), is(true));
+        assertThat(testee.add(SUBMITTED), is(false));
+        assertThat(testee.contains(FAILED), is(false));
+        testee.add(FAILED);
+        assertThat(testee.contains(FAILED), is(true));
+        assertThat(testee.contains(SUCCESSFUL), is(false));
+        assertThat(testee, is(new HashSet<>(Arrays.asList(NEW, SUBMITTED, FAILED))));
+        assertThat(testee.remove(NEW), is(true));
+        assertThat(testee.contains(NEW), is(false));
+        assertThat(testee.size(), is(2));
+        testee.clear();
+        assertThat(testee.isEmpty(), is(true));
+    }
+
+    @Test public void customStatesShouldSurviveBeyondTheBitCapacity() {
+        final List<RequestState> custom = new ArrayList<>();
+        for (int i = 0; i < 70; ++i) custom.add(new RequestState("CUSTOM" + i, 2000 + i));
+        final RequestStateSet testee = new RequestStateSet(custom);
+        testee.add(NEW);
+        assertThat(testee.size(), is(71));
+        for (final RequestState state : custom) assertThat(testee.contains(state), is(true));
+        assertThat(new HashSet<>(testee).size(), is(71));
+        assertThat(testee.remove(custom.get(69)), is(true));
+        assertThat(testee.contains(custom.get(69)), is(false));
+    }
+
+}
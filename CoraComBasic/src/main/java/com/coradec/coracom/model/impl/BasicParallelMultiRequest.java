@@ -32,6 +32,7 @@ import com.coradec.coracore.annotation.Internal;
 import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.model.Origin;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Queue;
@@ -81,7 +82,9 @@ public class BasicParallelMultiRequest extends BasicRequest implements ParallelM
             if (requests.isEmpty()) succeed();
             else {
 //            debug("Unleashing %d request(s).", requests.size());
-                requests.forEach(this::launchRequest);
+                final List<Request> fresh = new ArrayList<>(requests.size());
+                for (final Request request : requests) if (watch(request)) fresh.add(request);
+                if (!fresh.isEmpty()) injectAll(fresh);
             }
         }
         return this;
@@ -113,10 +116,20 @@ public class BasicParallelMultiRequest extends BasicRequest implements ParallelM
     }
 
     private void launchRequest(final Request request) {
+        if (watch(request)) inject(request);
+    }
+
+    /**
+     * Registers for the completion of the specified sub-request.
+     *
+     * @param request the sub-request.
+     * @return {@code true} if the sub-request still has to be injected.
+     */
+    private boolean watch(final Request request) {
         //                debug("State: %s", request.getState());
         request.reportCompletionTo(this);
         count.incrementAndGet();
-        if (request.getState() == NEW) inject(request);
+        return request.getState() == NEW;
     }
 
 }
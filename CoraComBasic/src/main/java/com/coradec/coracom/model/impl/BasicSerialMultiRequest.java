@@ -23,32 +23,51 @@ package com.coradec.coracom.model.impl;
 import static com.coradec.coracom.state.QueueState.*;
 
 import com.coradec.coracom.com.RequestCompleteEvent;
+import com.coradec.coracom.model.Independent;
 import com.coradec.coracom.model.Information;
 import com.coradec.coracom.model.MultiRequest;
 import com.coradec.coracom.model.Recipient;
 import com.coradec.coracom.model.Request;
 import com.coradec.coracom.model.SerialMultiRequest;
+import com.coradec.coraconf.model.Property;
 import com.coradec.coracore.annotation.Implementation;
 import com.coradec.coracore.annotation.Internal;
+import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.model.Origin;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
+import java.util.Set;
 
 /**
  * ​​Basic implementation of a serial multi-request.
+ * <p>
+ * The multi-request prepares up to the configured number of upcoming sub-requests ahead of time
+ * by registering for their completion while their predecessors are still running, so a completing
+ * sub-request hands over to its successor right away.  Sub-requests marked as {@link Independent}
+ * do not wait for each other (see there).
  */
 @SuppressWarnings("ClassHasNoToStringMethod")
 @Implementation
 @Internal
 public class BasicSerialMultiRequest extends BasicRequest implements SerialMultiRequest {
 
-    private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
-    private final Semaphore sync = new Semaphore(0);
+    private static final Property<Integer> PROP_PREFETCH =
+            Property.define("Prefetch", Integer.class, 4);
+
+    private final int prefetch = PROP_PREFETCH.value();
+    /** Sub-requests not looked at yet. */
+    private final Queue<Request> requests = new ArrayDeque<>();
+    /** Sub-requests whose completion is already watched, but not launched yet. */
+    private final Queue<Request> prepared = new ArrayDeque<>();
+    /** Sub-requests launched, but not complete yet. */
+    private final Set<Request> running = new HashSet<>();
+    private boolean dependentRunning;
 
     /**
      * Initializes a new instance of BasicSerialMultiRequest with the specified sender and
@@ -76,14 +95,7 @@ public class BasicSerialMultiRequest extends BasicRequest implements SerialMulti
     }
 
     @Override public MultiRequest process() {
-        if (!isComplete()) {
-            final Request next = requests.poll();
-            if (next == null) succeed();
-            else {
-                next.reportCompletionTo(this);
-                if (next.getState() == NEW) inject(next);
-            }
-        }
+        if (!isComplete()) advance();
         return this;
     }
 
@@ -91,8 +103,7 @@ public class BasicSerialMultiRequest extends BasicRequest implements SerialMulti
         if (!isComplete()) {
             final Request request = ((RequestCompleteEvent)info).getRequest();
             if (request.isSuccessful()) {
-                if (requests.isEmpty()) succeed();
-                else process();
+                if (finished(request)) advance();
             } else if (request.isCancelled()) cancel();
             else if (request.isFailed()) fail(request.getProblem());
         } else return super.notify(info);
@@ -104,9 +115,66 @@ public class BasicSerialMultiRequest extends BasicRequest implements SerialMulti
                 getRecipient(), Arrays.asList(this, request)) : addRequest(request);
     }
 
-    private Request addRequest(final Request request) {
+    private synchronized Request addRequest(final Request request) {
         requests.add(request);
         return request;
     }
 
+    /**
+     * Removes the specified sub-request from the running ones.
+     *
+     * @param request the sub-request.
+     * @return {@code true} if the sub-request was running, {@code false} if it completed before
+     * it was launched (which the launch takes care of).
+     */
+    private synchronized boolean finished(final Request request) {
+        if (!running.remove(request)) return false;
+        if (!(request instanceof Independent)) dependentRunning = false;
+        return true;
+    }
+
+    /**
+     * Launches the sub-requests whose predecessors allow it and prepares the upcoming ones; if
+     * there are none left, completes the multi-request.
+     */
+    private void advance() {
+        final List<Request> watch = new ArrayList<>();
+        final List<Request> launch = new ArrayList<>();
+        @Nullable Request failed = null;
+        final boolean done;
+        synchronized (this) {
+            while (true) {
+                final Request next = prepared.isEmpty() ? requests.peek() : prepared.peek();
+                if (next == null) break;
+                final boolean independent = next instanceof Independent;
+                if (dependentRunning || !independent && !running.isEmpty()) break;
+                final boolean fresh = prepared.poll() == null;
+                if (fresh) requests.poll();
+                if (next.isSuccessful()) continue;
+                if (next.isFailed() || next.isCancelled()) {
+                    failed = next;
+                    break;
+                }
+                running.add(next);
+                if (!independent) dependentRunning = true;
+                if (fresh) watch.add(next);
+                launch.add(next);
+            }
+            while (prepared.size() < prefetch && !requests.isEmpty()) {
+                final Request next = requests.poll();
+                prepared.add(next);
+                watch.add(next);
+            }
+            done = running.isEmpty() && prepared.isEmpty() && requests.isEmpty();
+        }
+        if (failed != null) {
+            if (failed.isCancelled()) cancel();
+            else fail(failed.getProblem());
+            return;
+        }
+        for (final Request request : watch) request.reportCompletionTo(this);
+        for (final Request request : launch) if (request.getState() == NEW) inject(request);
+        if (done) succeed();
+    }
+
 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coracom.model.impl;
+
+import static com.coradec.coracom.state.QueueState.*;
+
+import com.coradec.coracom.com.RequestCompleteEvent;
+import com.coradec.coracom.model.Information;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.WindowedMultiRequest;
+import com.coradec.coracom.trouble.RequestCancelledException;
+import com.coradec.coracom.trouble.RequestFailedException;
+import com.coradec.coracom.trouble.SubRequestsFailedException;
+import com.coradec.coraconf.model.Property;
+import com.coradec.coracore.annotation.Implementation;
+import com.coradec.coracore.annotation.Internal;
+import com.coradec.coracore.annotation.ToString;
+import com.coradec.coracore.model.Origin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * ​​Basic implementation of a windowed multi-request.
+ * <p>
+ * A sub-request is launched by claiming a slot in the window first; each completed sub-request
+ * frees its slot and launches the next one, so no more than the window size of sub-requests are
+ * ever in flight, and the rest wait as mere launchers.
+ */
+@SuppressWarnings("ClassHasNoToStringMethod")
+@Implementation
+@Internal
+public class BasicWindowedMultiRequest extends BasicRequest implements WindowedMultiRequest {
+
+    private static final Property<Integer> PROP_WINDOW =
+            Property.define("Window", Integer.class, 16);
+    private static final Property<Boolean> PROP_FAIL_FAST =
+            Property.define("FailFast", Boolean.class, true);
+
+    private final Queue<Supplier<Request>> launchers = new ConcurrentLinkedQueue<>();
+    private final int window;
+    private final boolean failFast;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final Map<Request, Long> launched = new ConcurrentHashMap<>();
+    private final Map<Request, Duration> timings =
+            Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Queue<Throwable> problems = new ConcurrentLinkedQueue<>();
+    private volatile boolean subRequestFailed;
+
+    /**
+     * Initializes a new instance of BasicWindowedMultiRequest with the specified sender,
+     * recipient and sub-request launchers, using the configured window size and failure mode.
+     *
+     * @param sender    the sender.
+     * @param recipient the recipient.
+     * @param launchers the sub-request launchers (called in the order of the list).
+     */
+    public BasicWindowedMultiRequest(final Origin sender, final Recipient recipient,
+            final List<Supplier<Request>> launchers) {
+        this(sender, recipient, launchers, PROP_WINDOW.value(), PROP_FAIL_FAST.value());
+    }
+
+    /**
+     * Initializes a new instance of BasicWindowedMultiRequest with the specified sender,
+     * recipient, sub-request launchers, window size and failure mode.
+     *
+     * @param sender    the sender.
+     * @param recipient the recipient.
+     * @param launchers the sub-request launchers (called in the order of the list).
+     * @param window    the maximum number of sub-requests in flight (at least 1).
+     * @param failFast  whether to give up on the first failed or cancelled sub-request.
+     */
+    public BasicWindowedMultiRequest(final Origin sender, final Recipient recipient,
+            final List<Supplier<Request>> launchers, final int window, final boolean failFast) {
+        super(sender, recipient);
+        if (window < 1) throw new IllegalArgumentException("Window size must be positive!");
+        this.launchers.addAll(launchers);
+        this.window = window;
+        this.failFast = failFast;
+        this.remaining = new AtomicInteger(launchers.size());
+    }
+
+    @Override @ToString public int getWindow() {
+        return window;
+    }
+
+    @Override @ToString public boolean isFailFast() {
+        return failFast;
+    }
+
+    @Override public Map<Request, Duration> getTimings() {
+        synchronized (timings) {
+            return new LinkedHashMap<>(timings);
+        }
+    }
+
+    @Override public BasicWindowedMultiRequest process() {
+        if (!isComplete()) {
+            if (remaining.get() == 0) succeed();
+            else launchMore();
+        }
+        return this;
+    }
+
+    @Override public boolean notify(final Information info) {
+        if (!isComplete()) {
+            final Request request = ((RequestCompleteEvent)info).getRequest();
+            final Long start = launched.remove(request);
+            if (start != null) timings.put(request, Duration.ofNanos(System.nanoTime() - start));
+            if (request.isSuccessful()) settled();
+            else if (request.isCancelled()) {
+                final Throwable problem = request.getProblem();
+                settled(problem != null ? problem : new RequestCancelledException(), false);
+            } else if (request.isFailed()) {
+                final Throwable problem = request.getProblem();
+                settled(problem != null ? problem : new RequestFailedException(), true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Launches sub-requests as long as there is room in the window and launchers left.
+     */
+    private void launchMore() {
+        while (!isComplete()) {
+            final int current = inFlight.get();
+            if (current >= window) return;
+            if (!inFlight.compareAndSet(current, current + 1)) continue;
+            final Supplier<Request> launcher = launchers.poll();
+            if (launcher == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            launch(launcher);
+        }
+    }
+
+    private void launch(final Supplier<Request> launcher) {
+        final Request request;
+        try {
+            request = launcher.get();
+        } catch (Exception e) {
+            settled(e, true);
+            return;
+        }
+        launched.put(request, System.nanoTime());
+        request.reportCompletionTo(this);
+        if (request.getState() == NEW) inject(request);
+    }
+
+    /**
+     * Accounts for a successful sub-request.
+     */
+    private void settled() {
+        inFlight.decrementAndGet();
+        if (remaining.decrementAndGet() == 0) finish();
+        else launchMore();
+    }
+
+    /**
+     * Accounts for a failed or cancelled sub-request.
+     *
+     * @param problem the problem.
+     * @param failed  {@code true} if the sub-request failed, {@code false} if it was cancelled.
+     */
+    private void settled(final Throwable problem, final boolean failed) {
+        if (failFast) {
+            launchers.clear();
+            if (failed) fail(problem);
+            else cancel();
+        } else {
+            problems.add(problem);
+            if (failed) subRequestFailed = true;
+            settled();
+        }
+    }
+
+    private void finish() {
+        final List<Duration> durations;
+        synchronized (timings) {
+            durations = new ArrayList<>(timings.values());
+        }
+        debug("%d sub-request(s) completed in %d ms in total, the slowest in %d ms.",
+                durations.size(), durations.stream().mapToLong(Duration::toMillis).sum(),
+                durations.stream().mapToLong(Duration::toMillis).max().orElse(0));
+        if (problems.isEmpty()) succeed();
+        else if (!subRequestFailed) cancel();
+        else {
+            // typed as Throwable, lest the logger's fail(BasicException) be chosen
+            final Throwable problem = new SubRequestsFailedException(new ArrayList<>(problems));
+            fail(problem);
+        }
+    }
+
+}
@@ -29,7 +29,9 @@ import com.coradec.coracom.model.Message;
 import com.coradec.coracom.model.MultiRequest;
 import com.coradec.coracom.model.Recipient;
 import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.Target;
 import com.coradec.coracom.model.impl.BasicCommand;
+import com.coradec.coraconf.model.Property;
 import com.coradec.coracore.annotation.Implementation;
 import com.coradec.coracore.annotation.Inject;
 import com.coradec.coracore.annotation.Internal;
@@ -43,8 +45,11 @@ import com.coradec.coratext.model.LocalizedText;
 import com.coradec.coratext.model.Text;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,6 +59,10 @@ import java.util.function.Consumer;
 
 /**
  * ​​Basic implementation of an agent.
+ * <p>
+ * Which routes a message takes and whether a command is approved depends only on the concrete
+ * class of the message, so both are resolved once per class and kept in per-agent dispatch
+ * tables; the route commands and {@link #approve(Class[])} invalidate them.
  */
 @SuppressWarnings("PublicField")
 @Implementation
@@ -65,11 +74,19 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
             LocalizedText.define("CommandNotApproved");
     private static final Text TEXT_MESSAGE_UNPROCESSED = LocalizedText.define("MessageUnprocessed");
     static final Text TEXT_ROUTE_ALREADY_SET = LocalizedText.define("RouteAlreadySet");
+    private static final Property<Integer> PROP_BATCH_LIMIT =
+            Property.define("BatchLimit", Integer.class, 64);
+    private static final Object NO_BATCH = new Object();
     private final int id;
 
     @Inject private MessageQueue MQ;
     private @Nullable Map<Class<?>, Consumer<?>> routes;
     private final Set<Class<?>> approvedCommands = new CopyOnWriteArraySet<>();
+    private final Map<Class<?>, List<Consumer<Message>>> dispatch = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Boolean> approvals = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Object> batchKeys = new ConcurrentHashMap<>();
+    private volatile boolean batching;
+    private int batchLimit = 1;
 
     protected BasicAgent() {
         id = IDS.computeIfAbsent(getClass(), klass -> new AtomicInteger(0)).incrementAndGet();
@@ -84,6 +101,7 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
      */
     @SafeVarargs protected final void approve(final Class<? extends Command>... types) {
         approvedCommands.addAll(Arrays.asList(types));
+        approvals.clear();
     }
 
     /**
@@ -99,6 +117,9 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
 
     /**
      * Returns the established message routes.
+     * <p>
+     * Modifying the map directly bypasses the dispatch table; use {@link #addRoute}, {@link
+     * #replaceRoute} and {@link #removeRoute} instead.
      *
      * @return the message routes.
      */
@@ -119,6 +140,21 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
         inject(new AddRouteCommand<>(selector, processor));
     }
 
+    /**
+     * Adds a new batch route.  Messages of the specified type injected into the agent will be
+     * handled by the specified batch processor, which receives the messages of this type waiting
+     * for the agent at the time of delivery all at once (up to the configured batch limit).
+     * Requests in a batch must still be completed one by one.
+     *
+     * @param <R>       the message type.
+     * @param selector  the message type selector.
+     * @param processor the batch processor.
+     */
+    protected <R extends Message> void addBatchRoute(Class<? super R> selector,
+            Consumer<List<R>> processor) {
+        inject(new AddRouteCommand<>(selector, new BatchRoute<>(processor)));
+    }
+
     /**
      * Redirects an existing route to a new message processor.  Messages of the specified type
      * injected into the agent will be handled by the specified message consumer.
@@ -157,19 +193,13 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
         return String.format("%s#%d", getClass().getSimpleName(), id);
     }
 
-    @SuppressWarnings("unchecked") @Override public void onMessage(final Message message) {
+    @Override public void onMessage(final Message message) {
         boolean processed = false;
         if (routes != null) {
-            processed = routes.entrySet()
-                              .stream()
-                              .filter(route -> route.getKey().isInstance(message))
-                              .map(route -> {
-                                  final Consumer<Message> processor =
-                                          (Consumer<Message>)route.getValue();
-                                  processor.accept(message);
-                                  return processor;
-                              })
-                              .count() != 0;
+            final List<Consumer<Message>> processors =
+                    dispatch.computeIfAbsent(message.getClass(), this::processorsFor);
+            for (int i = 0, n = processors.size(); i < n; ++i) processors.get(i).accept(message);
+            processed = !processors.isEmpty();
         }
         if (!onMessage(processed, message)) {
             warn(TEXT_MESSAGE_UNPROCESSED, message, this);
@@ -177,6 +207,83 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
         }
     }
 
+    @Override public @Nullable Object getBatchKey(final Message message) {
+        if (!batching) return null;
+        final Object key = batchKeys.computeIfAbsent(message.getClass(), this::batchRouteFor);
+        return key == NO_BATCH ? null : key;
+    }
+
+    @Override public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    /**
+     * Processes a batch of messages that have the same batch route: the batch route takes them
+     * all at once, any other routes matching a message take it on its own.
+     *
+     * @param messages the messages.
+     */
+    @SuppressWarnings("unchecked") @Override public void onMessages(final List<Message> messages) {
+        final @Nullable Object key = getBatchKey(messages.get(0));
+        if (!(key instanceof BatchRoute)) {
+            Recipient.super.onMessages(messages);
+            return;
+        }
+        final BatchRoute<Message> batch = (BatchRoute<Message>)key;
+        for (final Message message : messages) {
+            final List<Consumer<Message>> processors =
+                    dispatch.computeIfAbsent(message.getClass(), this::processorsFor);
+            for (int i = 0, n = processors.size(); i < n; ++i) {
+                final Consumer<Message> processor = processors.get(i);
+                if (processor != batch) processor.accept(message);
+            }
+        }
+        batch.processor.accept(messages);
+    }
+
+    /**
+     * Resolves the batch route matching messages of the specified class.
+     *
+     * @param type the concrete message class.
+     * @return the batch route, or {@link #NO_BATCH} if there is none.
+     */
+    private Object batchRouteFor(final Class<?> type) {
+        for (final Map.Entry<Class<?>, Consumer<?>> route : getRoutes().entrySet())
+            if (route.getValue() instanceof BatchRoute && route.getKey().isAssignableFrom(type))
+                return route.getValue();
+        return NO_BATCH;
+    }
+
+    /**
+     * Invalidates the dispatch tables after a route change.
+     *
+     * @param processor the processor of the changed route.
+     */
+    private void rerouted(final Consumer<?> processor) {
+        if (processor instanceof BatchRoute && !batching) {
+            batchLimit = Math.max(1, PROP_BATCH_LIMIT.value());
+            batching = true;
+        }
+        dispatch.clear();
+        batchKeys.clear();
+    }
+
+    /**
+     * Resolves the message processors whose routes match messages of the specified class.
+     *
+     * @param type the concrete message class.
+     * @return the matching message processors (may be empty).
+     */
+    @SuppressWarnings("unchecked")
+    private List<Consumer<Message>> processorsFor(final Class<?> type) {
+        final Map<Class<?>, Consumer<?>> routes = getRoutes();
+        final List<Consumer<Message>> result = new ArrayList<>(1);
+        for (final Map.Entry<Class<?>, Consumer<?>> route : routes.entrySet())
+            if (route.getKey().isAssignableFrom(type))
+                result.add((Consumer<Message>)route.getValue());
+        return result.isEmpty() ? Collections.emptyList() : result;
+    }
+
     /**
      * Returns the recipient ID.
      *
@@ -254,13 +361,29 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
      * @return {@code true} if the command is approved for execution, {@code false} if not.
      */
     protected boolean approved(final Command command) {
-        return approvedCommands.stream().anyMatch(cmd -> cmd.isInstance(command));
+        return approvals.computeIfAbsent(command.getClass(), type -> {
+            for (final Class<?> approved : approvedCommands)
+                if (approved.isAssignableFrom(type)) return true;
+            return false;
+        });
     }
 
     @Override public URI toURI() {
         return URI.create("agent:" + represent());
     }
 
+    /**
+     * Returns the number of messages waiting for or being delivered to the specified target.
+     * Producers can use this to hold back while the target falls behind, rather than running into
+     * the capacity limits of the message queue.
+     *
+     * @param target the target.
+     * @return the depth of the target's mailbox.
+     */
+    protected int getQueueDepth(final Target target) {
+        return MQ.getQueueDepth(target);
+    }
+
     /**
      * Allows the message queue to shut down as an important asynchronous process is running.
      */
@@ -314,7 +437,7 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
         @Override public void execute() {
             if (getRoutes().putIfAbsent(getSelector(), getProcessor()) != null) {
                 warn(TEXT_ROUTE_ALREADY_SET, selector);
-            }
+            } else rerouted(getProcessor());
         }
 
         @Override public String getRecipientId() {
@@ -346,6 +469,7 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
 
         @Override public void execute() {
             getRoutes().put(getSelector(), getProcessor());
+            rerouted(getProcessor());
         }
 
         @Override public String getRecipientId() {
@@ -370,7 +494,8 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
         }
 
         @Override public void execute() {
-            getRoutes().remove(getSelector());
+            final @Nullable Consumer<?> removed = getRoutes().remove(getSelector());
+            if (removed != null) rerouted(removed);
         }
 
         @Override public String getRecipientId() {
@@ -405,6 +530,27 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
 
     }
 
+    /**
+     * A route processor handing single messages to a batch processor, for messages delivered on
+     * their own.
+     *
+     * @param <R> the message type.
+     */
+    @SuppressWarnings("ClassHasNoToStringMethod")
+    private static class BatchRoute<R extends Message> implements Consumer<R> {
+
+        final Consumer<List<R>> processor;
+
+        BatchRoute(final Consumer<List<R>> processor) {
+            this.processor = processor;
+        }
+
+        @Override public void accept(final R message) {
+            processor.accept(Collections.singletonList(message));
+        }
+
+    }
+
     @SuppressWarnings("ClassHasNoToStringMethod")
     private class ReactiveTrigger<E extends Event> implements Observer {
 
@@ -431,6 +577,10 @@ public class BasicAgent extends Logger implements Agent, Recipient, Origin {
             return event.isInstance(info);
         }
 
+        @Override public Set<Class<?>> getInterests() {
+            return Collections.singleton(event);
+        }
+
     }
 
 }
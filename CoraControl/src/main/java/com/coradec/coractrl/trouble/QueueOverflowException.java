@@ -0,0 +1,62 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.trouble;
+
+import com.coradec.coracom.model.Information;
+import com.coradec.coracom.model.Target;
+import com.coradec.coracore.annotation.ToString;
+
+/**
+ * ​​Indicates that an information could not be queued for its target because the mailbox of the
+ * target or the message queue as a whole was at its capacity limit.
+ */
+public class QueueOverflowException extends ControlException {
+
+    private final Information info;
+    private final Target target;
+    private final int depth;
+
+    /**
+     * Initializes a new instance of QueueOverflowException for the specified information, target
+     * and queue depth.
+     *
+     * @param info   the information that was rejected or dropped.
+     * @param target the target whose mailbox overflowed.
+     * @param depth  the depth of the target's mailbox at the time of the overflow.
+     */
+    public QueueOverflowException(final Information info, final Target target, final int depth) {
+        this.info = info;
+        this.target = target;
+        this.depth = depth;
+    }
+
+    @ToString public Information getInformation() {
+        return info;
+    }
+
+    @ToString public Target getTarget() {
+        return target;
+    }
+
+    @ToString public int getDepth() {
+        return depth;
+    }
+
+}
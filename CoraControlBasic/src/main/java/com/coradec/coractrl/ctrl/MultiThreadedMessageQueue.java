@@ -21,6 +21,7 @@
 package com.coradec.coractrl.ctrl;
 
 import com.coradec.coracom.ctrl.MessageQueue;
+import com.coradec.coractrl.model.QueueStatistics;
 
 /**
  * ​A message queue running multiple threads to dispatch messages.
@@ -56,7 +57,31 @@ public interface MultiThreadedMessageQueue extends MessageQueue {
     int getActiveWorkerCount();
 
     /**
-     * Resets the maximum number of processors in use.
+     * Returns the maximum number of messages a single mailbox may hold before the overflow policy
+     * applies.  Urgent messages are exempt from the limit.
+     *
+     * @return the mailbox capacity, or 0 if unbounded.
+     */
+    int getMailboxCapacity();
+
+    /**
+     * Returns the maximum number of messages all mailboxes together may hold before the overflow
+     * policy applies.  Urgent messages are exempt from the limit.
+     *
+     * @return the queue capacity, or 0 if unbounded.
+     */
+    int getQueueCapacity();
+
+    /**
+     * Returns a snapshot of the throughput and latency statistics of the queue, by target and by
+     * type of information.
+     *
+     * @return the current statistics.
+     */
+    QueueStatistics getStatistics();
+
+    /**
+     * Resets the maximum number of processors in use and the statistics.
      */
     void resetUsage();
 
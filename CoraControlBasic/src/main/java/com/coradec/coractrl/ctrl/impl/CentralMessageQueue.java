@@ -25,48 +25,156 @@ import static java.util.concurrent.TimeUnit.*;
 
 import com.coradec.coracom.ctrl.Observer;
 import com.coradec.coracom.model.Command;
+import com.coradec.coracom.model.Conflatable;
 import com.coradec.coracom.model.Deferred;
 import com.coradec.coracom.model.Information;
 import com.coradec.coracom.model.Message;
 import com.coradec.coracom.model.Recipient;
 import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.SessionInformation;
+import com.coradec.coracom.model.SessionRequest;
 import com.coradec.coracom.model.Target;
-import com.coradec.coracom.model.impl.BasicCommand;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracom.trouble.DeadlineExceededException;
 import com.coradec.coracom.trouble.InformationWithoutOriginException;
 import com.coradec.coracom.trouble.QueueException;
 import com.coradec.coraconf.model.Property;
 import com.coradec.coracore.annotation.Implementation;
-import com.coradec.coracore.annotation.Internal;
 import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.annotation.ToString;
+import com.coradec.coracore.model.GenericFactory;
 import com.coradec.coracore.model.Origin;
 import com.coradec.coracore.time.Duration;
-import com.coradec.coracore.trouble.OperationInterruptedException;
+import com.coradec.coracore.util.ExecUtil;
 import com.coradec.coractrl.ctrl.MultiThreadedMessageQueue;
 import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.model.DeliveryStatistics;
+import com.coradec.coractrl.model.QueueStatistics;
+import com.coradec.coractrl.trouble.JournalException;
 import com.coradec.coractrl.trouble.MessageQueueDisabledException;
+import com.coradec.coractrl.trouble.QueueOverflowException;
 import com.coradec.coralog.ctrl.impl.Logger;
+import com.coradec.corasession.model.ProxySession;
+import com.coradec.corasession.model.Session;
 import com.coradec.coratext.model.LocalizedText;
 import com.coradec.coratext.model.Text;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * ​​The central message queue service.
+ * <p>
+ * Every target (recipient or observer) owns a mailbox with an urgent and a regular lane.  A mailbox
+ * holding at least one message is marked as scheduled and placed exactly once in the ready queue,
+ * from where the message processors pick it up, deliver its next message and put it back if more
+ * messages are pending.  This guarantees FIFO order per target, urgent messages first and at most
+ * one message being processed per target at any time, without a global lock on the inject or
+ * deliver path.  A recipient declaring a {@linkplain Recipient#getConcurrencyLevel() concurrency
+ * level} above 1 has its mailbox placed in the ready queue up to that many times at once instead,
+ * trading the order of its messages for parallel delivery; commands to such a recipient are still
+ * delivered exclusively.
+ * <p>
+ * Under fair scheduling ({@code FairByTenant} or {@code FairBySession}) the ready queue is a
+ * {@link FairQueue}: scheduled mailboxes are grouped by the {@linkplain Target#getTenant() tenant}
+ * of their target or by the session of their next message, and the groups take turns on a weighted
+ * deficit round-robin schedule, so a tenant flooding the queue cannot starve the others.  Under
+ * deadline scheduling ({@code EDF}) both the ready queue and the regular lanes are
+ * {@link DeadlineQueue}s, so the most urgent {@linkplain Request#within request} is delivered first.
+ * Independent of the scheduling, a request whose deadline has passed by the time it is due is
+ * failed with a {@link DeadlineExceededException} instead of being delivered.
+ * <p>
+ * Deferred information waits in a hierarchical timing wheel until it is due; the scheduler thread
+ * only wakes up when a slot of the wheel holds something to release, and injects everything due in
+ * the same tick as one batch.
+ * <p>
+ * In the default execution mode ({@code Threads}) the message processors are dedicated threads
+ * between the low and the high water mark, started whenever more mailboxes are ready than there are
+ * processors and retired after being idle for a while.  With the {@code Adaptive} pool control, a
+ * processor is started as soon as more mailboxes are ready than processors are idle, and a
+ * {@link PoolController} sizes the pool from the queue wait and processor utilization sampled in
+ * every control interval; surplus processors retire after one idle interval.  In the
+ * {@code ForkJoin} mode, every scheduled mailbox
+ * is run as a task on a work-stealing fork/join pool with the configured parallelism instead; the
+ * per-target guarantees are the same, since a mailbox is never scheduled more often than its target
+ * allows.  In the
+ * {@code Virtual} mode, every scheduled mailbox is drained by a virtual thread of its own, so
+ * handlers blocking on requests do not starve the queue; this mode falls back to {@code Threads} if
+ * the runtime does not support virtual threads.
+ * <p>
+ * Mailboxes can be bounded per target and in total.  When a regular message hits a limit, the
+ * overflow policy decides: {@code Block} makes the producer wait for room up to the overflow
+ * timeout, {@code Fail} rejects the message at once, and {@code DropOldest} drops the oldest regular
+ * message of the target to make room.  Rejected or dropped requests fail with a {@link
+ * QueueOverflowException}.  Urgent messages are never limited.
+ * <p>
+ * A {@link Conflatable} information supersedes any undelivered information with an equal conflation
+ * key in the mailbox of its target; the superseded one is skipped when its turn comes, and a
+ * superseded request completes according to its supersession policy right away.
+ * <p>
+ * Optionally, a message to an idle recipient is delivered by the injecting thread itself instead of
+ * waking a message processor, up to a configurable nesting depth of such inline deliveries per
+ * thread.  The producer owns the scheduled flag of the mailbox while doing so, so exclusivity and
+ * order per target are unaffected; but since the inject call then only returns after the handler,
+ * producers must not hold locks the recipient might need.
+ * <p>
+ * On system shutdown, the queue waits until the last {@linkplain #preventShutdown() shutdown lock}
+ * is released or the shutdown timeout has passed, then stops accepting new information except for
+ * follow-ups injected by handlers still at work, and lets the queued messages drain for up to the
+ * drain timeout before stopping its message processors.
+ * <p>
+ * Optionally, session requests and deferred information are journaled in a {@link
+ * RequestJournal} as they are injected, provided their class has a public constructor rebuilding
+ * them from their properties, and marked complete when the request completes or the information is
+ * delivered; a queue started on the journal of a predecessor that crashed injects what the
+ * predecessor left incomplete again.  With a synchronous journal, the inject call returns once the
+ * entry is on disk.
+ * <p>
+ * If switched on, a watchdog thread looks for stalls once in a while: a target whose next message has been waiting,
+ * or a handler that has been running, for longer than the stall threshold, and cycles of targets
+ * whose handlers all stand by for a request to the next target in the cycle.  It reports each of
+ * them with the stack of the worker thread concerned.  The message processors of the queue only
+ * publish what they are working on for it while they run; handlers running on virtual threads or
+ * inline on a producer thread are not tracked, and show up as stalls of the mailbox waiting behind
+ * them.
+ * <p>
+ * Unless switched off, every delivery records its queue wait and handler time in fixed-memory
+ * histograms per target and per type of information, which are available as a {@link
+ * #getStatistics() snapshot} together with the throughput counters.
  */
 @SuppressWarnings({"ClassHasNoToStringMethod", "PackageVisibleField"})
 @Implementation(SINGLETON)
@@ -79,6 +187,11 @@ public class CentralMessageQueue extends Logger
     static final Text TEXT_OBSERVER_NASTY = LocalizedText.define("ObserverNasty");
     private static final Text TEXT_CANNOT_PROCESS_MESSAGE =
             LocalizedText.define("CannotProcessMessage");
+    private static final Text TEXT_NO_VIRTUAL_THREADS = LocalizedText.define("NoVirtualThreads");
+    private static final Text TEXT_SHUTDOWN_TIMED_OUT = LocalizedText.define("ShutdownTimedOut");
+    private static final Text TEXT_DRAIN_TIMED_OUT = LocalizedText.define("DrainTimedOut");
+    private static final Text TEXT_STALL_ALERT = LocalizedText.define("StallAlert");
+    private static final Text TEXT_REPLAY_FAILED = LocalizedText.define("ReplayFailed");
 
     private static final Property<Integer> PROP_HIGH_WATER_MARK =
             Property.define("HighWaterMark", Integer.class, 20);
@@ -86,88 +199,562 @@ public class CentralMessageQueue extends Logger
             Property.define("LowWaterMark", Integer.class, 3);
     static final Property<Duration> PROP_PATIENCE =
             Property.define("Patience", Duration.class, Duration.of(20, SECONDS));
+    private static final Property<Duration> PROP_SCHEDULER_TICK =
+            Property.define("SchedulerTick", Duration.class, Duration.of(10, MILLISECONDS));
+    private static final Property<Integer> PROP_SCHEDULER_WHEEL_SIZE =
+            Property.define("SchedulerWheelSize", Integer.class, 256);
+    private static final int SCHEDULER_WHEEL_LEVELS = 4;
+    private static final Property<String> PROP_EXECUTION_MODE =
+            Property.define("ExecutionMode", String.class, "Threads");
+    private static final Property<Integer> PROP_PARALLELISM =
+            Property.define("Parallelism", Integer.class, 0);
+    private static final Property<Integer> PROP_MAILBOX_CAPACITY =
+            Property.define("MailboxCapacity", Integer.class, 0);
+    private static final Property<Integer> PROP_QUEUE_CAPACITY =
+            Property.define("QueueCapacity", Integer.class, 0);
+    private static final Property<String> PROP_OVERFLOW_POLICY =
+            Property.define("OverflowPolicy", String.class, "Block");
+    private static final Property<Duration> PROP_OVERFLOW_TIMEOUT =
+            Property.define("OverflowTimeout", Duration.class, Duration.of(5, SECONDS));
+    private static final Property<Boolean> PROP_STATISTICS =
+            Property.define("Statistics", Boolean.class, true);
+    private static final Property<Integer> PROP_INLINE_DEPTH =
+            Property.define("InlineDepth", Integer.class, 0);
+    private static final ThreadLocal<int[]> INLINE_LEVEL = ThreadLocal.withInitial(() -> new int[1]);
+    private static final Property<Duration> PROP_SHUTDOWN_TIMEOUT =
+            Property.define("ShutdownTimeout", Duration.class, Duration.of(30, SECONDS));
+    private static final Property<Duration> PROP_DRAIN_TIMEOUT =
+            Property.define("DrainTimeout", Duration.class, Duration.of(10, SECONDS));
+    private static final Property<String> PROP_JOURNAL =
+            Property.define("Journal", String.class, "");
+    private static final Property<Integer> PROP_JOURNAL_SEGMENT_SIZE =
+            Property.define("JournalSegmentSize", Integer.class, 16 << 20);
+    private static final Property<Duration> PROP_JOURNAL_FLUSH_INTERVAL =
+            Property.define("JournalFlushInterval", Duration.class, Duration.of(10, MILLISECONDS));
+    private static final Property<Boolean> PROP_JOURNAL_SYNC =
+            Property.define("JournalSync", Boolean.class, true);
+    private static final Property<Boolean> PROP_WATCHDOG =
+            Property.define("Watchdog", Boolean.class, false);
+    private static final Property<Duration> PROP_WATCHDOG_INTERVAL =
+            Property.define("WatchdogInterval", Duration.class, Duration.of(1, SECONDS));
+    private static final Property<Duration> PROP_STALL_THRESHOLD =
+            Property.define("StallThreshold", Duration.class, Duration.of(10, SECONDS));
+    private static final Property<String> PROP_POOL_CONTROL =
+            Property.define("PoolControl", String.class, "Boost");
+    private static final Property<Duration> PROP_CONTROL_INTERVAL =
+            Property.define("ControlInterval", Duration.class, Duration.of(50, MILLISECONDS));
+    private static final Property<Duration> PROP_TARGET_WAIT =
+            Property.define("TargetWait", Duration.class, Duration.of(2, MILLISECONDS));
+    private static final Property<Integer> PROP_LOW_UTILIZATION =
+            Property.define("LowUtilization", Integer.class, 50);
+    private static final String CONTROL_ADAPTIVE = "Adaptive";
+    private static final Property<String> PROP_SCHEDULING =
+            Property.define("Scheduling", String.class, "FIFO");
+    private static final Property<Integer> PROP_TENANT_WEIGHT =
+            Property.define("TenantWeight", Integer.class, 1);
+    private static final String SCHEDULING_BY_TENANT = "FairByTenant";
+    private static final String SCHEDULING_BY_SESSION = "FairBySession";
+    private static final String SCHEDULING_EDF = "EDF";
+    private static final String MODE_FORK_JOIN = "ForkJoin";
+    private static final String MODE_VIRTUAL = "Virtual";
+    private static final String POLICY_FAIL = "Fail";
+    private static final String POLICY_DROP_OLDEST = "DropOldest";
+    private static final Text TEXT_MESSAGE_DROPPED = LocalizedText.define("MessageDropped");
+    /**
+     * The constructors that rebuild journaled information from its properties, by class; empty
+     * for classes that cannot be rebuilt, like inner classes.
+     */
+    private static final ClassValue<Optional<Constructor<?>>> RESTORERS =
+            new ClassValue<Optional<Constructor<?>>>() {
+                @Override protected Optional<Constructor<?>> computeValue(final Class<?> type) {
+                    if (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))
+                        return Optional.empty();
+                    try {
+                        return Optional.of(type.getConstructor(Map.class));
+                    } catch (NoSuchMethodException e) {
+                        return Optional.empty();
+                    }
+                }
+            };
 
     private final int lowWaterMark;
     private final int highWaterMark;
-    final Map<Target, TargetQueue> queueMap;
-    final BlockingQueue<Deferred> deferredQueue;
-    final Queue<TargetQueue> queueQueue;
-    final Semaphore queues, qman, iq;
+    private final int mailboxCapacity;
+    private final int queueCapacity;
+    private final String overflowPolicy;
+    private final long overflowTimeout;
+    private final Duration shutdownTimeout;
+    private final boolean statistics;
+    private final String scheduling;
+    private final boolean bySession;
+    private final boolean byDeadline;
+    private final int tenantWeight;
+    final Map<Object, Integer> tenantWeights = Collections.synchronizedMap(new WeakHashMap<>());
+    final Map<Target, Mailbox> queueMap;
+    final TimingWheel<Deferred> deferredWheel;
+    final Map<Deferred, TimingWheel.Timeout<Deferred>> deferredMap;
+    final Queue<Mailbox> readyQueue;
+    final Semaphore ready;
     final Queue<MessageProcessor> processors;
-    final Collection<Observer> observers;
-    final ReentrantLock obslock = new ReentrantLock();
+    final @Nullable ForkJoinPool pool;
+    final @Nullable ThreadFactory virtualThreads;
+    final ObserverRegistry observers;
+    final @Nullable PoolController controller;
+    final long controlInterval;
+    final @Nullable Thread poolControl;
+    final @Nullable Thread watchdog;
+    final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+    final @Nullable RequestJournal journal;
+    private final boolean journalSync;
+    /**
+     * The state of threads other than the message processors of this queue while they deliver:
+     * producers delivering inline and virtual threads draining a mailbox.  The watchdog does not
+     * track them, so their handlers only show up as stalls of the mailbox waiting behind them.
+     */
+    private final ThreadLocal<Worker> foreignWorker =
+            ThreadLocal.withInitial(() -> new Worker(Thread.currentThread()));
+    private Set<Set<Target>> deadlocks = Collections.emptySet();
     final Thread scheduler = new Scheduler();
-    boolean running;
+    volatile boolean running;
+    volatile boolean draining;
+    final CountDownLatch drained = new CountDownLatch(1);
+    AtomicInteger processorCount = new AtomicInteger(0);
+    final AtomicInteger idleCount = new AtomicInteger(0);
     AtomicInteger maxUsed = new AtomicInteger(0);
-    AtomicInteger currentUsed = new AtomicInteger(0);
     AtomicInteger preventShutdown = new AtomicInteger(0);
+    final Object unlocked = new Object();
+    final AtomicInteger depth = new AtomicInteger(0);
+    final AtomicInteger blocked = new AtomicInteger(0);
+    final Object room = new Object();
+    final LongAdder injected = new LongAdder();
+    final LongAdder delivered = new LongAdder();
+    final LongAdder conflated = new LongAdder();
+    final LongAdder expired = new LongAdder();
+    final Map<Target, DeliveryRecorder> targetStats =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    final Map<Class<?>, DeliveryRecorder> typeStats = new ConcurrentHashMap<>();
+    volatile long statsSince = System.nanoTime();
+    volatile int inlineDepth;
+    volatile int targetWorkers;
+    final LongAdder waitNanos = new LongAdder();
+    final LongAdder waitCount = new LongAdder();
+    final LongAdder busyNanos = new LongAdder();
 
     public CentralMessageQueue() {
+        this(new Options());
+    }
+
+    /**
+     * Initializes a new instance of CentralMessageQueue with the specified options.
+     *
+     * @param options the options.
+     * @throws JournalException if the journal could not be opened.
+     */
+    CentralMessageQueue(final Options options) throws JournalException {
+        mailboxCapacity = options.mailboxCapacity;
+        queueCapacity = options.queueCapacity;
+        overflowPolicy = options.overflowPolicy;
+        final Duration overflowTimeout = options.overflowTimeout;
+        this.overflowTimeout = overflowTimeout.getUnit().toNanos(overflowTimeout.getAmount());
+        shutdownTimeout = options.shutdownTimeout;
+        statistics = PROP_STATISTICS.value();
+        inlineDepth = PROP_INLINE_DEPTH.value();
         lowWaterMark = PROP_LOW_WATER_MARK.value();
         highWaterMark = PROP_HIGH_WATER_MARK.value();
-        queueMap = new HashMap<>();
-        queueQueue = new ConcurrentLinkedQueue<>();
-        deferredQueue = new PriorityBlockingQueue<>(3,
-                (o1, o2) -> (int)(o1.getExecutionTime() - o2.getExecutionTime()));
-        queues = new Semaphore(0);
-        iq = new Semaphore(0);
-        qman = new Semaphore(1);
+        queueMap = new ConcurrentHashMap<>();
+        scheduling = options.scheduling;
+        bySession = SCHEDULING_BY_SESSION.equalsIgnoreCase(scheduling);
+        byDeadline = SCHEDULING_EDF.equalsIgnoreCase(scheduling);
+        tenantWeight = PROP_TENANT_WEIGHT.value();
+        readyQueue = bySession || SCHEDULING_BY_TENANT.equalsIgnoreCase(scheduling)
+                     ? new FairQueue<>(Mailbox::getTenant, this::getTenantWeight)
+                     : byDeadline
+                       ? new DeadlineQueue<>(Mailbox::getDeadline)
+                       : new ConcurrentLinkedQueue<>();
+        final Duration tick = PROP_SCHEDULER_TICK.value();
+        deferredWheel = new TimingWheel<>(tick.getAmount(), tick.getUnit(),
+                PROP_SCHEDULER_WHEEL_SIZE.value(), SCHEDULER_WHEEL_LEVELS,
+                () -> LockSupport.unpark(scheduler));
+        deferredMap = new ConcurrentHashMap<>();
+        ready = new Semaphore(0);
         processors = new ConcurrentLinkedQueue<>();
-        observers = new LinkedList<>();
-        for (int i = 0; i < lowWaterMark; ++i) {
-            startThread();
+        observers = new ObserverRegistry();
+        virtualThreads = MODE_VIRTUAL.equalsIgnoreCase(options.executionMode)
+                         ? ExecUtil.getVirtualThreadFactory("MessageProcessor-V").orElse(null)
+                         : null;
+        if (MODE_VIRTUAL.equalsIgnoreCase(options.executionMode) && virtualThreads == null)
+            warn(TEXT_NO_VIRTUAL_THREADS);
+        final int parallelism = options.parallelism > 0
+                                ? options.parallelism
+                                : Runtime.getRuntime().availableProcessors();
+        pool = MODE_FORK_JOIN.equalsIgnoreCase(options.executionMode)
+               ? new ForkJoinPool(parallelism, WorkStealingProcessor::new,
+                (thread, problem) -> error(problem), true)
+               : null;
+        final Duration interval = PROP_CONTROL_INTERVAL.value();
+        controlInterval = interval.getUnit().toNanos(interval.getAmount());
+        final Duration targetWait = PROP_TARGET_WAIT.value();
+        controller = pool == null && virtualThreads == null &&
+                     CONTROL_ADAPTIVE.equalsIgnoreCase(PROP_POOL_CONTROL.value())
+                     ? new PoolController(lowWaterMark, highWaterMark,
+                targetWait.getUnit().toNanos(targetWait.getAmount()),
+                PROP_LOW_UTILIZATION.value() / 100.0)
+                     : null;
+        poolControl = controller != null ? new PoolControl(controller) : null;
+        watchdog = options.watchdog ? new Watchdog() : null;
+        final Duration flushInterval = PROP_JOURNAL_FLUSH_INTERVAL.value();
+        journal = options.journal == null ? null : new RequestJournal(options.journal,
+                PROP_JOURNAL_SEGMENT_SIZE.value(),
+                flushInterval.getUnit().toNanos(flushInterval.getAmount()));
+        journalSync = PROP_JOURNAL_SYNC.value();
+        targetWorkers = lowWaterMark;
+        if (pool == null && virtualThreads == null) {
+            for (int i = 0; i < lowWaterMark; ++i) {
+                startThread();
+            }
         }
         running = true;
         scheduler.start();
+        if (poolControl != null) poolControl.start();
+        if (watchdog != null) {
+            BasicRequest.trackWaiters(true);
+            watchdog.start();
+        }
+        if (this.journal != null && !this.journal.getRecovered().isEmpty())
+            new JournalReplay(this.journal).start();
         SysControl.onShutdown(new ShutMeDown());
     }
 
+    private static @Nullable Path journalDirectory() {
+        final String directory = PROP_JOURNAL.value();
+        return directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    /**
+     * Starts a new message processor unless the high water mark has been reached.
+     */
     private void startThread() {
+        int count;
+        do {
+            count = processorCount.get();
+            if (count >= highWaterMark) return;
+        } while (!processorCount.compareAndSet(count, count + 1));
         new MessageProcessor().start();
     }
 
+    /**
+     * Retires an idle message processor unless the low water mark has been reached.
+     *
+     * @return {@code true} if the calling processor may die, {@code false} if it has to stay.
+     */
+    boolean retireThread() {
+        final int floor = controller != null ? targetWorkers : lowWaterMark;
+        int count;
+        do {
+            count = processorCount.get();
+            if (count <= floor) return false;
+        } while (!processorCount.compareAndSet(count, count - 1));
+        return true;
+    }
+
     @Override public <I extends Information> I inject(final I info) throws QueueException {
-        if (!running) {
+        if (!running && !acceptsFollowUp()) {
             final MessageQueueDisabledException dead = new MessageQueueDisabledException();
             if (info instanceof Request) ((Request)info).fail(dead);
             throw dead;
         }
         if (info.getOrigin() == null) throw new InformationWithoutOriginException(info);
+        injected.increment();
+        final long ticket = journal != null ? journal(info) : 0;
         if (info instanceof Deferred && !isDue((Deferred)info)) scheduleDeferred((Deferred)info);
-        else {
+        else dispatch(info);
+        if (ticket != 0) commit(ticket);
+        return info;
+    }
+
+    @Override public void injectAll(final Collection<? extends Information> infos)
+            throws QueueException {
+        if (!running && !acceptsFollowUp()) {
+            final MessageQueueDisabledException dead = new MessageQueueDisabledException();
+            for (final Information info : infos) {
+                if (info instanceof Request) ((Request)info).fail(dead);
+            }
+            throw dead;
+        }
+        for (final Information info : infos) {
+            if (info.getOrigin() == null) throw new InformationWithoutOriginException(info);
+        }
+        injected.add(infos.size());
+        long ticket = 0;
+        if (journal != null) for (final Information info : infos) {
+            ticket = Math.max(ticket, journal(info));
+        }
+        for (final Information info : infos) {
+            if (info instanceof Deferred && !isDue((Deferred)info)) {
+                scheduleDeferred((Deferred)info);
+            } else dispatch(info);
+        }
+        if (ticket != 0) commit(ticket);
+    }
+
+    /**
+     * Appends the specified information to the journal if it is a session request or deferred
+     * information whose class can rebuild it from its properties, and arranges for the entry to be
+     * marked complete when the request completes.  Deferred information that is not a request is
+     * marked complete on delivery.
+     *
+     * @param info the information.
+     * @return the ticket to commit the entry with, or 0 if the information is not journaled.
+     * @throws JournalException if the entry could not be written.
+     */
+    private long journal(final Information info) throws JournalException {
+        final RequestJournal journal = this.journal;
+        if (journal == null || !(info instanceof SessionRequest || info instanceof Deferred) ||
+            !RESTORERS.get(info.getClass()).isPresent()) return 0;
+        final Map<String, Object> properties = new LinkedHashMap<>(info.getProperties());
+        properties.put(Information.PROP_CLASS, info.getClass().getName());
+        final long ticket = journal.append(info.getId(), properties);
+        if (info instanceof Request) {
+            final UUID id = info.getId();
+            ((Request)info).andThen(() -> journal.complete(id))
+                           .orElse(problem -> journal.complete(id));
+        }
+        return ticket;
+    }
+
+    /**
+     * Waits until the journal entries up to the specified ticket are on disk, if the journal is
+     * synchronous.
+     *
+     * @param ticket the ticket.
+     */
+    private void commit(final long ticket) {
+        if (journal != null && journalSync) try {
+            journal.commit(ticket);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reconstructs the information from the specified journal entry, in a proxy session if its
+     * session is gone.
+     *
+     * @param properties the properties of the information.
+     * @return the information.
+     * @throws ReflectiveOperationException if the information could not be constructed.
+     */
+    private static Information restore(final Map<String, Object> properties)
+            throws ReflectiveOperationException {
+        final @Nullable Object session = properties.get(SessionInformation.PROP_SESSION);
+        if (session != null) {
+            final UUID sessionId = UUID.fromString(session.toString());
+            if (!Session.lookup(sessionId).isPresent())
+                new GenericFactory<ProxySession>(ProxySession.class).create(sessionId);
+        }
+        final Class<?> type = Class.forName((String)properties.get(Information.PROP_CLASS));
+        return (Information)RESTORERS.get(type)
+                                     .orElseThrow(() -> new NoSuchMethodException(
+                                             type.getName() + ".<init>(java.util.Map)"))
+                                     .newInstance(properties);
+    }
+
+    /**
+     * Checks if the queue, having stopped accepting new traffic, still accepts information from
+     * the calling thread because it is a follow-up of a delivery in progress while the queue
+     * drains.
+     *
+     * @return {@code true} if the information is accepted.
+     */
+    private boolean acceptsFollowUp() {
+        return draining && currentWorker().depth > 0;
+    }
+
+    private <I extends Information> void dispatch(final I info) {
+        if (info instanceof Message) {
+            info.onEnqueue();
+            dispatchMessage(info, ((Message)info).getRecipient());
+        } else dispatchInfo(info, observers.resolve(info.getClass()));
+    }
+
+    private <I extends Information> void dispatchInfo(final I info,
+            final Collection<Observer> observers) {
+        @Nullable QueueOverflowException overflow = null;
+        for (Observer observer : observers) {
             try {
-                qman.acquire();
-                if (info instanceof Message) {
-                    info.onEnqueue();
-                    dispatchMessage(info, ((Message)info).getRecipient());
-                } else dispatchInfo(info, observers);
+                dispatchMessage(info, observer);
+            } catch (QueueOverflowException e) {
+                if (overflow == null) overflow = e;
+            }
+        }
+        if (overflow != null) throw overflow;
+    }
+
+    private <I extends Information> void dispatchMessage(final I info, final Target target) {
+        if (!isBounded() || isUrgent(info)) {
+            depth.incrementAndGet();
+            Mailbox mailbox;
+            do {
+                mailbox = queueMap.get(target);
+                if (mailbox == null) mailbox = queueMap.computeIfAbsent(target, Mailbox::new);
+            } while (mailbox.offer(info, 0) == Admission.RETIRED);
+        } else admit(info, target);
+    }
+
+    /**
+     * Adds the specified regular information to the mailbox of the specified target within the
+     * capacity limits, applying the overflow policy if there is no room.
+     *
+     * @param info   the information.
+     * @param target the target.
+     * @throws QueueOverflowException if there was no room for the information.
+     */
+    private void admit(final Information info, final Target target) throws QueueOverflowException {
+        final long deadline = System.nanoTime() + overflowTimeout;
+        while (!tryAdmit(info, target)) {
+            if (POLICY_DROP_OLDEST.equalsIgnoreCase(overflowPolicy)) {
+                if (replaceOldest(info, target)) return;
+            } else if (!POLICY_FAIL.equalsIgnoreCase(overflowPolicy)) {
+                if (awaitRoom(target, deadline)) continue;
+            }
+            final QueueOverflowException overflow =
+                    new QueueOverflowException(info, target, getQueueDepth(target));
+            if (info instanceof Request) ((Request)info).fail(overflow);
+            throw overflow;
+        }
+    }
+
+    /**
+     * Tries to add the specified information to the mailbox of the specified target within the
+     * capacity limits.
+     *
+     * @param info   the information.
+     * @param target the target.
+     * @return {@code true} if the information was added, {@code false} if there was no room.
+     */
+    private boolean tryAdmit(final Information info, final Target target) {
+        int current;
+        do {
+            current = depth.get();
+            if (queueCapacity > 0 && current >= queueCapacity) return false;
+        } while (!depth.compareAndSet(current, current + 1));
+        Mailbox mailbox;
+        Admission admission;
+        do {
+            mailbox = queueMap.get(target);
+            if (mailbox == null) mailbox = queueMap.computeIfAbsent(target, Mailbox::new);
+        } while ((admission = mailbox.offer(info, mailboxCapacity)) == Admission.RETIRED);
+        if (admission == Admission.ADMITTED) return true;
+        depth.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Makes room for the specified information by dropping the oldest regular message waiting for
+     * the specified target.  A dropped request fails.
+     *
+     * @param info   the information.
+     * @param target the target.
+     * @return {@code true} if the information took the place of a dropped message, {@code false}
+     * if the target had no regular message waiting.
+     */
+    private boolean replaceOldest(final Information info, final Target target) {
+        final @Nullable Mailbox mailbox = queueMap.get(target);
+        final @Nullable Information victim = mailbox == null ? null : mailbox.replaceOldest(info);
+        if (victim == null) return false;
+        if (!mailbox.claim(victim)) return true; // superseded already, nothing lost
+        warn(TEXT_MESSAGE_DROPPED, target, victim);
+        if (victim instanceof Request)
+            ((Request)victim).fail(new QueueOverflowException(victim, target, mailbox.size()));
+        return true;
+    }
+
+    /**
+     * Waits until there might be room for another message to the specified target, or until the
+     * specified deadline has passed.
+     *
+     * @param target   the target.
+     * @param deadline the deadline (in terms of {@link System#nanoTime()}).
+     * @return {@code true} if it may be worth trying again, {@code false} if the deadline has
+     * passed or the producer was interrupted.
+     */
+    private boolean awaitRoom(final Target target, final long deadline) {
+        synchronized (room) {
+            blocked.incrementAndGet();
+            try {
+                while (!hasRoom(target)) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) return false;
+                    NANOSECONDS.timedWait(room, remaining);
+                }
+                return true;
             } catch (InterruptedException e) {
-                throw new OperationInterruptedException();
+                Thread.currentThread().interrupt();
+                return false;
             } finally {
-                qman.release();
+                blocked.decrementAndGet();
             }
         }
-        return info;
     }
 
-    private <I extends Information> void dispatchInfo(final I info,
-            final Collection<Observer> observers) throws InterruptedException {
-        obslock.lock();
-        for (Observer observer : observers) {
-            dispatchMessage(info, observer);
+    private boolean hasRoom(final Target target) {
+        return (queueCapacity <= 0 || depth.get() < queueCapacity) &&
+               (mailboxCapacity <= 0 || getQueueDepth(target) < mailboxCapacity);
+    }
+
+    /**
+     * Signals blocked producers that a message left its mailbox.
+     */
+    void freeRoom() {
+        if (depth.decrementAndGet() == 0 && draining) drained.countDown();
+        if (blocked.get() > 0) synchronized (room) {
+            room.notifyAll();
         }
-        obslock.unlock();
     }
 
-    private <I extends Information> void dispatchMessage(final I info, final Target target)
-            throws InterruptedException {
-        queueMap.computeIfAbsent(target, t -> {
-            final TargetQueue queue = new TargetQueue(t);
-            queueQueue.add(queue);
-            queues.release();
-            boost();
-            return queue;
-        }).add(info);
+    private boolean isBounded() {
+        return mailboxCapacity > 0 || queueCapacity > 0;
+    }
+
+    static boolean isUrgent(final Information info) {
+        return info instanceof Message && ((Message)info).isUrgent();
+    }
+
+    /**
+     * Completes the specified superseded information according to its supersession policy, if it
+     * is a request.
+     *
+     * @param info the superseded information.
+     */
+    void supersede(final Conflatable info) {
+        conflated.increment();
+        if (info instanceof Request) {
+            if (info.getSupersession() == Conflatable.Supersession.SUCCEED)
+                ((Request)info).succeed();
+            else ((Request)info).cancel();
+        }
+    }
+
+    /**
+     * Puts the specified mailbox into the ready queue and makes sure there is a message processor
+     * to pick it up.
+     *
+     * @param mailbox the mailbox to schedule.
+     */
+    void schedule(final Mailbox mailbox) {
+        if (virtualThreads != null) {
+            virtualThreads.newThread(mailbox::drain).start();
+            return;
+        }
+        if (pool != null) {
+            pool.execute(mailbox);
+            final int used = pool.getPoolSize();
+            if (used > maxUsed.get()) maxUsed.accumulateAndGet(used, Integer::max);
+            return;
+        }
+        readyQueue.add(mailbox);
+        ready.release();
+        boost();
     }
 
     boolean isDue(final Deferred info) {
@@ -180,19 +767,75 @@ public class CentralMessageQueue extends Logger
      * @param info the deferred information.
      */
     private void scheduleDeferred(final Deferred info) {
-        deferredQueue.add(info);
-        final Deferred next = deferredQueue.peek();
-        if (next != null) {
-            scheduler.interrupt();
+        final TimingWheel.Timeout<Deferred> timeout = deferredWheel.timeout(info,
+                info.getExecutionTime() - System.currentTimeMillis(), MILLISECONDS);
+        // register the handle before the wheel can release the information
+        deferredMap.put(info, timeout);
+        deferredWheel.schedule(timeout);
+    }
+
+    /**
+     * Injects a batch of deferred information that became due.  Called from the scheduler only.
+     *
+     * @param batch the deferred information due in the current tick.
+     */
+    void releaseDeferred(final List<Deferred> batch) {
+        for (final Deferred info : batch) {
+            deferredMap.remove(info);
+            try {
+                dispatch(info);
+            } catch (Exception e) {
+                error(e);
+            }
         }
     }
 
+    @Override public boolean revoke(final Deferred info) {
+        final TimingWheel.Timeout<Deferred> timeout = deferredMap.remove(info);
+        if (timeout == null || !timeout.cancel()) return false;
+        if (info instanceof Request) ((Request)info).cancel();
+        else if (journal != null) journal.complete(info.getId());
+        return true;
+    }
+
+    @Override public int getQueueDepth() {
+        return depth.get();
+    }
+
+    @Override public int getQueueDepth(final Target target) {
+        final @Nullable Mailbox mailbox = queueMap.get(target);
+        return mailbox == null ? 0 : mailbox.size();
+    }
+
+    @Override public void setTenantWeight(final Object tenant, final int weight) {
+        tenantWeights.put(tenant, Math.max(1, weight));
+    }
+
+    /**
+     * Returns the weight of the specified tenant under fair scheduling.
+     *
+     * @param tenant the tenant ({@code null} for the shared tenant).
+     * @return the weight.
+     */
+    int getTenantWeight(final @Nullable Object tenant) {
+        final @Nullable Integer weight = tenant != null ? tenantWeights.get(tenant) : null;
+        return weight != null ? weight : tenantWeight;
+    }
+
+    @Override public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    @Override public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
     @Override public void preventShutdown() {
         preventShutdown.incrementAndGet();
     }
 
     @Override public void allowShutdown() {
-        preventShutdown.decrementAndGet();
+        if (preventShutdown.decrementAndGet() <= 0) signalUnlocked();
     }
 
     /**
@@ -209,14 +852,148 @@ public class CentralMessageQueue extends Logger
      */
     @Override public void clearShutdownLock() {
         preventShutdown.set(0);
+        signalUnlocked();
     }
 
+    private void signalUnlocked() {
+        synchronized (unlocked) {
+            unlocked.notifyAll();
+        }
+    }
+
+    /**
+     * Shuts the queue down once the last shutdown lock is released, or regardless of the locks
+     * left once the shutdown timeout has passed: stops accepting new traffic, lets the messages
+     * already queued and their follow-ups drain until the queue is empty or the drain timeout has
+     * passed, and then stops the message processors.
+     */
+    void shutDown() {
+        try {
+            synchronized (unlocked) {
+                if (preventShutdown.get() > 0)
+                    debug("Cannot terminate yet: %d locks.", preventShutdown.get());
+                final long deadline = System.nanoTime() +
+                        shutdownTimeout.getUnit().toNanos(shutdownTimeout.getAmount());
+                long left;
+                while (preventShutdown.get() > 0 && (left = deadline - System.nanoTime()) > 0)
+                    NANOSECONDS.timedWait(unlocked, left);
+                if (preventShutdown.get() > 0)
+                    warn(TEXT_SHUTDOWN_TIMED_OUT, shutdownTimeout, preventShutdown.get());
+            }
+            draining = true;
+            running = false;
+            if (depth.get() == 0) drained.countDown();
+            final Duration timeout = PROP_DRAIN_TIMEOUT.value();
+            if (!drained.await(timeout.getAmount(), timeout.getUnit()))
+                warn(TEXT_DRAIN_TIMED_OUT, timeout, depth.get());
+        } catch (InterruptedException e) {
+            // stop at once
+        } finally {
+            draining = false;
+            running = false;
+            if (pool != null) pool.shutdown();
+            scheduler.interrupt();
+            if (poolControl != null) poolControl.interrupt();
+            if (watchdog != null) watchdog.interrupt();
+            processors.forEach(Thread::interrupt);
+            if (journal != null) journal.close();
+        }
+    }
+
+    /**
+     * Returns the state of the calling thread as a delivering worker.
+     *
+     * @return the worker state.
+     */
+    private Worker currentWorker() {
+        final Thread thread = Thread.currentThread();
+        if (thread instanceof WorkerThread) {
+            final @Nullable Worker worker = ((WorkerThread)thread).workerOf(this);
+            if (worker != null) return worker;
+        }
+        return foreignWorker.get();
+    }
+
+    /**
+     * Looks for stalls: targets whose next message has been waiting, and handlers that have been
+     * running, for longer than the specified threshold, each reported once; and cycles of
+     * exclusive targets whose handlers have all been standing by for a request to the next one for
+     * that long, reported once when they form.
+     *
+     * @param threshold the stall threshold (in ns).
+     * @return the alerts found.
+     */
+    List<StallAlert> inspect(final long threshold) {
+        final long now = System.nanoTime();
+        final List<StallAlert> alerts = new ArrayList<>();
+        final Map<Target, Thread> busy = new HashMap<>();
+        final Map<Target, Target> waitsFor = new HashMap<>();
+        for (final Worker worker : workers) {
+            final Thread thread = worker.thread;
+            final @Nullable Target target = worker.target;
+            if (target == null) continue;
+            final long since = worker.since;
+            busy.put(target, thread);
+            if (now - since <= threshold) continue;
+            if (worker.reported != since) {
+                worker.reported = since;
+                alerts.add(StallAlert.running(target, worker.message, now - since, thread));
+            }
+            final @Nullable Request awaited = BasicRequest.getAwaitedBy(thread);
+            if (awaited != null && isExclusive(target))
+                waitsFor.put(target, awaited.getRecipient());
+        }
+        for (final Mailbox mailbox : queueMap.values()) {
+            final @Nullable Information head = mailbox.peek();
+            if (head == null || head == mailbox.reported) continue;
+            final long enqueued = head.getEnqueuedAt();
+            if (enqueued == 0 || now - enqueued <= threshold) continue;
+            mailbox.reported = head;
+            final Target target = mailbox.getTarget();
+            alerts.add(StallAlert.waiting(target, head, now - enqueued, mailbox.size(),
+                    busy.get(target)));
+        }
+        final Set<Set<Target>> deadlocks = new HashSet<>();
+        for (final Target start : waitsFor.keySet()) {
+            final List<Target> path = new ArrayList<>();
+            @Nullable Target next = start;
+            while (next != null && !path.contains(next)) {
+                path.add(next);
+                next = waitsFor.get(next);
+            }
+            if (next == null) continue;
+            final List<Target> cycle = path.subList(path.indexOf(next), path.size());
+            final Set<Target> members = new HashSet<>(cycle);
+            if (deadlocks.add(members) && !this.deadlocks.contains(members))
+                alerts.add(StallAlert.deadlocked(new ArrayList<>(cycle), busy.get(cycle.get(0))));
+        }
+        this.deadlocks = deadlocks;
+        return alerts;
+    }
+
+    private static boolean isExclusive(final Target target) {
+        return !(target instanceof Recipient) ||
+               ((Recipient)target).getConcurrencyLevel() <= 1;
+    }
+
+    /**
+     * Subscribes the specified observer for information from the queue.  The subscription takes
+     * effect at once: the observer receives every information injected after this call.
+     *
+     * @param observer the observer.
+     */
     @Override public void subscribe(final Observer observer) {
-        inject(new AddSubscriberCommand(observer));
+        observers.add(observer);
     }
 
+    /**
+     * Unsubscribes the specified observer for information from the queue.  Information injected
+     * before this call may still reach the observer.
+     *
+     * @param observer the observer to unsubscribe.
+     */
     @Override public void unsubscribe(final Observer observer) {
-        inject(new RemoveSubscriberCommand(observer));
+        observers.remove(observer);
     }
 
     @Override @ToString public int getLowWaterMark() {
@@ -232,12 +1009,50 @@ public class CentralMessageQueue extends Logger
     }
 
     @Override public int getActiveWorkerCount() {
-        return processors.size();
+        return pool != null ? pool.getPoolSize() : processorCount.get();
     }
 
     @Override public void resetUsage() {
-        processors.forEach(Thread::interrupt);
+        if (pool == null && controller == null) processors.forEach(Thread::interrupt);
         maxUsed.set(0);
+        injected.reset();
+        delivered.reset();
+        conflated.reset();
+        expired.reset();
+        synchronized (targetStats) {
+            targetStats.values().forEach(DeliveryRecorder::reset);
+        }
+        typeStats.values().forEach(DeliveryRecorder::reset);
+        statsSince = System.nanoTime();
+    }
+
+    @Override public QueueStatistics getStatistics() {
+        final Map<Target, DeliveryStatistics> byTarget = new HashMap<>();
+        synchronized (targetStats) {
+            targetStats.forEach((target, recorder) -> byTarget.put(target, recorder.snapshot()));
+        }
+        final Map<Class<?>, DeliveryStatistics> byType = new HashMap<>();
+        typeStats.forEach((type, recorder) -> byType.put(type, recorder.snapshot()));
+        return new Statistics(System.nanoTime() - statsSince, injected.sum(), delivered.sum(),
+                conflated.sum(), expired.sum(), byTarget, byType);
+    }
+
+    /**
+     * Records a delivery in the statistics of its target and type.
+     *
+     * @param recorder the recorder of the target.
+     * @param info     the delivered information.
+     * @param start    when the delivery started.
+     * @param finished when the handler returned.
+     */
+    void record(final DeliveryRecorder recorder, final Information info, final long start,
+            final long finished) {
+        final long enqueued = info.getEnqueuedAt();
+        recorder.record(enqueued, start, finished);
+        DeliveryRecorder byType = typeStats.get(info.getClass());
+        if (byType == null) byType = typeStats.computeIfAbsent(info.getClass(),
+                type -> new DeliveryRecorder());
+        byType.record(enqueued, start, finished);
     }
 
     @Override public void dumpStats() {
@@ -248,12 +1063,38 @@ public class CentralMessageQueue extends Logger
                     getMaxWorkerCount());
             out.printf("                 High water mark: %d%n", getHighWaterMark());
             out.printf("                  Low water mark: %d%n", getLowWaterMark());
-            out.printf("               Active recipients: %d%n", queueQueue.size());
+            if (controller != null)
+                out.printf("        Target number of workers: %d%n", targetWorkers);
+            out.printf("               Active recipients: %d%n", queueMap.size());
+            out.printf("                       Observers: %d%n", observers.size());
+            out.printf("                Ready recipients: %d%n", ready.availablePermits());
+            out.printf("               Deferred messages: %d%n", deferredWheel.size());
+            out.printf("                     Queue depth: %d of %d%n", getQueueDepth(),
+                    getQueueCapacity());
+            out.printf("                      Scheduling: %s%n", scheduling);
+            out.printf("                Mailbox capacity: %d (%s)%n", getMailboxCapacity(),
+                    overflowPolicy);
             out.printf("                         Running? %s%n", String.valueOf(running));
+            final QueueStatistics stats = getStatistics();
+            out.printf("         Injected / delivered: %d / %d (%.1f/s)%n", stats.getInjected(),
+                    stats.getDelivered(), stats.getThroughput());
+            out.printf("                       Conflated: %d%n", stats.getConflated());
+            out.printf("                         Expired: %d%n", stats.getExpired());
+            out.printf(" Busiest targets by handler time:%n");
+            stats.getTargetStatistics()
+                 .entrySet()
+                 .stream()
+                 .sorted(Comparator.comparingLong(
+                         (Map.Entry<Target, DeliveryStatistics> e) -> e.getValue()
+                                                                       .getHandlerTime()
+                                                                       .getTotal()).reversed())
+                 .limit(10)
+                 .forEach(e -> out.printf("%-32s: %s%n", e.getKey(), e.getValue()));
+            if (pool != null) out.printf("                  Fork/join pool: %s%n", pool);
             out.printf(" Unhandled requests by recipient: %n");
-            queueQueue.forEach(rq -> {
-                out.printf("%-32s: %d%n", rq.getTarget(), rq.size());
-                out.printf("                     ==> Request: %s%n", rq.peek());
+            queueMap.values().forEach(mailbox -> {
+                out.printf("%-32s: %d%n", mailbox.getTarget(), mailbox.size());
+                out.printf("                     ==> Request: %s%n", mailbox.peek());
             });
             out.println("--- Stack dumps of active workers ---");
             processors.forEach(mp -> {
@@ -271,13 +1112,48 @@ public class CentralMessageQueue extends Logger
         }
     }
 
+    private static int pendingOf(final long state) {
+        return (int)(state >>> 32);
+    }
+
+    private static int activeOf(final long state) {
+        return (int)state;
+    }
+
+    /**
+     * Returns the deadline of the specified information for deadline scheduling.
+     *
+     * @param info the information.
+     * @return the deadline of the information if it is a request with a deadline, otherwise
+     * {@link Long#MAX_VALUE}.
+     */
+    private static long deadlineOf(final Information info) {
+        final long deadline = info instanceof Request ? ((Request)info).getDeadline() : 0;
+        return deadline != 0 ? deadline : Long.MAX_VALUE;
+    }
+
     void boost() {
-        final int qsize = queueQueue.size();
-        if (qsize > processors.size() && processors.size() < highWaterMark) startThread();
+        final int backlog = ready.availablePermits();
+        if (backlog > (controller != null ? idleCount.get() : processorCount.get())) startThread();
     }
 
-    boolean isOdd() {
-        return processors.size() > lowWaterMark;
+    /**
+     * Lets the pool controller resize the pool from the samples of the last control interval.
+     *
+     * @param controller the pool controller.
+     */
+    void control(final PoolController controller) {
+        final int current = processorCount.get();
+        final int backlog = ready.availablePermits();
+        final long count = waitCount.sumThenReset();
+        final long wait = waitNanos.sumThenReset();
+        final long busy = busyNanos.sumThenReset();
+        final long meanWait = count != 0 ? wait / count : backlog > 0 ? controlInterval : 0;
+        final double utilization =
+                current == 0 ? 1 : (double)busy / ((double)controlInterval * current);
+        final int target = controller.adjust(current, meanWait, utilization, backlog);
+        targetWorkers = target;
+        for (int i = current; i < target; ++i) startThread();
     }
 
     @Override public String represent() {
@@ -285,10 +1161,7 @@ public class CentralMessageQueue extends Logger
     }
 
     @Override public void onMessage(final Message message) {
-        if (message instanceof AddSubscriberCommand ||
-            message instanceof RemoveSubscriberCommand) {
-            ((Command)message).execute();
-        } else error(TEXT_CANNOT_PROCESS_MESSAGE, message);
+        error(TEXT_CANNOT_PROCESS_MESSAGE, message);
     }
 
     /**
@@ -304,206 +1177,775 @@ public class CentralMessageQueue extends Logger
         return URI.create(represent());
     }
 
-    private class MessageProcessor extends Thread {
+    /**
+     * A message processor thread, which keeps its worker state at hand and shows it to the
+     * watchdog while it runs.
+     */
+    private interface WorkerThread {
+
+        /**
+         * Returns the worker state of this thread if it is a message processor of the specified
+         * queue.
+         *
+         * @param queue the queue.
+         * @return the worker state, or {@code null} if the thread belongs to another queue.
+         */
+        @Nullable Worker workerOf(CentralMessageQueue queue);
+
+    }
+
+    private class WorkStealingProcessor extends ForkJoinWorkerThread implements WorkerThread {
+
+        private final Worker worker = new Worker(this);
+
+        WorkStealingProcessor(final ForkJoinPool pool) {
+            super(pool);
+            setName("MessageProcessor-" + MP_ID_GEN.getAndIncrement());
+        }
+
+        @Override public @Nullable Worker workerOf(final CentralMessageQueue queue) {
+            return queue == CentralMessageQueue.this ? worker : null;
+        }
+
+        @Override protected void onStart() {
+            super.onStart();
+            if (watchdog != null) workers.add(worker);
+        }
+
+        @Override protected void onTermination(final Throwable exception) {
+            workers.remove(worker);
+            super.onTermination(exception);
+        }
+    }
+
+    private class MessageProcessor extends Thread implements WorkerThread {
+
+        private final Worker worker = new Worker(this);
 
         MessageProcessor() {
             super("MessageProcessor-" + MP_ID_GEN.getAndIncrement());
             processors.add(this);
-            currentUsed.set(processors.size());
-            maxUsed.set(Integer.max(maxUsed.get(), currentUsed.get()));
+            maxUsed.accumulateAndGet(processorCount.get(), Integer::max);
+        }
+
+        @Override public @Nullable Worker workerOf(final CentralMessageQueue queue) {
+            return queue == CentralMessageQueue.this ? worker : null;
         }
 
         @Override public void run() {
             final Duration patience = PROP_PATIENCE.value();
-            do {
-                try {
-                    if (!queues.tryAcquire(patience.getAmount(), patience.getUnit()))
-                        if (isOdd()) break;
-                        else continue;
-                    final TargetQueue queue;
-                    final Target target;
+            final long idleWait = controller != null
+                                  ? controlInterval
+                                  : patience.getUnit().toNanos(patience.getAmount());
+            if (watchdog != null) workers.add(worker);
+            try {
+                do {
                     try {
-                        qman.acquire();
-                        queue = queueQueue.remove();
-                        target = queue.getTarget();
-                        if (queue.isEmpty()) {
-                            queueMap.remove(target);
-                            continue;
-                        }
-                    } finally {
-                        qman.release();
-                    }
-                    final Information message = queue.poll();
-                    if (message != null) {
-                        message.onDeliver();
-                        if (target instanceof Recipient && message instanceof Message)
-                            ((Recipient)target).onMessage((Message)message);
-                        else if (target instanceof Observer) {
-                            Observer observer = (Observer)target;
-                            if (observer.wants(message) && observer.notify(message))
-                                inject(new RemoveSubscriberCommand(observer));
-                        }
+                        idleCount.incrementAndGet();
+                        final boolean acquired;
                         try {
-                            qman.acquire();
-                            queueQueue.add(queue);
-                            queues.release();
+                            acquired = ready.tryAcquire(idleWait, NANOSECONDS);
                         } finally {
-                            qman.release();
+                            idleCount.decrementAndGet();
                         }
+                        if (!acquired)
+                            if (retireThread()) break;
+                            else continue;
+                        final Mailbox mailbox = readyQueue.poll();
+                        if (mailbox != null) mailbox.run();
+                    } catch (InterruptedException e) {
+                        processorCount.decrementAndGet();
+                        break;
                     }
-                } catch (InterruptedException e) {
-                    break;
-                } catch (Exception e) {
-                    error(e);
-                }
-            } while (true);
+                } while (true);
+            } finally {
+                workers.remove(worker);
+            }
             processors.remove(this);
-            currentUsed.set(processors.size());
+            boost();
         }
     }
 
-    private class TargetQueue {
+    /**
+     * The mailbox of a single target.
+     * <p>
+     * The state word combines the number of active runs (low half) with the number of pending
+     * messages (high half); a producer reserves its slot and, if fewer runs are active than the
+     * target's concurrency level allows, claims another run in one CAS before it adds the message
+     * to its lane, and only the producer that claimed a run puts the mailbox into the ready queue.
+     * Every active run holds a pending message, and a run only ends if no message is left waiting
+     * for it, so a target with concurrency level 1 gets its messages strictly one at a time.  An
+     * idle mailbox (state 0) is retired and removed from the queue map; producers hitting a retired
+     * mailbox simply retry with a fresh one.
+     */
+    private class Mailbox implements Runnable {
+
+        private static final long ACTIVE = 1;
+        private static final long PENDING = 1L << 32;
+        private static final long RETIRED = -1;
 
         private final Target recipient;
-        private final LinkedList<Information> mainQueue = new LinkedList<>();
-        private final LinkedList<Information> prioQueue = new LinkedList<>();
-        private final ReentrantLock queueLock = new ReentrantLock();
+        private final int concurrency;
+        private final @Nullable ReadWriteLock exclusion;
+        private final Queue<Information> mainQueue;
+        private final Queue<Information> prioQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong state = new AtomicLong(0);
+        private final @Nullable DeliveryRecorder recorder;
+        private volatile @Nullable Map<Object, Conflatable> latest;
+        volatile @Nullable Information reported;
 
-        public TargetQueue(final Target recipient) {
+        Mailbox(final Target recipient) {
             this.recipient = recipient;
+            concurrency = recipient instanceof Recipient
+                          ? Math.max(1, ((Recipient)recipient).getConcurrencyLevel())
+                          : 1;
+            exclusion = concurrency > 1 ? new ReentrantReadWriteLock() : null;
+            mainQueue = byDeadline
+                        ? new DeadlineQueue<>(CentralMessageQueue::deadlineOf)
+                        : new ConcurrentLinkedQueue<>();
+            recorder = statistics ? targetStats.computeIfAbsent(recipient,
+                    target -> new DeliveryRecorder()) : null;
         }
 
         @ToString public Target getTarget() {
             return recipient;
         }
 
-        void add(final Information info) throws InterruptedException {
-            queueLock.lock();
+        /**
+         * Returns the tenant that the next run of the mailbox counts against under fair
+         * scheduling: the session of the next message if scheduling by session, otherwise the
+         * tenant of the target.
+         *
+         * @return the tenant, or {@code null} for the shared tenant.
+         */
+        @Nullable Object getTenant() {
+            if (bySession) {
+                final @Nullable Information next = peek();
+                if (next instanceof SessionInformation)
+                    return ((SessionInformation)next).getSession();
+            }
+            return recipient.getTenant();
+        }
+
+        /**
+         * Returns the deadline that the next run of the mailbox is scheduled by under deadline
+         * scheduling: the earliest deadline of its regular messages, or {@link Long#MIN_VALUE} if
+         * an urgent message is waiting.
+         *
+         * @return the deadline.
+         */
+        long getDeadline() {
+            if (!prioQueue.isEmpty()) return Long.MIN_VALUE;
+            final @Nullable Information next = mainQueue.peek();
+            return next == null ? Long.MAX_VALUE : deadlineOf(next);
+        }
+
+        /**
+         * Adds the specified information to the mailbox unless it holds the specified number of
+         * messages already, and schedules another run of the mailbox if the target allows one.
+         *
+         * @param info     the information to add.
+         * @param capacity the capacity of the mailbox (0 for unbounded).
+         * @return the outcome of the attempt.
+         */
+        Admission offer(final Information info, final int capacity) {
+            long current, next;
+            do {
+                current = state.get();
+                if (current == RETIRED) {
+                    queueMap.remove(recipient, this);
+                    return Admission.RETIRED;
+                }
+                if (capacity > 0 && pendingOf(current) >= capacity) return Admission.FULL;
+                next = current + PENDING;
+                if (activeOf(current) < concurrency) next += ACTIVE;
+            } while (!state.compareAndSet(current, next));
+            if (info instanceof Conflatable) register((Conflatable)info);
+            (isUrgent(info) ? prioQueue : mainQueue).add(info);
+            if (activeOf(next) != activeOf(current) && !runInline(info)) schedule(this);
+            return Admission.ADMITTED;
+        }
+
+        /**
+         * Delivers the message that has just made this mailbox busy on the calling thread, if
+         * inline delivery is enabled, the target is a recipient taking one message at a time and
+         * the calling thread has not yet reached the inline nesting depth.
+         *
+         * @param info the message.
+         * @return {@code true} if the mailbox was run inline, {@code false} if it has to be
+         * scheduled.
+         */
+        private boolean runInline(final Information info) {
+            final int maxLevel = inlineDepth;
+            if (maxLevel <= 0 || exclusion != null ||
+                !(info instanceof Message && recipient instanceof Recipient)) return false;
+            final int[] level = INLINE_LEVEL.get();
+            if (level[0] >= maxLevel) return false;
+            ++level[0];
             try {
-                (info instanceof Message && ((Message)info).isUrgent() ? prioQueue : mainQueue).add(
-                        info);
+                run();
             } finally {
-                queueLock.unlock();
+                --level[0];
+            }
+            return true;
+        }
+
+        /**
+         * Registers the specified information as the latest of its conflation key, superseding its
+         * predecessor.  Called after reserving the slot and before adding the information to its
+         * lane, so the predecessor is known to be skipped.
+         *
+         * @param info the information to register.
+         */
+        private void register(final Conflatable info) {
+            Map<Object, Conflatable> latest = this.latest;
+            if (latest == null) synchronized (this) {
+                if ((latest = this.latest) == null) this.latest = latest = new ConcurrentHashMap<>();
+            }
+            final @Nullable Conflatable previous = latest.put(info.getConflationKey(), info);
+            if (previous != null && previous != info) supersede(previous);
+        }
+
+        /**
+         * Claims the specified information taken from a lane for delivery.
+         *
+         * @param info the information.
+         * @return {@code true} if the information is to be delivered, {@code false} if it was
+         * superseded in the meantime.
+         */
+        boolean claim(final Information info) {
+            if (!(info instanceof Conflatable)) return true;
+            final @Nullable Map<Object, Conflatable> latest = this.latest;
+            return latest != null && latest.remove(((Conflatable)info).getConflationKey(), info);
+        }
+
+        /**
+         * Replaces the oldest regular message in the mailbox with the specified information.  The
+         * victim's slot passes to the information, so the state word remains unchanged; since a
+         * waiting message holds a slot, the mailbox cannot retire while there is a victim.
+         *
+         * @param info the information to add.
+         * @return the dropped message, or {@code null} if no regular message was waiting.
+         */
+        @Nullable Information replaceOldest(final Information info) {
+            final @Nullable Information victim = mainQueue.poll();
+            if (victim != null) {
+                if (info instanceof Conflatable) register((Conflatable)info);
+                mainQueue.add(info);
             }
+            return victim;
         }
 
-        boolean isEmpty() {
-            return size() == 0;
+        /**
+         * Delivers the next message to the target and reschedules the run if more messages are
+         * waiting.  Must only be called by the message processor that took the mailbox from the
+         * ready queue.
+         */
+        @Override public void run() {
+            deliverNext();
+            if (release()) schedule(this);
         }
 
-        @Nullable Information poll() {
-            queueLock.lock();
+        /**
+         * Delivers messages to the target until the run ends.  Used by the virtual
+         * thread that the mailbox was scheduled on.
+         */
+        void drain() {
+            final int active = processorCount.incrementAndGet();
+            if (active > maxUsed.get()) maxUsed.accumulateAndGet(active, Integer::max);
             try {
-                @Nullable Information result = prioQueue.poll();
-                if (result == null) result = mainQueue.poll();
-                return result;
+                do {
+                    deliverNext();
+                } while (release());
             } finally {
-                queueLock.unlock();
+                processorCount.decrementAndGet();
             }
         }
 
-        int size() {
-            queueLock.lock();
+        /**
+         * Delivers the next message to the target.  On a target with a concurrency level above 1,
+         * a command waits for the deliveries in progress and holds off the following ones, since
+         * commands (like adding a route) change the state of the target.
+         */
+        void deliverNext() {
+            if (exclusion == null) {
+                final Information message = take();
+                final @Nullable Object batch = batchKeyOf(message);
+                if (batch == null) deliver(message);
+                else deliverBatch((Message)message, batch);
+                return;
+            }
+            final Information message;
+            final Lock lock;
+            synchronized (exclusion) {
+                message = take();
+                lock = message instanceof Command ? exclusion.writeLock() : exclusion.readLock();
+                lock.lock();
+            }
             try {
-                return prioQueue.size() + mainQueue.size();
+                deliver(message);
             } finally {
-                queueLock.unlock();
+                lock.unlock();
             }
         }
 
-        Information peek() {
-            queueLock.lock();
+        /**
+         * Delivers the specified message to the target.
+         *
+         * @param message the message.
+         */
+        private void deliver(final Information message) {
+            if (!claim(message) || expired(message)) return;
+            final boolean timed = recorder != null || controller != null;
+            final long start = timed || watchdog != null ? System.nanoTime() : 0;
+            final Worker worker = currentWorker();
+            if (worker.depth++ == 0 && watchdog != null) worker.begin(recipient, message, start);
             try {
-                @Nullable Information result = prioQueue.peek();
-                if (result == null) result = mainQueue.peek();
-                return result;
+                message.onDeliver();
+                if (recipient instanceof Recipient && message instanceof Message)
+                    ((Recipient)recipient).onMessage((Message)message);
+                else if (recipient instanceof Observer) {
+                    Observer observer = (Observer)recipient;
+                    if (observer.wants(message) && observer.notify(message))
+                        unsubscribe(observer);
+                }
+            } catch (Exception e) {
+                error(e);
             } finally {
-                queueLock.unlock();
+                if (--worker.depth == 0 && watchdog != null) worker.end();
             }
+            account(message, start, timed ? System.nanoTime() : 0);
         }
-    }
 
-    private class ShutMeDown implements Runnable {
+        /**
+         * Returns the batch key of the specified information if the target takes it in batches.
+         *
+         * @param info the information.
+         * @return the batch key, or {@code null} if the information is delivered on its own.
+         */
+        private @Nullable Object batchKeyOf(final Information info) {
+            return recipient instanceof Recipient && info instanceof Message
+                   ? ((Recipient)recipient).getBatchKey((Message)info)
+                   : null;
+        }
 
-        @Override public void run() {
-            while (preventShutdown.get() != 0) {
-                debug("Cannot terminate yet: %d locks.", preventShutdown.get());
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
+        /**
+         * Delivers the specified message together with the regular messages following it in the
+         * mailbox that belong to the same batch, up to the batch limit of the recipient.  The
+         * messages taken along give up their slots after the delivery, so the run is released for
+         * the first message only.  A message taken that turns out not to belong to the batch (it
+         * slipped in through the overflow policy) is delivered on its own afterwards.
+         *
+         * @param first the first message.
+         * @param key   its batch key.
+         */
+        private void deliverBatch(final Message first, final Object key) {
+            final Recipient target = (Recipient)recipient;
+            final int limit = target.getBatchLimit();
+            final List<Message> batch = new ArrayList<>(Math.min(limit, 16));
+            if (claim(first) && !expired(first)) batch.add(first);
+            @Nullable Information stray = null;
+            int taken = 0;
+            while (taken + 1 < limit && prioQueue.isEmpty()) {
+                final @Nullable Information next = mainQueue.peek();
+                if (next == null || !key.equals(batchKeyOf(next))) break;
+                final @Nullable Information polled = mainQueue.poll();
+                if (polled == null) break;
+                ++taken;
+                if (polled != next && !key.equals(batchKeyOf(polled))) {
+                    stray = polled;
                     break;
                 }
+                if (claim(polled) && !expired(polled)) batch.add((Message)polled);
+            }
+            if (!batch.isEmpty()) deliverAll(target, batch);
+            if (stray != null) deliver(stray);
+            if (taken > 0) {
+                state.addAndGet(-PENDING * taken);
+                for (int i = 0; i < taken; ++i) freeRoom();
+            }
+        }
+
+        /**
+         * Delivers the specified batch of messages to the target in one invocation.  The time
+         * spent is attributed evenly to the messages of the batch.
+         *
+         * @param target the target.
+         * @param batch  the messages.
+         */
+        private void deliverAll(final Recipient target, final List<Message> batch) {
+            final boolean timed = recorder != null || controller != null;
+            final long start = timed || watchdog != null ? System.nanoTime() : 0;
+            final Worker worker = currentWorker();
+            if (worker.depth++ == 0 && watchdog != null)
+                worker.begin(recipient, batch.get(0), start);
+            try {
+                for (final Message message : batch) message.onDeliver();
+                if (batch.size() == 1) target.onMessage(batch.get(0));
+                else target.onMessages(Collections.unmodifiableList(batch));
+            } catch (Exception e) {
+                error(e);
+            } finally {
+                if (--worker.depth == 0 && watchdog != null) worker.end();
+            }
+            final long share = timed ? (System.nanoTime() - start) / batch.size() : 0;
+            for (int i = 0; i < batch.size(); ++i) {
+                final long from = start + i * share;
+                account(batch.get(i), from, timed ? from + share : 0);
             }
-            running = false;
-            while (!queueQueue.isEmpty()) Thread.yield();
-            scheduler.interrupt();
-            processors.forEach(Thread::interrupt);
+        }
+
+        /**
+         * Accounts for the delivery of the specified information.
+         *
+         * @param message  the information.
+         * @param start    when its delivery started (if timed).
+         * @param finished when its delivery finished (0 if not timed).
+         */
+        private void account(final Information message, final long start, final long finished) {
+            delivered.increment();
+            if (journal != null && message instanceof Deferred && !(message instanceof Request))
+                journal.complete(message.getId());
+            if (finished == 0) return;
+            if (recorder != null) record(recorder, message, start, finished);
+            if (controller != null) {
+                final long enqueued = message.getEnqueuedAt();
+                if (enqueued != 0) {
+                    waitNanos.add(start - enqueued);
+                    waitCount.increment();
+                }
+                busyNanos.add(finished - start);
+            }
+        }
+
+        /**
+         * Checks if the specified message is a request whose deadline has passed, and fails it if
+         * so instead of delivering it.
+         *
+         * @param message the message.
+         * @return {@code true} if the request was failed.
+         */
+        private boolean expired(final Information message) {
+            if (!(message instanceof Request)) return false;
+            final Request request = (Request)message;
+            final long deadline = request.getDeadline();
+            if (deadline == 0) return false;
+            final long overdue = System.nanoTime() - deadline;
+            if (overdue <= 0) return false;
+            expired.increment();
+            request.fail(new DeadlineExceededException(request, overdue));
+            return true;
+        }
+
+        /**
+         * Releases the run after a delivery.
+         *
+         * @return {@code true} if a message is still waiting for a run and the run has to be
+         * rescheduled, {@code false} if the run ended.
+         */
+        boolean release() {
+            long current, next;
+            boolean keep;
+            do {
+                current = state.get();
+                next = current - PENDING;
+                keep = pendingOf(next) >= activeOf(next);
+                if (!keep) next -= ACTIVE;
+            } while (!state.compareAndSet(current, next));
+            freeRoom();
+            if (keep) return true;
+            if (state.compareAndSet(0, RETIRED)) queueMap.remove(recipient, this);
+            return false;
+        }
+
+        private Information take() {
+            @Nullable Information result;
+            // The slot was reserved before the message was added to its lane, so it must show up.
+            while ((result = poll()) == null) Thread.yield();
+            return result;
+        }
+
+        private @Nullable Information poll() {
+            @Nullable Information result = prioQueue.poll();
+            if (result == null) result = mainQueue.poll();
+            return result;
+        }
+
+        int size() {
+            final long current = state.get();
+            return current == RETIRED ? 0 : pendingOf(current);
+        }
+
+        @Nullable Information peek() {
+            @Nullable Information result = prioQueue.peek();
+            if (result == null) result = mainQueue.peek();
+            return result;
         }
     }
 
-    @Internal
-    private class AddSubscriberCommand extends BasicCommand {
+    /**
+     * The settings a queue is created with, taken from the configuration unless changed.
+     */
+    static class Options {
 
-        private final Observer observer;
+        String executionMode = PROP_EXECUTION_MODE.value();
+        int parallelism = PROP_PARALLELISM.value();
+        int mailboxCapacity = PROP_MAILBOX_CAPACITY.value();
+        int queueCapacity = PROP_QUEUE_CAPACITY.value();
+        String overflowPolicy = PROP_OVERFLOW_POLICY.value();
+        Duration overflowTimeout = PROP_OVERFLOW_TIMEOUT.value();
+        String scheduling = PROP_SCHEDULING.value();
+        Duration shutdownTimeout = PROP_SHUTDOWN_TIMEOUT.value();
+        boolean watchdog = PROP_WATCHDOG.value();
+        @Nullable Path journal = journalDirectory();
 
-        public AddSubscriberCommand(final Observer observer) {
-            super(CentralMessageQueue.this, CentralMessageQueue.this);
-            this.observer = observer;
+        /**
+         * Sets the execution mode ({@code Threads}, {@code ForkJoin} or {@code Virtual}) and the
+         * parallelism of the fork/join pool (0 for the number of available processors).
+         */
+        Options execution(final String executionMode, final int parallelism) {
+            this.executionMode = executionMode;
+            this.parallelism = parallelism;
+            return this;
         }
 
-        @Override public void execute() {
-            obslock.lock();
-            observers.add(observer);
-            obslock.unlock();
-            succeed();
+        /**
+         * Sets the maximum number of regular messages per target and in total (0 for unbounded),
+         * the overflow policy ({@code Block}, {@code Fail} or {@code DropOldest}) and how long a
+         * producer waits for room under the {@code Block} policy.
+         */
+        Options capacity(final int mailboxCapacity, final int queueCapacity,
+                final String overflowPolicy, final Duration overflowTimeout) {
+            this.mailboxCapacity = mailboxCapacity;
+            this.queueCapacity = queueCapacity;
+            this.overflowPolicy = overflowPolicy;
+            this.overflowTimeout = overflowTimeout;
+            return this;
         }
 
-        @Override public boolean isUrgent() {
-            return true;
+        /**
+         * Sets the scheduling policy ({@code FIFO}, {@code FairByTenant}, {@code FairBySession}
+         * or {@code EDF}).
+         */
+        Options scheduling(final String scheduling) {
+            this.scheduling = scheduling;
+            return this;
+        }
+
+        /**
+         * Sets how long the queue waits on shutdown for the last shutdown lock to be released.
+         */
+        Options shutdown(final Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+            return this;
+        }
+
+        /**
+         * Sets whether a watchdog looks for stalls.
+         */
+        Options watchdog(final boolean watchdog) {
+            this.watchdog = watchdog;
+            return this;
+        }
+
+        /**
+         * Sets the journal directory ({@code null} for no journal).
+         */
+        Options journal(final @Nullable Path journal) {
+            this.journal = journal;
+            return this;
         }
 
     }
 
-    @Internal
-    private class RemoveSubscriberCommand extends BasicCommand {
+    private static class Statistics implements QueueStatistics {
 
-        private final Observer observer;
+        private final long elapsed;
+        private final long injected;
+        private final long delivered;
+        private final long conflated;
+        private final long expired;
+        private final Map<Target, DeliveryStatistics> byTarget;
+        private final Map<Class<?>, DeliveryStatistics> byType;
 
-        public RemoveSubscriberCommand(final Observer observer) {
-            super(CentralMessageQueue.this, CentralMessageQueue.this);
-            this.observer = observer;
+        Statistics(final long elapsed, final long injected, final long delivered,
+                final long conflated, final long expired,
+                final Map<Target, DeliveryStatistics> byTarget,
+                final Map<Class<?>, DeliveryStatistics> byType) {
+            this.elapsed = elapsed;
+            this.injected = injected;
+            this.delivered = delivered;
+            this.conflated = conflated;
+            this.expired = expired;
+            this.byTarget = Collections.unmodifiableMap(byTarget);
+            this.byType = Collections.unmodifiableMap(byType);
         }
 
-        @Override public void execute() {
-            obslock.lock();
-            observers.remove(observer);
-            obslock.unlock();
-            succeed();
+        @Override @ToString public long getElapsed() {
+            return elapsed;
         }
 
-        @Override public boolean isUrgent() {
-            return true;
+        @Override @ToString public long getInjected() {
+            return injected;
+        }
+
+        @Override @ToString public long getDelivered() {
+            return delivered;
+        }
+
+        @Override @ToString public long getConflated() {
+            return conflated;
+        }
+
+        @Override @ToString public long getExpired() {
+            return expired;
+        }
+
+        @Override @ToString public double getThroughput() {
+            return elapsed <= 0 ? 0 : delivered * 1e9 / elapsed;
+        }
+
+        @Override public Map<Target, DeliveryStatistics> getTargetStatistics() {
+            return byTarget;
+        }
+
+        @Override public Map<Class<?>, DeliveryStatistics> getTypeStatistics() {
+            return byType;
         }
 
     }
 
-    private class Scheduler extends Thread {
+    /**
+     * Outcome of an attempt to add a message to a mailbox.
+     */
+    private enum Admission {
+        ADMITTED, FULL, RETIRED
+    }
+
+    private class ShutMeDown implements Runnable {
 
         @Override public void run() {
-            while (running) {
+            shutDown();
+        }
+    }
+
+    /**
+     * What a thread is delivering, as far as the watchdog needs to know.  The nesting depth is
+     * only touched by the thread itself; the rest is published for the watchdog.
+     */
+    private static class Worker {
+
+        final Thread thread;
+        int depth;
+        volatile @Nullable Information message;
+        volatile long since;
+        volatile @Nullable Target target;
+        long reported;
+
+        Worker(final Thread thread) {
+            this.thread = thread;
+        }
+
+        void begin(final Target target, final Information message, final long since) {
+            this.since = since;
+            this.message = message;
+            this.target = target;
+        }
+
+        void end() {
+            target = null;
+            message = null;
+        }
+
+    }
+
+    private class Watchdog extends Thread {
+
+        private final long interval;
+        private final long threshold;
+
+        Watchdog() {
+            super("QueueWatchdog");
+            final Duration interval = PROP_WATCHDOG_INTERVAL.value();
+            final Duration threshold = PROP_STALL_THRESHOLD.value();
+            this.interval = interval.getUnit().toNanos(interval.getAmount());
+            this.threshold = threshold.getUnit().toNanos(threshold.getAmount());
+            setDaemon(true);
+        }
+
+        @Override public void run() {
+            try {
+                while (running) {
+                    LockSupport.parkNanos(this, interval);
+                    if (Thread.interrupted()) break;
+                    for (final StallAlert alert : inspect(threshold))
+                        warn(TEXT_STALL_ALERT, alert);
+                }
+            } finally {
+                BasicRequest.trackWaiters(false);
+            }
+        }
+    }
+
+    /**
+     * Injects the entries that the journal recovered from the previous run, and lets the journal
+     * discard the old segments once all of them are journaled anew or given up.
+     */
+    private class JournalReplay extends Thread {
+
+        private final RequestJournal journal;
+
+        JournalReplay(final RequestJournal journal) {
+            super("JournalReplay");
+            this.journal = journal;
+            setDaemon(true);
+        }
+
+        @Override public void run() {
+            for (final Map.Entry<UUID, Map<String, Object>> entry : journal.getRecovered()
+                                                                           .entrySet()) {
+                if (!running) return;
                 try {
-                    final Deferred deferred = deferredQueue.take();
-                    if (deferred == null) continue;
-                    if (isDue(deferred)) {
-                        inject(deferred);
-                    } else {
-                        deferredQueue.put(deferred);
-                    }
-                    Thread.sleep(deferred.getExecutionTime() - System.currentTimeMillis());
-                } catch (InterruptedException e) {
-                    // simply continue
+                    inject(restore(entry.getValue()));
+                } catch (Exception e) {
+                    warn(e, TEXT_REPLAY_FAILED, entry.getKey());
                 }
             }
+            journal.discardRecovered();
+        }
+    }
+
+    private class PoolControl extends Thread {
+
+        private final PoolController controller;
+
+        PoolControl(final PoolController controller) {
+            super("PoolControl");
+            this.controller = controller;
+            setDaemon(true);
+        }
+
+        @Override public void run() {
+            while (running) {
+                LockSupport.parkNanos(this, controlInterval);
+                if (Thread.interrupted()) break;
+                control(controller);
+            }
+        }
+    }
+
+    private class Scheduler extends Thread {
+
+        Scheduler() {
+            super("DeferredScheduler");
+        }
+
+        @Override public void run() {
+            while (running) {
+                final long wait = deferredWheel.advance(CentralMessageQueue.this::releaseDeferred);
+                if (wait == Long.MAX_VALUE) LockSupport.park(this);
+                else if (wait > 0) LockSupport.parkNanos(this, wait);
+            }
         }
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * ​​A queue that serves its elements earliest deadline first, and elements with the same deadline
+ * in FIFO order.  The deadline of an element is taken when it is added.
+ *
+ * @param <E> the element type.
+ */
+class DeadlineQueue<E> extends AbstractQueue<E> {
+
+    private final ToLongFunction<? super E> deadline;
+    private final PriorityQueue<Entry<E>> entries = new PriorityQueue<>();
+    private long sequence;
+
+    /**
+     * Initializes a new instance of DeadlineQueue with the specified deadline function.
+     *
+     * @param deadline the function determining the deadline of an element ({@link Long#MAX_VALUE}
+     *                 for none).
+     */
+    DeadlineQueue(final ToLongFunction<? super E> deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override public synchronized boolean offer(final E element) {
+        return entries.add(new Entry<>(deadline.applyAsLong(element), sequence++, element));
+    }
+
+    @Override public synchronized @Nullable E poll() {
+        final @Nullable Entry<E> entry = entries.poll();
+        return entry == null ? null : entry.element;
+    }
+
+    @Override public synchronized @Nullable E peek() {
+        final @Nullable Entry<E> entry = entries.peek();
+        return entry == null ? null : entry.element;
+    }
+
+    @Override public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements, in no particular order.
+     *
+     * @return an iterator.
+     */
+    @Override public synchronized Iterator<E> iterator() {
+        final List<E> snapshot = new ArrayList<>(entries.size());
+        for (final Entry<E> entry : entries) snapshot.add(entry.element);
+        return snapshot.iterator();
+    }
+
+    private static class Entry<E> implements Comparable<Entry<E>> {
+
+        final long deadline;
+        final long sequence;
+        final E element;
+
+        Entry(final long deadline, final long sequence, final E element) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.element = element;
+        }
+
+        @Override public int compareTo(final Entry<E> other) {
+            final int result = Long.compare(deadline, other.deadline);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coractrl.model.DeliveryStatistics;
+
+/**
+ * ​​Records the queue wait and handler time of the deliveries to a target or of a type of
+ * information in a pair of latency histograms.
+ */
+class DeliveryRecorder implements DeliveryStatistics {
+
+    private final LatencyHistogram queueWait;
+    private final LatencyHistogram handlerTime;
+
+    DeliveryRecorder() {
+        this(new LatencyHistogram(), new LatencyHistogram());
+    }
+
+    private DeliveryRecorder(final LatencyHistogram queueWait, final LatencyHistogram handlerTime) {
+        this.queueWait = queueWait;
+        this.handlerTime = handlerTime;
+    }
+
+    /**
+     * Records a delivery.
+     *
+     * @param enqueued  when the information was enqueued (0 if unknown).
+     * @param delivered when the delivery started.
+     * @param finished  when the handler returned.
+     */
+    void record(final long enqueued, final long delivered, final long finished) {
+        if (enqueued != 0) queueWait.record(delivered - enqueued);
+        handlerTime.record(finished - delivered);
+    }
+
+    void reset() {
+        queueWait.reset();
+        handlerTime.reset();
+    }
+
+    DeliveryRecorder snapshot() {
+        return new DeliveryRecorder(queueWait.snapshot(), handlerTime.snapshot());
+    }
+
+    @Override public long getDeliveries() {
+        return handlerTime.getCount();
+    }
+
+    @Override public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    @Override public LatencyHistogram getHandlerTime() {
+        return handlerTime;
+    }
+
+    @Override public String toString() {
+        return String.format("%d deliveries; wait: %s; handler: %s", getDeliveries(), queueWait,
+                handlerTime);
+    }
+
+}
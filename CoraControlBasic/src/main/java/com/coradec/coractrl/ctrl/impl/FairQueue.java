@@ -0,0 +1,126 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * ​​A queue that serves its elements by group, on a deficit round-robin schedule.
+ * <p>
+ * Every group with waiting elements takes its turn in a round; on its turn, a group is served as
+ * many elements as its weight, in FIFO order, before the next group gets its turn.  Hence a group
+ * flooding the queue delays the elements of a light group by at most one round, and under load the
+ * groups share the consumers in proportion to their weights.  The group of an element is taken
+ * when it is added, the weight of a group at the start of each of its turns.
+ *
+ * @param <E> the element type.
+ */
+class FairQueue<E> extends AbstractQueue<E> {
+
+    private static final Object SHARED = new Object();
+
+    private final Function<? super E, ?> grouping;
+    private final ToIntFunction<Object> weighing;
+    private final Map<Object, Group> groups = new HashMap<>();
+    private final Deque<Group> round = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * Initializes a new instance of FairQueue with the specified grouping and weighing functions.
+     *
+     * @param grouping the function determining the group of an element ({@code null} for the
+     *                 shared group).
+     * @param weighing the function determining the weight of a group.
+     */
+    FairQueue(final Function<? super E, ?> grouping, final ToIntFunction<Object> weighing) {
+        this.grouping = grouping;
+        this.weighing = weighing;
+    }
+
+    @Override public synchronized boolean offer(final E element) {
+        final @Nullable Object key = grouping.apply(element);
+        final Group group = groups.computeIfAbsent(key == null ? SHARED : key, Group::new);
+        if (group.elements.isEmpty()) round.addLast(group);
+        group.elements.add(element);
+        ++size;
+        return true;
+    }
+
+    @Override public synchronized @Nullable E poll() {
+        final @Nullable Group group = round.peekFirst();
+        if (group == null) return null;
+        if (group.deficit == 0) group.deficit =
+                Math.max(1, weighing.applyAsInt(group.key == SHARED ? null : group.key));
+        final E result = group.elements.poll();
+        --group.deficit;
+        --size;
+        if (group.elements.isEmpty()) {
+            round.pollFirst();
+            group.deficit = 0;
+            groups.remove(group.key);
+        } else if (group.deficit == 0) round.addLast(round.pollFirst());
+        return result;
+    }
+
+    @Override public synchronized @Nullable E peek() {
+        final @Nullable Group group = round.peekFirst();
+        return group == null ? null : group.elements.peek();
+    }
+
+    @Override public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements, in no particular order.
+     *
+     * @return an iterator.
+     */
+    @Override public synchronized Iterator<E> iterator() {
+        final List<E> snapshot = new ArrayList<>(size);
+        for (final Group group : round) snapshot.addAll(group.elements);
+        return snapshot.iterator();
+    }
+
+    private class Group {
+
+        final Object key;
+        final Queue<E> elements = new ArrayDeque<>();
+        int deficit;
+
+        Group(final Object key) {
+            this.key = key;
+        }
+
+    }
+
+}
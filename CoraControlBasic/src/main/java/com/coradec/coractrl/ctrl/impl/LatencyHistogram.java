@@ -0,0 +1,154 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coractrl.model.LatencyDistribution;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ​​A fixed-memory, log-bucketed histogram of latencies in nanoseconds.
+ * <p>
+ * Every power of two is split into four linear sub-buckets, so any recorded value is reported with
+ * an error of at most 25%, from single nanoseconds up to the full range of a long, in 252 buckets.
+ * Recording a value is lock-free and does not allocate; any number of threads may record
+ * concurrently.  A {@link #snapshot()} is a consistent-enough copy for reporting, not an atomic
+ * view.
+ */
+public class LatencyHistogram implements LatencyDistribution {
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        buckets = new AtomicLongArray(BUCKETS);
+        total = new AtomicLong();
+        max = new AtomicLong();
+    }
+
+    private LatencyHistogram(final LatencyHistogram original) {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i) counts[i] = original.buckets.get(i);
+        buckets = new AtomicLongArray(counts);
+        total = new AtomicLong(original.total.get());
+        max = new AtomicLong(original.max.get());
+    }
+
+    /**
+     * Records the specified latency.  Negative latencies (from clock adjustments) count as 0.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(indexOf(value));
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) ;
+    }
+
+    /**
+     * Resets all counters to 0.  Values recorded concurrently may or may not survive.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i) buckets.set(i, 0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns a copy of the current state of the histogram.
+     *
+     * @return a snapshot.
+     */
+    public LatencyHistogram snapshot() {
+        return new LatencyHistogram(this);
+    }
+
+    @Override public long getCount() {
+        long result = 0;
+        for (int i = 0; i < BUCKETS; ++i) result += buckets.get(i);
+        return result;
+    }
+
+    @Override public long getTotal() {
+        return total.get();
+    }
+
+    @Override public long getMax() {
+        return max.get();
+    }
+
+    @Override public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double)getTotal() / count;
+    }
+
+    @Override public long getPercentile(final double percentile) {
+        final long count = getCount();
+        if (count == 0) return 0;
+        final long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBoundOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    @Override public String toString() {
+        return String.format("n=%d, mean=%.0fns, p50=%dns, p99=%dns, max=%dns", getCount(),
+                getMean(), getPercentile(50), getPercentile(99), getMax());
+    }
+
+    /**
+     * Returns the index of the bucket holding the specified non-negative value.
+     *
+     * @param value the value.
+     * @return the bucket index.
+     */
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) return (int)value;
+        final int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = msb - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift & SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Returns the highest value that falls into the bucket with the specified index.
+     *
+     * @param index the bucket index.
+     * @return the upper bound of the bucket.
+     */
+    static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) return index;
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lower = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        final long upper = lower + (1L << shift) - 1;
+        return upper < lower ? Long.MAX_VALUE : upper;
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coracom.ctrl.Observer;
+import com.coradec.coracom.model.Information;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ​​A registry of observers indexed by the types of information they are interested in.
+ * <p>
+ * Each observer is filed under the interest types it declares (see {@link
+ * Observer#getInterests()}).  Resolving the observers for a type of information walks its class
+ * hierarchy over this index once and caches the result per concrete type, so dispatching an
+ * information only reaches the observers that can possibly want it.
+ * <p>
+ * Readers never lock: the index and its cache form an immutable snapshot that is replaced as a
+ * whole whenever an observer is added or removed.
+ */
+public class ObserverRegistry {
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+
+    /**
+     * Adds the specified observer to the registry.
+     *
+     * @param observer the observer to add.
+     */
+    public synchronized void add(final Observer observer) {
+        final List<Observer> observers = new ArrayList<>(snapshot.observers);
+        observers.add(observer);
+        snapshot = new Snapshot(observers);
+    }
+
+    /**
+     * Removes the specified observer from the registry.
+     *
+     * @param observer the observer to remove.
+     * @return {@code true} if the observer was registered.
+     */
+    public synchronized boolean remove(final Observer observer) {
+        final List<Observer> observers = new ArrayList<>(snapshot.observers);
+        if (!observers.remove(observer)) return false;
+        snapshot = new Snapshot(observers);
+        return true;
+    }
+
+    /**
+     * Returns the observers that are interested in information of the specified type, in the order
+     * of their subscription.
+     *
+     * @param type the type of information.
+     * @return the interested observers.
+     */
+    public List<Observer> resolve(final Class<? extends Information> type) {
+        return snapshot.resolve(type);
+    }
+
+    /**
+     * Returns the number of registered observers.
+     *
+     * @return the number of observers.
+     */
+    public int size() {
+        return snapshot.observers.size();
+    }
+
+    private static class Snapshot {
+
+        final List<Observer> observers;
+        final Map<Class<?>, List<Observer>> index = new HashMap<>();
+        final ConcurrentMap<Class<?>, List<Observer>> resolved = new ConcurrentHashMap<>();
+
+        Snapshot(final List<Observer> observers) {
+            this.observers = observers;
+            for (final Observer observer : observers) {
+                for (final Class<?> interest : observer.getInterests()) {
+                    index.computeIfAbsent(interest, i -> new ArrayList<>()).add(observer);
+                }
+            }
+        }
+
+        List<Observer> resolve(final Class<?> type) {
+            final List<Observer> result = resolved.get(type);
+            return result != null ? result : resolved.computeIfAbsent(type, this::collect);
+        }
+
+        private List<Observer> collect(final Class<?> type) {
+            final Set<Observer> candidates = new LinkedHashSet<>();
+            final Set<Class<?>> seen = new HashSet<>();
+            collect(type, seen);
+            for (final Class<?> klass : seen) {
+                candidates.addAll(index.getOrDefault(klass, Collections.emptyList()));
+            }
+            if (candidates.isEmpty()) return Collections.emptyList();
+            final List<Observer> result = new ArrayList<>(observers);
+            result.retainAll(candidates);
+            return Collections.unmodifiableList(result);
+        }
+
+        private void collect(final Class<?> type, final Set<Class<?>> seen) {
+            if (type == null || !seen.add(type)) return;
+            collect(type.getSuperclass(), seen);
+            for (final Class<?> iface : type.getInterfaces()) collect(iface, seen);
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+/**
+ * ​​Decides the number of message processors from what the queue looked like during the last
+ * control interval, on an AIMD (additive increase, multiplicative decrease) policy.
+ * <p>
+ * While mailboxes wait for a processor longer than the target wait, the pool grows by the number
+ * of mailboxes waiting, so a burst of work — or a bunch of processors stuck in long-running
+ * handlers — is met within one interval.  While the processors are mostly idle and nothing waits
+ * too long, the pool shrinks by a quarter per interval.  Otherwise it holds steady.  The result
+ * always stays within the water marks.
+ * <p>
+ * The controller is a pure function of its inputs, so a recorded load can be replayed against it.
+ */
+public class PoolController {
+
+    private final int lowWaterMark;
+    private final int highWaterMark;
+    private final long targetWait;
+    private final double lowUtilization;
+
+    /**
+     * Initializes a new instance of PoolController with the specified water marks, target wait and
+     * utilization threshold.
+     *
+     * @param lowWaterMark   the minimum number of processors.
+     * @param highWaterMark  the maximum number of processors.
+     * @param targetWait     the mean time in nanoseconds a message may wait for a processor.
+     * @param lowUtilization the utilization (0..1) below which the pool may shrink.
+     */
+    public PoolController(final int lowWaterMark, final int highWaterMark, final long targetWait,
+            final double lowUtilization) {
+        this.lowWaterMark = lowWaterMark;
+        this.highWaterMark = highWaterMark;
+        this.targetWait = targetWait;
+        this.lowUtilization = lowUtilization;
+    }
+
+    /**
+     * Returns the number of processors to run during the next control interval.
+     *
+     * @param current     the current number of processors.
+     * @param meanWait    the mean time in nanoseconds messages waited for a processor during the
+     *                    last interval.
+     * @param utilization the share (0..1) of the processors' time spent in handlers during the last
+     *                    interval.
+     * @param backlog     the number of mailboxes currently waiting for a processor.
+     * @return the new number of processors.
+     */
+    public int adjust(final int current, final long meanWait, final double utilization,
+            final int backlog) {
+        int result = current;
+        if (meanWait > targetWait && backlog > 0) result = current + backlog;
+        else if (meanWait <= targetWait && utilization < lowUtilization)
+            result = current - Math.max(1, current / 4);
+        return Math.max(lowWaterMark, Math.min(highWaterMark, result));
+    }
+
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.nio.channels.FileChannel.MapMode.*;
+import static java.nio.file.StandardOpenOption.*;
+
+import com.coradec.coracore.annotation.Nullable;
+import com.coradec.coractrl.trouble.JournalException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * ​​A write-ahead journal of information in the form of property maps, kept in memory-mapped
+ * segment files.
+ * <p>
+ * Every entry is appended as a record under the ID of its information, and a second record marks
+ * it complete.  Since the mark may land in a later segment than the entry, segment files are
+ * deleted from the oldest on: a segment goes once the journal has moved on to the next one and all
+ * entries of the segment and of every older segment are complete.  On opening, the journal reads the segments left behind by its predecessor
+ * and offers the entries that never completed for {@linkplain #getRecovered() recovery}; the old
+ * segments are kept until the recovered entries are {@linkplain #discardRecovered() safe}.
+ * <p>
+ * Records are checksummed, so a record torn by a crash ends the segment on recovery.  Appending
+ * only copies the record into the mapped segment; a flusher thread forces the written segments to
+ * disk, all records appended since its last turn at once (group commit), and producers that need
+ * their entries on disk {@linkplain #commit(long) wait} for the turn that covers them.
+ */
+class RequestJournal implements AutoCloseable {
+
+    private static final byte APPENDED = 1;
+    private static final byte COMPLETED = 2;
+    private static final int HEADER = 2 * Integer.BYTES + 1 + 2 * Long.BYTES;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushInterval;
+    private final Map<UUID, Map<String, Object>> recovered;
+    private final List<Path> leftovers;
+    private final Map<UUID, Segment> live = new HashMap<>();
+    private final Set<Segment> dirty = new LinkedHashSet<>();
+    /** The segments the journal has moved on from, oldest first. */
+    private final Deque<Segment> sealed = new ArrayDeque<>();
+    private final Object flushed = new Object();
+    private final Thread flusher;
+    private Segment current;
+    private long written;
+    private long requested;
+    private long forced;
+    private volatile boolean open = true;
+
+    /**
+     * Initializes a new instance of RequestJournal in the specified directory with the specified
+     * segment size, recovering the entries left incomplete by a predecessor.
+     *
+     * @param directory     the journal directory.
+     * @param segmentSize   the size of a segment file.
+     * @param flushInterval the longest time a written record waits for the flusher (in ns).
+     * @throws JournalException if the journal could not be opened.
+     */
+    RequestJournal(final Path directory, final int segmentSize, final long flushInterval)
+            throws JournalException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushInterval = flushInterval;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new JournalException(directory, e);
+        }
+        leftovers = segments();
+        recovered = new LinkedHashMap<>();
+        for (final Path segment : leftovers) recover(segment);
+        current = new Segment(
+                leftovers.isEmpty() ? 0 : numberOf(leftovers.get(leftovers.size() - 1)) + 1,
+                segmentSize);
+        flusher = new Flusher();
+        flusher.start();
+    }
+
+    /**
+     * Returns the entries that the predecessor of the journal left incomplete, in the order they
+     * were appended.
+     *
+     * @return the recovered entries by ID.
+     */
+    Map<UUID, Map<String, Object>> getRecovered() {
+        return Collections.unmodifiableMap(recovered);
+    }
+
+    /**
+     * Deletes the segments left behind by the predecessor of the journal, once the recovered
+     * entries have been journaled anew or given up.
+     */
+    synchronized void discardRecovered() {
+        for (final Path segment : leftovers) delete(segment);
+        leftovers.clear();
+        recovered.clear();
+        retireDrained();
+    }
+
+    /**
+     * Appends the specified entry.
+     *
+     * @param id         the ID of the information.
+     * @param properties the properties of the information.
+     * @return the ticket to {@linkplain #commit(long) wait} for the entry to be on disk with.
+     * @throws JournalException if the entry could not be written.
+     */
+    long append(final UUID id, final Map<String, Object> properties) throws JournalException {
+        final byte[] record = record(APPENDED, id, encode(properties));
+        synchronized (this) {
+            final Segment segment = write(record);
+            ++segment.live;
+            live.put(id, segment);
+            return written;
+        }
+    }
+
+    /**
+     * Marks the entry with the specified ID complete, unless it is not in the journal.
+     *
+     * @param id the ID of the information.
+     * @throws JournalException if the mark could not be written.
+     */
+    void complete(final UUID id) throws JournalException {
+        final byte[] record = record(COMPLETED, id, new byte[0]);
+        synchronized (this) {
+            final @Nullable Segment segment = live.remove(id);
+            if (segment == null) return;
+            write(record);
+            if (--segment.live == 0) retireDrained();
+        }
+    }
+
+    /**
+     * Waits until everything up to the specified ticket is on disk.
+     *
+     * @param ticket the ticket from {@link #append(UUID, Map)}.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    void commit(final long ticket) throws InterruptedException {
+        synchronized (flushed) {
+            if (ticket > requested) {
+                requested = ticket;
+                flushed.notifyAll();
+            }
+            while (forced < ticket && open) flushed.wait();
+        }
+    }
+
+    /**
+     * Returns the number of entries that are not complete yet.
+     *
+     * @return the number of live entries.
+     */
+    synchronized int size() {
+        return live.size();
+    }
+
+    /**
+     * Forces what has been written to disk and closes the journal.  The segment files are deleted
+     * if no entry is left incomplete.
+     */
+    @Override public void close() {
+        synchronized (flushed) {
+            open = false;
+            flushed.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            flush(new ArrayList<>(dirty));
+            dirty.clear();
+            sealed.add(current);
+            retireDrained();
+            for (final Segment segment : sealed) segment.close();
+            sealed.clear();
+        }
+    }
+
+    private Segment write(final byte[] record) throws JournalException {
+        if (current.position + record.length > current.buffer.capacity()) {
+            final Segment full = current;
+            current = new Segment(full.number + 1, Math.max(segmentSize, record.length));
+            sealed.add(full);
+            retireDrained();
+        }
+        final ByteBuffer target = current.buffer.duplicate();
+        target.position(current.position);
+        target.put(record);
+        current.position += record.length;
+        written += record.length;
+        dirty.add(current);
+        return current;
+    }
+
+    /**
+     * Deletes the sealed segments from the oldest on as long as all their entries are complete,
+     * so that no completion mark goes before the entry it marks.  Nothing is deleted while the
+     * segments of the predecessor are still around.
+     */
+    private void retireDrained() {
+        if (!leftovers.isEmpty()) return;
+        while (!sealed.isEmpty() && sealed.peekFirst().live == 0) retire(sealed.pollFirst());
+    }
+
+    private void retire(final Segment segment) {
+        dirty.remove(segment);
+        segment.close();
+        delete(segment.path);
+    }
+
+    private void flush(final List<Segment> segments) {
+        for (final Segment segment : segments) segment.buffer.force();
+    }
+
+    private static byte[] record(final byte kind, final UUID id, final byte[] payload) {
+        final ByteBuffer record = ByteBuffer.allocate(HEADER + payload.length);
+        record.putInt(record.capacity() - Integer.BYTES);
+        record.putInt(0);
+        record.put(kind);
+        record.putLong(id.getMostSignificantBits());
+        record.putLong(id.getLeastSignificantBits());
+        record.put(payload);
+        record.putInt(Integer.BYTES, checksum(record.array(), 2 * Integer.BYTES,
+                record.capacity() - 2 * Integer.BYTES));
+        return record.array();
+    }
+
+    private static int checksum(final byte[] data, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int)crc.getValue();
+    }
+
+    private byte[] encode(final Map<String, Object> properties) throws JournalException {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(properties.size());
+            for (final Map.Entry<String, Object> property : properties.entrySet()) {
+                out.writeUTF(property.getKey());
+                final byte[] value =
+                        String.valueOf(property.getValue()).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(value.length);
+                out.write(value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new JournalException(directory, e);
+        }
+    }
+
+    private static Map<String, Object> decode(final byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            final Map<String, Object> result = new LinkedHashMap<>();
+            for (int i = in.readInt(); i > 0; --i) {
+                final String key = in.readUTF();
+                final byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                result.put(key, new String(value, StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Reads the specified segment left behind by the predecessor.
+     *
+     * @param path the segment file.
+     * @throws JournalException if the segment could not be read.
+     */
+    private void recover(final Path path) throws JournalException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            final MappedByteBuffer buffer = channel.map(READ_ONLY, 0, channel.size());
+            int position = 0;
+            while (position + HEADER <= buffer.capacity()) {
+                final int length = buffer.getInt(position);
+                if (length < HEADER - Integer.BYTES ||
+                    position + Integer.BYTES + length > buffer.capacity()) break;
+                final byte[] record = new byte[length + Integer.BYTES];
+                final ByteBuffer source = buffer.duplicate();
+                source.position(position);
+                source.get(record);
+                final ByteBuffer fields = ByteBuffer.wrap(record);
+                if (fields.getInt(Integer.BYTES) !=
+                    checksum(record, 2 * Integer.BYTES, record.length - 2 * Integer.BYTES)) break;
+                fields.position(2 * Integer.BYTES);
+                final byte kind = fields.get();
+                final UUID id = new UUID(fields.getLong(), fields.getLong());
+                if (kind == APPENDED) recovered.put(id, decode(
+                        Arrays.copyOfRange(record, HEADER, record.length)));
+                else if (kind == COMPLETED) recovered.remove(id);
+                position += record.length;
+            }
+        } catch (IOException e) {
+            throw new JournalException(path, e);
+        }
+    }
+
+    private List<Path> segments() throws JournalException {
+        final List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                PREFIX + "*" + SUFFIX)) {
+            for (final Path file : files) result.add(file);
+        } catch (IOException e) {
+            throw new JournalException(directory, e);
+        }
+        result.sort((a, b) -> Long.compare(numberOf(a), numberOf(b)));
+        return result;
+    }
+
+    private static long numberOf(final Path segment) {
+        final String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private void delete(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new JournalException(path, e);
+        }
+    }
+
+    /**
+     * A segment file, mapped into memory as a whole.
+     */
+    private class Segment {
+
+        final long number;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int position;
+        int live;
+
+        Segment(final long number, final int size) throws JournalException {
+            this.number = number;
+            path = directory.resolve(String.format("%s%016d%s", PREFIX, number, SUFFIX));
+            try {
+                channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+                buffer = channel.map(READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new JournalException(path, e);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new JournalException(path, e);
+            }
+        }
+
+    }
+
+    /**
+     * Forces the segments written since its last turn to disk whenever a producer waits for its
+     * entries, or after the flush interval at the latest.
+     */
+    private class Flusher extends Thread {
+
+        Flusher() {
+            super("JournalFlusher");
+            setDaemon(true);
+        }
+
+        @Override public void run() {
+            try {
+                while (open) {
+                    synchronized (flushed) {
+                        if (requested <= forced && open)
+                            TimeUnit.NANOSECONDS.timedWait(flushed, flushInterval);
+                    }
+                    final long target;
+                    final List<Segment> segments;
+                    synchronized (RequestJournal.this) {
+                        target = written;
+                        segments = new ArrayList<>(dirty);
+                        dirty.clear();
+                    }
+                    flush(segments);
+                    synchronized (flushed) {
+                        forced = target;
+                        flushed.notifyAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }
+    }
+
+}
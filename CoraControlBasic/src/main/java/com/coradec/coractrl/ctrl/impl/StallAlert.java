@@ -0,0 +1,156 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import com.coradec.coracom.model.Information;
+import com.coradec.coracom.model.Target;
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ​​An alert raised by the watchdog of the central message queue: a target whose next message
+ * has been waiting too long, a handler that has been running too long, or a cycle of targets whose
+ * handlers are all standing by for requests to the next one.
+ */
+class StallAlert {
+
+    /**
+     * The kinds of stall.
+     */
+    enum Kind {
+        /** The next message of a target has been waiting longer than the stall threshold. */
+        WAITING,
+        /** A handler has been running longer than the stall threshold. */
+        RUNNING,
+        /** The handlers of the targets are waiting for each other's requests. */
+        DEADLOCKED
+    }
+
+    private final Kind kind;
+    private final List<Target> targets;
+    private final @Nullable Information message;
+    private final long age;
+    private final int queued;
+    private final @Nullable String worker;
+    private final StackTraceElement[] stack;
+
+    private StallAlert(final Kind kind, final List<Target> targets,
+            final @Nullable Information message, final long age, final int queued,
+            final @Nullable Thread worker) {
+        this.kind = kind;
+        this.targets = Collections.unmodifiableList(targets);
+        this.message = message;
+        this.age = age;
+        this.queued = queued;
+        this.worker = worker == null ? null : worker.getName();
+        this.stack = worker == null ? new StackTraceElement[0] : worker.getStackTrace();
+    }
+
+    /**
+     * Creates an alert about the specified target whose next message has been waiting for the
+     * specified time.
+     *
+     * @param target  the target.
+     * @param message the waiting message.
+     * @param age     how long the message has been waiting (in ns).
+     * @param queued  how many messages the target has pending, including those in delivery.
+     * @param worker  the thread running a handler of the target, if any.
+     * @return an alert.
+     */
+    static StallAlert waiting(final Target target, final Information message, final long age,
+            final int queued, final @Nullable Thread worker) {
+        return new StallAlert(Kind.WAITING, Collections.singletonList(target), message, age, queued,
+                worker);
+    }
+
+    /**
+     * Creates an alert about the specified worker that has been running a handler of the specified
+     * target for the specified time.
+     *
+     * @param target  the target.
+     * @param message the message being handled.
+     * @param age     how long the handler has been running (in ns).
+     * @param worker  the thread running the handler.
+     * @return an alert.
+     */
+    static StallAlert running(final Target target, final @Nullable Information message,
+            final long age, final Thread worker) {
+        return new StallAlert(Kind.RUNNING, Collections.singletonList(target), message, age, 0,
+                worker);
+    }
+
+    /**
+     * Creates an alert about the specified cycle of targets, each standing by for a request to the
+     * next one, and the last one for a request to the first one.
+     *
+     * @param cycle  the targets.
+     * @param worker the thread running the handler of the first target.
+     * @return an alert.
+     */
+    static StallAlert deadlocked(final List<Target> cycle, final @Nullable Thread worker) {
+        return new StallAlert(Kind.DEADLOCKED, cycle, null, 0, 0, worker);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    List<Target> getTargets() {
+        return targets;
+    }
+
+    @Nullable Information getMessage() {
+        return message;
+    }
+
+    long getAge() {
+        return age;
+    }
+
+    int getQueued() {
+        return queued;
+    }
+
+    @Nullable String getWorker() {
+        return worker;
+    }
+
+    StackTraceElement[] getStack() {
+        return stack.clone();
+    }
+
+    @Override public String toString() {
+        final StringBuilder result = new StringBuilder(1024);
+        result.append("Stall alert: ").append(kind).append('\n');
+        result.append("  targets: ").append(targets).append('\n');
+        if (message != null) result.append("  message: ").append(message).append('\n');
+        if (age != 0) result.append("  age: ").append(NANOSECONDS.toMillis(age)).append(" ms\n");
+        if (queued != 0) result.append("  queued: ").append(queued).append('\n');
+        if (worker != null) result.append("  worker: ").append(worker).append('\n');
+        for (final StackTraceElement frame : stack)
+            result.append("    at ").append(frame).append('\n');
+        return result.toString();
+    }
+
+}
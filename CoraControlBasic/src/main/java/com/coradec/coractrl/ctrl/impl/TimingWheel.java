@@ -0,0 +1,338 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.ctrl.impl;
+
+import com.coradec.coracore.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * ​​A hierarchical hashed timing wheel for elements that become due at some point in the future.
+ * <p>
+ * The wheel consists of a number of levels with the same number of slots each; a slot on level
+ * <i>k</i> spans size<sup>k</sup> ticks.  An element is linked into the lowest level whose range
+ * covers its delay, and is cascaded down one level whenever the wheel reaches its slot, until it
+ * finally expires on level 0.  Elements beyond the range of the top level wait in an overflow list
+ * that is revisited every full turn of the top level.  Scheduling and cancelling an element are
+ * O(1), and all elements expiring in the same tick are released as one batch.
+ * <p>
+ * Any thread may schedule or cancel elements; the slots themselves are only ever touched by the
+ * single thread calling {@link #advance(Consumer)}, which picks up new and cancelled elements on
+ * its next turn.  The wheel calls the alarm whenever a new element is due before the time the
+ * advancing thread planned to wake up.
+ *
+ * @param <E> the element type.
+ */
+public class TimingWheel<E> {
+
+    private static final long AWAKE = 0;
+    private static final long IDLE = Long.MAX_VALUE;
+
+    private final long tick;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final long start;
+    private final Timeout<E>[] slots;
+    private final Timeout<E> overflow;
+    private final Queue<Timeout<E>> incoming = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<E>> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final Runnable alarm;
+    private volatile long wakeTick = AWAKE;
+    private long current;
+
+    /**
+     * Initializes a new instance of TimingWheel with the specified tick resolution, number of slots
+     * per level (rounded up to the next power of two) and number of levels.
+     *
+     * @param tick   the duration of a tick.
+     * @param unit   the unit of the tick duration.
+     * @param size   the number of slots per level.
+     * @param levels the number of levels.
+     * @param alarm  the action to wake up the advancing thread.
+     * @throws IllegalArgumentException if the wheel would span more ticks than fit into a long.
+     */
+    public TimingWheel(final long tick, final TimeUnit unit, final int size, final int levels,
+            final Runnable alarm) {
+        if (tick <= 0 || size <= 0 || levels <= 0) throw new IllegalArgumentException();
+        this.tick = unit.toNanos(tick);
+        this.bits = 32 - Integer.numberOfLeadingZeros(Math.max(size, 2) - 1);
+        if (bits * levels >= Long.SIZE - 1) throw new IllegalArgumentException();
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.alarm = alarm;
+        this.start = System.nanoTime();
+        @SuppressWarnings("unchecked") final Timeout<E>[] slots =
+                (Timeout<E>[])new Timeout<?>[levels << bits];
+        this.slots = slots;
+        for (int i = 0; i < slots.length; ++i) slots[i] = new Timeout<>(this, null, 0);
+        this.overflow = new Timeout<>(this, null, 0);
+    }
+
+    /**
+     * Schedules the specified element to expire after the specified delay.
+     *
+     * @param element the element.
+     * @param delay   the delay.
+     * @param unit    the unit of the delay.
+     * @return a handle to cancel the element.
+     */
+    public Timeout<E> schedule(final E element, final long delay, final TimeUnit unit) {
+        return schedule(timeout(element, delay, unit));
+    }
+
+    /**
+     * Creates a handle for the specified element to expire after the specified delay, without
+     * scheduling it yet.  This allows the caller to register the handle before the element can
+     * possibly expire; the handle counts as pending and must be {@linkplain #schedule(Timeout)
+     * scheduled} eventually.
+     *
+     * @param element the element.
+     * @param delay   the delay.
+     * @param unit    the unit of the delay.
+     * @return a handle to schedule and cancel the element.
+     */
+    public Timeout<E> timeout(final E element, final long delay, final TimeUnit unit) {
+        final long deadline = System.nanoTime() - start + Math.max(0, unit.toNanos(delay));
+        final Timeout<E> timeout = new Timeout<>(this, element, (deadline + tick - 1) / tick);
+        size.incrementAndGet();
+        return timeout;
+    }
+
+    /**
+     * Schedules the element of the specified handle created by {@link #timeout(Object, long,
+     * TimeUnit)}.
+     *
+     * @param timeout the handle.
+     * @return the handle.
+     */
+    public Timeout<E> schedule(final Timeout<E> timeout) {
+        incoming.add(timeout);
+        if (timeout.dueTick < wakeTick) alarm.run();
+        return timeout;
+    }
+
+    /**
+     * Returns the number of scheduled elements that neither expired nor were cancelled yet.
+     *
+     * @return the number of pending elements.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Advances the wheel to the current time, releasing the elements that expired in the meantime
+     * tick by tick.  Must only be called from a single thread.
+     *
+     * @param release the consumer of the expired elements.
+     * @return the time in nanoseconds until the wheel should be advanced again, or {@link
+     * Long#MAX_VALUE} if it is empty.
+     */
+    public long advance(final Consumer<List<E>> release) {
+        long next;
+        do {
+            wakeTick = AWAKE;
+            for (Timeout<E> timeout; (timeout = cancelled.poll()) != null; ) timeout.unlink();
+            List<E> batch = new ArrayList<>();
+            for (Timeout<E> timeout; (timeout = incoming.poll()) != null; ) place(timeout, batch);
+            final long now = (System.nanoTime() - start) / tick;
+            while (current < now) {
+                ++current;
+                cascade(batch);
+                expire(slots[(int)current & mask], batch);
+                if (!batch.isEmpty()) {
+                    release.accept(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) release.accept(batch);
+            next = size.get() == 0 ? IDLE : nextTick();
+            wakeTick = next;
+        } while (!incoming.isEmpty());
+        return next == IDLE ? Long.MAX_VALUE : Math.max(0, start + next * tick - System.nanoTime());
+    }
+
+    /**
+     * Links the specified element into its slot, or adds it to the batch if it is already due.
+     *
+     * @param timeout the element to place.
+     * @param batch   the batch of expired elements.
+     */
+    private void place(final Timeout<E> timeout, final List<E> batch) {
+        if (timeout.isCancelled()) return;
+        final long delta = timeout.dueTick - current;
+        if (delta <= 0) {
+            if (timeout.expire()) batch.add(timeout.element);
+            return;
+        }
+        int level = 0;
+        while (level < levels && delta >>> bits * (level + 1) != 0) ++level;
+        if (level == levels) overflow.link(timeout);
+        else slots[(level << bits) + ((int)(timeout.dueTick >>> bits * level) & mask)].link(
+                timeout);
+    }
+
+    /**
+     * Moves the elements of the higher level slots reached by the current tick one level down.
+     *
+     * @param batch the batch of expired elements.
+     */
+    private void cascade(final List<E> batch) {
+        if ((current & (1L << bits * levels) - 1) == 0) replace(overflow, batch);
+        for (int level = levels - 1; level > 0; --level) {
+            if ((current & (1L << bits * level) - 1) == 0) {
+                replace(slots[(level << bits) + ((int)(current >>> bits * level) & mask)], batch);
+            }
+        }
+    }
+
+    private void replace(final Timeout<E> head, final List<E> batch) {
+        for (Timeout<E> timeout = head.next; timeout != head; ) {
+            final Timeout<E> next = timeout.next;
+            timeout.unlink();
+            place(timeout, batch);
+            timeout = next;
+        }
+    }
+
+    private void expire(final Timeout<E> head, final List<E> batch) {
+        for (Timeout<E> timeout = head.next; timeout != head; ) {
+            final Timeout<E> next = timeout.next;
+            timeout.unlink();
+            if (timeout.expire()) batch.add(timeout.element);
+            timeout = next;
+        }
+    }
+
+    /**
+     * Returns the next tick at which the wheel has work to do: the next occupied slot of level 0
+     * or, failing that, the end of the current turn of level 0 when the higher levels cascade.
+     *
+     * @return the next tick of interest.
+     */
+    private long nextTick() {
+        final long turn = (current | mask) + 1;
+        for (long t = current + 1; t < turn; ++t) {
+            if (!slots[(int)t & mask].isEmpty()) return t;
+        }
+        return turn;
+    }
+
+    /**
+     * ​​A handle on an element scheduled in a timing wheel.
+     *
+     * @param <E> the element type.
+     */
+    public static class Timeout<E> {
+
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheel<E> wheel;
+        private final @Nullable E element;
+        private final long dueTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private @Nullable Timeout<E> prev, next;
+
+        Timeout(final TimingWheel<E> wheel, @Nullable final E element, final long dueTick) {
+            this.wheel = wheel;
+            this.element = element;
+            this.dueTick = dueTick;
+            if (element == null) prev = next = this;
+        }
+
+        /**
+         * Returns the scheduled element.
+         *
+         * @return the element.
+         */
+        public @Nullable E getElement() {
+            return element;
+        }
+
+        /**
+         * Cancels the element unless it expired already.
+         *
+         * @return {@code true} if the element was cancelled, {@code false} if it expired or was
+         * cancelled before.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            wheel.size.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Checks if the element was cancelled.
+         *
+         * @return {@code true} if the element was cancelled.
+         */
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * Checks if the element expired.
+         *
+         * @return {@code true} if the element expired.
+         */
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        boolean expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) return false;
+            wheel.size.decrementAndGet();
+            return true;
+        }
+
+        boolean isEmpty() {
+            return next == this;
+        }
+
+        void link(final Timeout<E> timeout) {
+            timeout.prev = prev;
+            timeout.next = this;
+            prev.next = timeout;
+            prev = timeout;
+        }
+
+        void unlink() {
+            if (prev != null && next != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = next = null;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.model;
+
+/**
+ * ​Statistics of the messages delivered to a target or of a particular type.
+ */
+public interface DeliveryStatistics {
+
+    /**
+     * Returns the number of messages delivered.
+     *
+     * @return the number of deliveries.
+     */
+    long getDeliveries();
+
+    /**
+     * Returns the distribution of the time messages waited between being enqueued and being
+     * delivered.  Information that never went through {@link
+     * com.coradec.coracom.model.Information#onEnqueue()} has no wait time.
+     *
+     * @return the queue wait distribution.
+     */
+    LatencyDistribution getQueueWait();
+
+    /**
+     * Returns the distribution of the time the handlers took to process the messages.
+     *
+     * @return the handler time distribution.
+     */
+    LatencyDistribution getHandlerTime();
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.model;
+
+/**
+ * ​A distribution of latencies in nanoseconds, such as the time messages wait in the queue or the
+ * time handlers take to process them.
+ */
+public interface LatencyDistribution {
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of samples.
+     */
+    long getCount();
+
+    /**
+     * Returns the sum of all recorded latencies.
+     *
+     * @return the total latency in nanoseconds.
+     */
+    long getTotal();
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @return the maximum latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getMax();
+
+    /**
+     * Returns the average recorded latency.
+     *
+     * @return the mean latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    double getMean();
+
+    /**
+     * Returns the latency that the specified percentage of samples did not exceed.  The result is
+     * accurate to the resolution of the distribution.
+     *
+     * @param percentile the percentile (0 to 100).
+     * @return the latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getPercentile(double percentile);
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.model;
+
+import com.coradec.coracom.model.Target;
+
+import java.util.Map;
+
+/**
+ * ​A snapshot of the throughput and latency statistics of a message queue, covering the time since
+ * the queue was started or its usage was last reset.
+ */
+public interface QueueStatistics {
+
+    /**
+     * Returns the time span covered by the snapshot.
+     *
+     * @return the elapsed time in nanoseconds.
+     */
+    long getElapsed();
+
+    /**
+     * Returns the number of information injected into the queue, including deferred information
+     * that is not due yet.
+     *
+     * @return the number of injections.
+     */
+    long getInjected();
+
+    /**
+     * Returns the number of deliveries to recipients and observers.
+     *
+     * @return the number of deliveries.
+     */
+    long getDelivered();
+
+    /**
+     * Returns the number of information that was superseded by newer information with the same
+     * conflation key before it was delivered.
+     *
+     * @return the number of conflated information.
+     */
+    long getConflated();
+
+    /**
+     * Returns the number of requests that were failed because their deadline had passed before
+     * they could be delivered.
+     *
+     * @return the number of expired requests.
+     */
+    long getExpired();
+
+    /**
+     * Returns the average number of deliveries per second.
+     *
+     * @return the throughput.
+     */
+    double getThroughput();
+
+    /**
+     * Returns the delivery statistics by target.
+     *
+     * @return the statistics of each target.
+     */
+    Map<Target, DeliveryStatistics> getTargetStatistics();
+
+    /**
+     * Returns the delivery statistics by type of information.
+     *
+     * @return the statistics of each information type.
+     */
+    Map<Class<?>, DeliveryStatistics> getTypeStatistics();
+
+}
@@ -40,6 +40,8 @@ import com.coradec.coracore.model.Origin;
 import com.coradec.coracore.trouble.OperationTimedoutException;
 import com.coradec.coracore.util.ClassUtil;
 import com.coradec.coractrl.ctrl.impl.BasicAgent;
+import com.coradec.coractrl.model.DeliveryStatistics;
+import com.coradec.coractrl.model.QueueStatistics;
 import com.coradec.corajet.cldr.Syslog;
 import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
 import com.coradec.coralog.ctrl.impl.Logger;
@@ -49,6 +51,7 @@ import org.junit.runner.RunWith;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -173,6 +176,115 @@ public class CentralMessageQueueTest {
         assertThat(elapsed < 50000, is(true));
     }
 
+    @Test public void dd_testExclusivity() throws InterruptedException {
+        Syslog.info("Performing the exclusivity test ... (should take less than 50 seconds)");
+        final int nProducers = 8;
+        final int nAgents = 10;
+        final int nMessages = 2000;
+        final List<ExclusivityTestAgent> agents = new ArrayList<>();
+        for (int i = 0; i < nAgents; ++i) agents.add(new ExclusivityTestAgent());
+        final List<Thread> producers = new ArrayList<>();
+        long elapsed = System.currentTimeMillis();
+        for (int p = 0; p < nProducers; ++p) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < nMessages; ++i) {
+                    final ExclusivityTestAgent agent = agents.get(i % nAgents);
+                    CMQ.inject(new SequencedMessage(agent, producer, i));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (final Thread producer : producers) producer.join();
+        assertThat(termLock.tryAcquire(nProducers * nMessages, 50, SECONDS), is(true));
+        elapsed = System.currentTimeMillis() - elapsed;
+        Syslog.info("Total time elapsed for %d messages from %d producers to %d agents: %d ms.",
+                nProducers * nMessages, nProducers, nAgents, elapsed);
+        for (final ExclusivityTestAgent agent : agents) {
+            assertThat(agent.getOverlaps(), is(0));
+            assertThat(agent.getDisorders(), is(0));
+        }
+    }
+
+    /**
+     * Injects batches of 10000 messages fanning out to 100 agents, alternately with {@code
+     * injectAll} and one by one, and compares the cost per message.  Each phase is drained before
+     * the next one starts, the order of the two methods alternates from round to round, and the
+     * first rounds only warm up, so neither method pays for the other one's deliveries.
+     */
+    @Test public void ee_testBatchFanOut() throws InterruptedException {
+        Syslog.info("Performing the batch fan-out test ... (should take less than 50 seconds)");
+        final int nWarmups = 2;
+        final int nRounds = 6;
+        final int nAgents = 100;
+        final int batchSize = 10000;
+        final List<ExclusivityTestAgent> agents = new ArrayList<>();
+        for (int i = 0; i < nAgents; ++i) agents.add(new ExclusivityTestAgent());
+        final long[] batched = new long[2], single = new long[2];
+        for (int r = 0; r < nWarmups + nRounds; ++r) {
+            final boolean batchFirst = r % 2 == 0;
+            final long[] first = fanOut(agents, 2 * r, batchSize, batchFirst);
+            final long[] second = fanOut(agents, 2 * r + 1, batchSize, !batchFirst);
+            if (r < nWarmups) continue;
+            final long[] b = batchFirst ? first : second, s = batchFirst ? second : first;
+            for (int i = 0; i < 2; ++i) {
+                batched[i] += b[i];
+                single[i] += s[i];
+            }
+        }
+        final long n = (long)nRounds * batchSize;
+        Syslog.info("Injection cost: %d ns/msg in batches of %d, %d ns/msg one by one.",
+                batched[0] / n, batchSize, single[0] / n);
+        Syslog.info("Cost until delivered: %d ns/msg in batches of %d, %d ns/msg one by one.",
+                batched[1] / n, batchSize, single[1] / n);
+        for (final ExclusivityTestAgent agent : agents) {
+            assertThat(agent.getOverlaps(), is(0));
+            assertThat(agent.getDisorders(), is(0));
+        }
+    }
+
+    /**
+     * Sends the specified number of messages from the specified producer round-robin to the
+     * specified agents, in one batch or one by one, and waits until all of them were delivered.
+     *
+     * @return the nanoseconds spent injecting and the nanoseconds until the last delivery.
+     */
+    private long[] fanOut(final List<ExclusivityTestAgent> agents, final int producer,
+            final int size, final boolean batch) throws InterruptedException {
+        final List<SequencedMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            messages.add(new SequencedMessage(agents.get(i % agents.size()), producer, i));
+        }
+        final long then = System.nanoTime();
+        if (batch) CMQ.injectAll(messages);
+        else for (final SequencedMessage message : messages) CMQ.inject(message);
+        final long injected = System.nanoTime() - then;
+        assertThat(termLock.tryAcquire(size, 50, SECONDS), is(true));
+        return new long[] {injected, System.nanoTime() - then};
+    }
+
+    @Test public void ff_testStatistics() throws InterruptedException {
+        final int nMessages = 200;
+        CMQ.resetUsage();
+        final ExclusivityTestAgent agent = new ExclusivityTestAgent();
+        for (int i = 0; i < nMessages; ++i) CMQ.inject(new SequencedMessage(agent, 0, i));
+        assertThat(termLock.tryAcquire(nMessages, 10, SECONDS), is(true));
+        Thread.sleep(100); // the last delivery is recorded after the handler has returned
+        final QueueStatistics stats = CMQ.getStatistics();
+        Syslog.info("Statistics of %s: %s", agent, stats.getTargetStatistics().get(agent));
+        assertThat(stats.getInjected() >= nMessages, is(true));
+        assertThat(stats.getDelivered() >= nMessages, is(true));
+        final DeliveryStatistics byTarget = stats.getTargetStatistics().get(agent);
+        assertThat(byTarget.getDeliveries(), is((long)nMessages));
+        assertThat(byTarget.getQueueWait().getCount(), is((long)nMessages));
+        assertThat(byTarget.getHandlerTime().getPercentile(50) <=
+                   byTarget.getHandlerTime().getMax(), is(true));
+        final DeliveryStatistics byType =
+                stats.getTypeStatistics().get(SequencedMessage.class);
+        assertThat(byType.getDeliveries(), is((long)nMessages));
+    }
+
     @SuppressWarnings("ClassHasNoToStringMethod")
     private final class LoadTestAgent extends Logger implements Origin, Recipient {
 
@@ -510,6 +622,66 @@ public class CentralMessageQueueTest {
         }
     }
 
+    private static class ExclusivityTestAgent extends AutoOrigin implements Origin, Recipient {
+
+        private final AtomicInteger busy = new AtomicInteger(0);
+        private final Map<Integer, Integer> lastSeen = new HashMap<>();
+        private int overlaps;
+        private int disorders;
+
+        @Override public void onMessage(final Message message) {
+            if (busy.incrementAndGet() != 1) ++overlaps;
+            final SequencedMessage sequenced = (SequencedMessage)message;
+            final Integer last = lastSeen.put(sequenced.getProducer(), sequenced.getSequence());
+            if (last != null && last >= sequenced.getSequence()) ++disorders;
+            busy.decrementAndGet();
+            termLock.release();
+        }
+
+        @Override public String getRecipientId() {
+            return "ExclusivityTestAgent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+        int getOverlaps() {
+            return overlaps;
+        }
+
+        int getDisorders() {
+            return disorders;
+        }
+
+    }
+
+    private static class SequencedMessage extends BasicMessage {
+
+        private final int producer;
+        private final int sequence;
+
+        SequencedMessage(final ExclusivityTestAgent agent, final int producer,
+                final int sequence) {
+            super(agent, agent);
+            this.producer = producer;
+            this.sequence = sequence;
+        }
+
+        @ToString public int getProducer() {
+            return producer;
+        }
+
+        @ToString public int getSequence() {
+            return sequence;
+        }
+
+    }
+
     private class StopEvent extends BasicEvent {
 
         public StopEvent(final Origin origin) {
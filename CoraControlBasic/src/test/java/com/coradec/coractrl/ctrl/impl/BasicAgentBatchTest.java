@@ -0,0 +1,154 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class BasicAgentBatchTest {
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void backlogShouldArriveInBatchesWithPerRequestCompletion()
+            throws InterruptedException {
+        final BatchAgent agent = new BatchAgent();
+        agent.sync();
+        agent.block();
+        final List<Request> requests = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) requests.add(agent.send(new Job(agent, i)));
+        agent.unblock();
+        for (final Request request : requests) request.standby(5, SECONDS);
+        for (final Request request : requests) assertThat(request.isSuccessful(), is(true));
+        assertThat(agent.jobs.size(), is(50));
+        for (int i = 0; i < 50; ++i) assertThat(agent.jobs.get(i), is(i));
+        assertThat(agent.batches.size() < 50, is(true));
+        assertThat(agent.batches.get(0), is(50));
+        assertThat(agent.seen.get(), is(50));
+    }
+
+    @Test public void singleMessageShouldReachTheBatchRouteAlone() throws InterruptedException {
+        final BatchAgent agent = new BatchAgent();
+        agent.sync();
+        agent.send(new Job(agent, 7)).standby(5, SECONDS);
+        assertThat(agent.jobs.toString(), is("[7]"));
+        assertThat(agent.batches.toString(), is("[1]"));
+        assertThat(agent.seen.get(), is(1));
+    }
+
+    private interface Tracked {
+
+    }
+
+    private static class Job extends BasicRequest implements Tracked {
+
+        final int index;
+
+        Job(final BatchAgent agent, final int index) {
+            super(agent, agent);
+            this.index = index;
+        }
+
+    }
+
+    private static class Gate extends BasicMessage {
+
+        Gate(final Origin sender, final Recipient recipient) {
+            super(sender, recipient);
+        }
+
+    }
+
+    private static class BatchAgent extends BasicAgent {
+
+        final List<Integer> jobs = new CopyOnWriteArrayList<>();
+        final List<Integer> batches = new CopyOnWriteArrayList<>();
+        final AtomicInteger seen = new AtomicInteger();
+        private final Semaphore gate = new Semaphore(0);
+        private final Semaphore arrived = new Semaphore(0);
+
+        BatchAgent() {
+            addBatchRoute(Job.class, this::work);
+            addRoute(Tracked.class, message -> seen.incrementAndGet());
+            addRoute(Gate.class, this::pass);
+        }
+
+        private void work(final List<Job> batch) {
+            batches.add(batch.size());
+            for (final Job job : batch) {
+                jobs.add(job.index);
+                job.succeed();
+            }
+        }
+
+        private void pass(final Gate gate) {
+            arrived.release();
+            this.gate.acquireUninterruptibly();
+        }
+
+        /**
+         * Waits until the routes are in place.
+         */
+        void sync() throws InterruptedException {
+            inject(new Gate(this, this));
+            gate.release();
+            assertThat(arrived.tryAcquire(5, SECONDS), is(true));
+        }
+
+        /**
+         * Holds up the agent so that messages pile up in its mailbox.
+         */
+        void block() throws InterruptedException {
+            inject(new Gate(this, this));
+            assertThat(arrived.tryAcquire(5, SECONDS), is(true));
+        }
+
+        void unblock() {
+            gate.release();
+        }
+
+        Request send(final Job job) {
+            return inject(job);
+        }
+
+    }
+
+}
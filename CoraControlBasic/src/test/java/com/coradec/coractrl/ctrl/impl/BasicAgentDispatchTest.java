@@ -0,0 +1,255 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.MessageQueue;
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.annotation.Inject;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.cldr.Syslog;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+@SuppressWarnings("PackageVisibleField")
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class BasicAgentDispatchTest {
+
+    private static final int ROUTES = 20;
+
+    @Inject MessageQueue MQ;
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void routesShouldFollowAddReplaceAndRemove() throws InterruptedException {
+        final RoutingAgent agent = new RoutingAgent();
+        agent.route(Ping.class, m -> agent.log.add("ping"));
+        agent.route(Marked.class, m -> agent.log.add("marked"));
+        agent.sync();
+        agent.deliver(new MarkedPing(agent));
+        assertThat(agent.log.size(), is(2));
+        assertThat(agent.log.contains("ping") && agent.log.contains("marked"), is(true));
+        agent.reroute(Ping.class, m -> agent.log.add("pong"));
+        agent.unroute(Marked.class);
+        agent.sync();
+        agent.log.clear();
+        agent.deliver(new MarkedPing(agent));
+        assertThat(agent.log.toString(), is("[pong]"));
+    }
+
+    @Test public void routingBenchmark() throws InterruptedException {
+        final int nMessages = 2000000;
+        final BenchAgent agent = new BenchAgent();
+        agent.sync();
+        final Message[] messages = new Message[ROUTES];
+        for (int i = 0; i < ROUTES; ++i) messages[i] = agent.message(i);
+        for (int i = 0; i < nMessages; ++i) agent.onMessage(messages[i % ROUTES]); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < nMessages; ++i) agent.onMessage(messages[i % ROUTES]);
+        final long direct = System.nanoTime() - start;
+        final int nQueued = nMessages / 40;
+        agent.expect(nQueued);
+        start = System.nanoTime();
+        for (int i = 0; i < nQueued; ++i) MQ.inject(agent.message(i % ROUTES));
+        assertThat(agent.arrived.tryAcquire(50, SECONDS), is(true));
+        final long queued = System.nanoTime() - start;
+        Syslog.info("Agent with %d routes: %d messages/s dispatched directly, %d messages/s "
+                    + "through the queue.", ROUTES, nMessages * 1_000_000_000L / direct,
+                nQueued * 1_000_000_000L / queued);
+    }
+
+    private interface Marked {
+
+    }
+
+    private static class Ping extends BasicMessage {
+
+        Ping(final Origin sender, final Recipient recipient) {
+            super(sender, recipient);
+        }
+
+    }
+
+    private static class MarkedPing extends Ping implements Marked {
+
+        MarkedPing(final RoutingAgent agent) {
+            super(agent, agent);
+        }
+
+    }
+
+    private static class Sync extends BasicMessage {
+
+        Sync(final Origin sender, final Recipient recipient) {
+            super(sender, recipient);
+        }
+
+    }
+
+    private static class RoutingAgent extends BasicAgent {
+
+        final List<String> log = new CopyOnWriteArrayList<>();
+        final Semaphore arrived = new Semaphore(0);
+
+        RoutingAgent() {
+            addRoute(Sync.class, m -> arrived.release());
+        }
+
+        <R extends Message> void route(final Class<? super R> type, final Consumer<R> processor) {
+            addRoute(type, processor);
+        }
+
+        <R extends Message> void reroute(final Class<? super R> type,
+                final Consumer<R> processor) {
+            replaceRoute(type, processor);
+        }
+
+        void unroute(final Class<?> type) {
+            removeRoute(type);
+        }
+
+        /**
+         * Waits until all route changes requested so far have been applied.
+         */
+        void sync() throws InterruptedException {
+            inject(new Sync(this, this));
+            assertThat(arrived.tryAcquire(5, SECONDS), is(true));
+        }
+
+        void deliver(final Message message) throws InterruptedException {
+            inject(message);
+            sync();
+        }
+
+    }
+
+    /**
+     * An agent with {@link #ROUTES} routes for as many unrelated message types.
+     */
+    private static class BenchAgent extends RoutingAgent {
+
+        volatile int remaining;
+
+        BenchAgent() {
+            route(Bench0.class, this::count);
+            route(Bench1.class, this::count);
+            route(Bench2.class, this::count);
+            route(Bench3.class, this::count);
+            route(Bench4.class, this::count);
+            route(Bench5.class, this::count);
+            route(Bench6.class, this::count);
+            route(Bench7.class, this::count);
+            route(Bench8.class, this::count);
+            route(Bench9.class, this::count);
+            route(Bench10.class, this::count);
+            route(Bench11.class, this::count);
+            route(Bench12.class, this::count);
+            route(Bench13.class, this::count);
+            route(Bench14.class, this::count);
+            route(Bench15.class, this::count);
+            route(Bench16.class, this::count);
+            route(Bench17.class, this::count);
+            route(Bench18.class, this::count);
+            route(Bench19.class, this::count);
+        }
+
+        Message message(final int route) {
+            switch (route) {
+                case 0: return new Bench0(this);
+                case 1: return new Bench1(this);
+                case 2: return new Bench2(this);
+                case 3: return new Bench3(this);
+                case 4: return new Bench4(this);
+                case 5: return new Bench5(this);
+                case 6: return new Bench6(this);
+                case 7: return new Bench7(this);
+                case 8: return new Bench8(this);
+                case 9: return new Bench9(this);
+                case 10: return new Bench10(this);
+                case 11: return new Bench11(this);
+                case 12: return new Bench12(this);
+                case 13: return new Bench13(this);
+                case 14: return new Bench14(this);
+                case 15: return new Bench15(this);
+                case 16: return new Bench16(this);
+                case 17: return new Bench17(this);
+                case 18: return new Bench18(this);
+                default: return new Bench19(this);
+            }
+        }
+
+        void expect(final int count) {
+            remaining = count;
+        }
+
+        private void count(final Message message) {
+            // only one mailbox thread at a time delivers to the agent
+            if (remaining > 0 && --remaining == 0) arrived.release();
+        }
+
+    }
+
+    private static class Bench extends BasicMessage {
+
+        Bench(final BenchAgent agent) {
+            super(agent, agent);
+        }
+
+    }
+
+    // @formatter:off
+    private static class Bench0 extends Bench { Bench0(final BenchAgent a) { super(a); } }
+    private static class Bench1 extends Bench { Bench1(final BenchAgent a) { super(a); } }
+    private static class Bench2 extends Bench { Bench2(final BenchAgent a) { super(a); } }
+    private static class Bench3 extends Bench { Bench3(final BenchAgent a) { super(a); } }
+    private static class Bench4 extends Bench { Bench4(final BenchAgent a) { super(a); } }
+    private static class Bench5 extends Bench { Bench5(final BenchAgent a) { super(a); } }
+    private static class Bench6 extends Bench { Bench6(final BenchAgent a) { super(a); } }
+    private static class Bench7 extends Bench { Bench7(final BenchAgent a) { super(a); } }
+    private static class Bench8 extends Bench { Bench8(final BenchAgent a) { super(a); } }
+    private static class Bench9 extends Bench { Bench9(final BenchAgent a) { super(a); } }
+    private static class Bench10 extends Bench { Bench10(final BenchAgent a) { super(a); } }
+    private static class Bench11 extends Bench { Bench11(final BenchAgent a) { super(a); } }
+    private static class Bench12 extends Bench { Bench12(final BenchAgent a) { super(a); } }
+    private static class Bench13 extends Bench { Bench13(final BenchAgent a) { super(a); } }
+    private static class Bench14 extends Bench { Bench14(final BenchAgent a) { super(a); } }
+    private static class Bench15 extends Bench { Bench15(final BenchAgent a) { super(a); } }
+    private static class Bench16 extends Bench { Bench16(final BenchAgent a) { super(a); } }
+    private static class Bench17 extends Bench { Bench17(final BenchAgent a) { super(a); } }
+    private static class Bench18 extends Bench { Bench18(final BenchAgent a) { super(a); } }
+    private static class Bench19 extends Bench { Bench19(final BenchAgent a) { super(a); } }
+    // @formatter:on
+
+}
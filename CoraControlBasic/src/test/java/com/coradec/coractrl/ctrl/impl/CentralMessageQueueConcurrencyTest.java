@@ -0,0 +1,190 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.MessageQueue;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicCommand;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.annotation.Inject;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.cldr.Syslog;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings("PackageVisibleField")
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueConcurrencyTest {
+
+    static final Semaphore done = new Semaphore(0);
+
+    @Inject MessageQueue MQ;
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void concurrentRecipientShouldProcessUpToItsLevelAtOnce()
+            throws InterruptedException {
+        final SlowAgent agent = new SlowAgent(4);
+        for (int i = 0; i < 20; ++i) MQ.inject(new Job(agent, agent, i));
+        assertThat(done.tryAcquire(20, 5, SECONDS), is(true));
+        assertThat(agent.maxOverlap.get() > 1, is(true));
+        assertThat(agent.maxOverlap.get() <= 4, is(true));
+        assertThat(agent.seen.size(), is(20));
+    }
+
+    @Test public void serialRecipientShouldProcessOneMessageAtATimeInOrder()
+            throws InterruptedException {
+        final SlowAgent agent = new SlowAgent(1);
+        for (int i = 0; i < 20; ++i) MQ.inject(new Job(agent, agent, i));
+        assertThat(done.tryAcquire(20, 5, SECONDS), is(true));
+        assertThat(agent.maxOverlap.get(), is(1));
+        for (int i = 0; i < 20; ++i) assertThat(agent.seen.get(i), is(i));
+    }
+
+    @Test public void commandsShouldBeDeliveredExclusively() throws InterruptedException {
+        final SlowAgent agent = new SlowAgent(4);
+        for (int i = 0; i < 8; ++i) MQ.inject(new Job(agent, agent, i));
+        final Probe probe = new Probe(agent);
+        MQ.inject(probe);
+        for (int i = 8; i < 16; ++i) MQ.inject(new Job(agent, agent, i));
+        assertThat(done.tryAcquire(17, 5, SECONDS), is(true));
+        assertThat(probe.overlap, is(0));
+        assertThat(agent.seen.size(), is(16));
+        assertThat(probe.seenBefore, is(8));
+    }
+
+    @Test public void echoServiceBenchmark() throws InterruptedException {
+        final int nRequests = 2000;
+        echo(1, nRequests); // warm-up
+        final long serial = echo(1, nRequests);
+        final long parallel = echo(8, nRequests);
+        Syslog.info("CPU-bound echo service on %d cores: %d ns/request serial, %d ns/request with "
+                    + "concurrency level 8.", Runtime.getRuntime().availableProcessors(),
+                serial / nRequests, parallel / nRequests);
+    }
+
+    private long echo(final int concurrency, final int nRequests) throws InterruptedException {
+        final EchoAgent echo = new EchoAgent(concurrency);
+        final long start = System.nanoTime();
+        for (int i = 0; i < nRequests; ++i) MQ.inject(new Job(echo, echo, i));
+        assertThat(done.tryAcquire(nRequests, 60, SECONDS), is(true));
+        return System.nanoTime() - start;
+    }
+
+    private static class Job extends BasicMessage {
+
+        final int seqNo;
+
+        Job(final Origin sender, final Recipient recipient, final int seqNo) {
+            super(sender, recipient);
+            this.seqNo = seqNo;
+        }
+
+    }
+
+    private static class Probe extends BasicCommand {
+
+        private final SlowAgent agent;
+        volatile int overlap = -1;
+        volatile int seenBefore = -1;
+
+        Probe(final SlowAgent agent) {
+            super(agent, agent);
+            this.agent = agent;
+        }
+
+        @Override public void execute() {
+            overlap = agent.overlap.get();
+            seenBefore = agent.seen.size();
+            done.release();
+        }
+
+    }
+
+    private static class SlowAgent extends BasicAgent {
+
+        private final int concurrency;
+        final AtomicInteger overlap = new AtomicInteger(0);
+        final AtomicInteger maxOverlap = new AtomicInteger(0);
+        final List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+
+        SlowAgent(final int concurrency) {
+            this.concurrency = concurrency;
+            approve(Probe.class);
+            addRoute(Job.class, this::work);
+        }
+
+        @Override public int getConcurrencyLevel() {
+            return concurrency;
+        }
+
+        private void work(final Job job) {
+            maxOverlap.accumulateAndGet(overlap.incrementAndGet(), Integer::max);
+            seen.add(job.seqNo);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            overlap.decrementAndGet();
+            done.release();
+        }
+
+    }
+
+    private static class EchoAgent extends BasicAgent {
+
+        private final int concurrency;
+        volatile long sink;
+
+        EchoAgent(final int concurrency) {
+            this.concurrency = concurrency;
+            addRoute(Job.class, this::echo);
+        }
+
+        @Override public int getConcurrencyLevel() {
+            return concurrency;
+        }
+
+        private void echo(final Job job) {
+            long hash = job.seqNo;
+            for (int i = 0; i < 50000; ++i) hash = hash * 31 + (hash >>> 7) + i;
+            sink = hash;
+            done.release();
+        }
+
+    }
+
+}
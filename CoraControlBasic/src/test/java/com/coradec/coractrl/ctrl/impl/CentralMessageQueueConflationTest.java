@@ -0,0 +1,125 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Conflatable;
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueConflationTest {
+
+    private final CentralMessageQueue testee =
+            new CentralMessageQueue(new Options().execution("Threads", 0));
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void newerRequestShouldSupersedePendingOneWithTheSameKey()
+            throws InterruptedException {
+        final GatedAgent agent = new GatedAgent();
+        final Request first = testee.inject(new SetRequest(agent, "x", 1));
+        agent.awaitFirst();
+        final Request second = testee.inject(new SetRequest(agent, "x", 2));
+        final Request other = testee.inject(new SetRequest(agent, "y", 3));
+        final Request third = testee.inject(new SetRequest(agent, "x", 4));
+        assertThat(second.isCancelled(), is(true));
+        agent.open();
+        first.standby(5, SECONDS);
+        other.standby(5, SECONDS);
+        third.standby(5, SECONDS);
+        assertThat(valuesOf(agent), is("[1, 3, 4]"));
+        assertThat(testee.getStatistics().getConflated(), is(1L));
+    }
+
+    @Test public void supersededRequestShouldCompleteAccordingToItsPolicy()
+            throws InterruptedException {
+        final GatedAgent agent = new GatedAgent();
+        testee.inject(new SetRequest(agent, "x", 1));
+        agent.awaitFirst();
+        final Request second = testee.inject(new SetRequest(agent, "x", 2).succeeding());
+        final Request third = testee.inject(new SetRequest(agent, "x", 3));
+        assertThat(second.isSuccessful(), is(true));
+        agent.open();
+        third.standby(5, SECONDS);
+        assertThat(valuesOf(agent), is("[1, 3]"));
+    }
+
+    @Test public void requestBeingDeliveredShouldNotBeSuperseded() throws InterruptedException {
+        final GatedAgent agent = new GatedAgent();
+        final Request first = testee.inject(new SetRequest(agent, "x", 1));
+        agent.awaitFirst();
+        final Request second = testee.inject(new SetRequest(agent, "x", 2));
+        agent.open();
+        first.standby(5, SECONDS);
+        second.standby(5, SECONDS);
+        assertThat(first.isSuccessful(), is(true));
+        assertThat(valuesOf(agent), is("[1, 2]"));
+    }
+
+    private static String valuesOf(final GatedAgent agent) {
+        final List<Integer> values = new ArrayList<>();
+        for (final Message message : agent.delivered) values.add(((SetRequest)message).value);
+        return values.toString();
+    }
+
+    private static class SetRequest extends BasicRequest implements Conflatable {
+
+        private final String key;
+        final int value;
+        private Supersession supersession = Supersession.CANCEL;
+
+        SetRequest(final GatedAgent agent, final String key, final int value) {
+            super(agent, agent);
+            this.key = key;
+            this.value = value;
+        }
+
+        SetRequest succeeding() {
+            supersession = Supersession.SUCCEED;
+            return this;
+        }
+
+        @Override public Object getConflationKey() {
+            return key;
+        }
+
+        @Override public Supersession getSupersession() {
+            return supersession;
+        }
+
+    }
+
+}
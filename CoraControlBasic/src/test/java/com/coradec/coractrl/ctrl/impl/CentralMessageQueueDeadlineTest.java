@@ -0,0 +1,80 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracom.trouble.DeadlineExceededException;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueDeadlineTest {
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void expiredRequestShouldFailInsteadOfBeingDelivered()
+            throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0));
+        final GatedAgent agent = new GatedAgent();
+        final Message first = testee.inject(new BasicMessage(agent, agent));
+        agent.awaitFirst();
+        final Request late = testee.inject(new BasicRequest(agent, agent).within(1, MILLISECONDS));
+        final Request timely = testee.inject(new BasicRequest(agent, agent).within(1, MINUTES));
+        Thread.sleep(20);
+        agent.open();
+        agent.awaitDelivered(2);
+        assertThat(late.isFailed(), is(true));
+        assertThat(late.getProblem(), is(instanceOf(DeadlineExceededException.class)));
+        assertThat(agent.delivered, is(Arrays.<Message>asList(first, timely)));
+        assertThat(testee.getStatistics().getExpired(), is(1L));
+    }
+
+    @Test public void earliestDeadlineShouldBeDeliveredFirst() throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0).scheduling("EDF"));
+        final GatedAgent agent = new GatedAgent();
+        final Message first = testee.inject(new BasicMessage(agent, agent));
+        agent.awaitFirst();
+        final Message plain = testee.inject(new BasicMessage(agent, agent));
+        final Request relaxed = testee.inject(new BasicRequest(agent, agent).within(3, MINUTES));
+        final Request urgent = testee.inject(new BasicRequest(agent, agent).within(1, MINUTES));
+        final Request pressing = testee.inject(new BasicRequest(agent, agent).within(2, MINUTES));
+        agent.open();
+        agent.awaitDelivered(5);
+        assertThat(agent.delivered, is(Arrays.asList(first, urgent, pressing, relaxed, plain)));
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.cldr.Syslog;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueFairnessTest {
+
+    private static final int BACKGROUND_TARGETS = 200;
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void lightTenantShouldNotWaitBehindHeavyBackgroundLoad()
+            throws InterruptedException {
+        final long fifo = interactiveLatency(scheduledBy("FIFO"));
+        final long fair = interactiveLatency(scheduledBy("FairByTenant"));
+        Syslog.info("Interactive latency under background load: %d µs FIFO, %d µs fair.",
+                fifo / 1000, fair / 1000);
+        assertThat(fair < fifo / 2, is(true));
+    }
+
+    @Test public void tenantWeightShouldDefaultToTheConfiguredValue() {
+        final CentralMessageQueue testee = scheduledBy("FairByTenant");
+        testee.setTenantWeight("interactive", 4);
+        testee.setTenantWeight("batch", 0);
+        assertThat(testee.getTenantWeight("interactive"), is(4));
+        assertThat(testee.getTenantWeight("batch"), is(1));
+        assertThat(testee.getTenantWeight("unknown"), is(1));
+        assertThat(testee.getTenantWeight(null), is(1));
+    }
+
+    /**
+     * Floods the specified queue with slow background messages, then measures how long a single
+     * interactive message takes to be delivered.  The background handlers are held until the
+     * interactive message is queued, so the measurement does not depend on how much of the
+     * background work got done while the queue was being flooded.
+     */
+    private long interactiveLatency(final CentralMessageQueue testee) throws InterruptedException {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch background = new CountDownLatch(BACKGROUND_TARGETS);
+        final CountDownLatch interactive = new CountDownLatch(1);
+        for (int i = 0; i < BACKGROUND_TARGETS; ++i) {
+            final TenantAgent agent = new TenantAgent("batch", gate, background, 10);
+            testee.inject(new BasicMessage(agent, agent));
+        }
+        final TenantAgent agent = new TenantAgent("interactive", gate, interactive, 0);
+        final long start = System.nanoTime();
+        testee.inject(new BasicMessage(agent, agent));
+        gate.countDown();
+        assertThat(interactive.await(10, SECONDS), is(true));
+        final long result = System.nanoTime() - start;
+        assertThat(background.await(10, SECONDS), is(true));
+        return result;
+    }
+
+    /**
+     * Creates a message queue with the specified scheduling policy.
+     */
+    private CentralMessageQueue scheduledBy(final String scheduling) {
+        return new CentralMessageQueue(
+                new Options().execution("Threads", 0).scheduling(scheduling));
+    }
+
+    private static class TenantAgent extends AutoOrigin implements Origin, Recipient {
+
+        private final String tenant;
+        private final CountDownLatch gate;
+        private final CountDownLatch done;
+        private final long delay;
+
+        TenantAgent(final String tenant, final CountDownLatch gate, final CountDownLatch done,
+                final long delay) {
+            this.tenant = tenant;
+            this.gate = gate;
+            this.done = done;
+            this.delay = delay;
+        }
+
+        @Override public Object getTenant() {
+            return tenant;
+        }
+
+        @Override public void onMessage(final Message message) {
+            try {
+                gate.await();
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        }
+
+        @Override public String getRecipientId() {
+            return "TenantAgent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
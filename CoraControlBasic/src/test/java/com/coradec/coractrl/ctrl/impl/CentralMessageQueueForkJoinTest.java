@@ -0,0 +1,151 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.annotation.ToString;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.cldr.Syslog;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueForkJoinTest {
+
+    static final Semaphore termLock = new Semaphore(0);
+
+    private final CentralMessageQueue testee =
+            new CentralMessageQueue(new Options().execution("ForkJoin", 4));
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void messagesShouldBeDeliveredExclusivelyAndInOrder() throws InterruptedException {
+        final int nProducers = 8;
+        final int nAgents = 10;
+        final int nMessages = 2000;
+        final List<SerialAgent> agents = new ArrayList<>();
+        for (int i = 0; i < nAgents; ++i) agents.add(new SerialAgent());
+        final List<Thread> producers = new ArrayList<>();
+        long elapsed = System.currentTimeMillis();
+        for (int p = 0; p < nProducers; ++p) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < nMessages; ++i) {
+                    testee.inject(new SequencedMessage(agents.get(i % nAgents), producer, i));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (final Thread producer : producers) producer.join();
+        assertThat(termLock.tryAcquire(nProducers * nMessages, 50, SECONDS), is(true));
+        elapsed = System.currentTimeMillis() - elapsed;
+        Syslog.info("Total time elapsed for %d messages on the fork/join pool: %d ms.",
+                nProducers * nMessages, elapsed);
+        for (final SerialAgent agent : agents) {
+            assertThat(agent.getOverlaps(), is(0));
+            assertThat(agent.getDisorders(), is(0));
+        }
+        assertThat(testee.getMaxWorkerCount() > 0, is(true));
+        assertThat(testee.getMaxWorkerCount() <= 4, is(true));
+    }
+
+    private static class SerialAgent extends AutoOrigin implements Origin, Recipient {
+
+        private final AtomicInteger busy = new AtomicInteger(0);
+        private final Map<Integer, Integer> lastSeen = new HashMap<>();
+        private int overlaps;
+        private int disorders;
+
+        @Override public void onMessage(final Message message) {
+            if (busy.incrementAndGet() != 1) ++overlaps;
+            final SequencedMessage sequenced = (SequencedMessage)message;
+            final Integer last = lastSeen.put(sequenced.getProducer(), sequenced.getSequence());
+            if (last != null && last >= sequenced.getSequence()) ++disorders;
+            busy.decrementAndGet();
+            termLock.release();
+        }
+
+        @Override public String getRecipientId() {
+            return "SerialAgent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+        int getOverlaps() {
+            return overlaps;
+        }
+
+        int getDisorders() {
+            return disorders;
+        }
+
+    }
+
+    private static class SequencedMessage extends BasicMessage {
+
+        private final int producer;
+        private final int sequence;
+
+        SequencedMessage(final SerialAgent agent, final int producer, final int sequence) {
+            super(agent, agent);
+            this.producer = producer;
+            this.sequence = sequence;
+        }
+
+        @ToString public int getProducer() {
+            return producer;
+        }
+
+        @ToString public int getSequence() {
+            return sequence;
+        }
+
+    }
+
+}
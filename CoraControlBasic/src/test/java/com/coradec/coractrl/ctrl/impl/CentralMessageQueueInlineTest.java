@@ -0,0 +1,220 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.MessageQueue;
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.annotation.Inject;
+import com.coradec.coracore.annotation.Nullable;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.cldr.Syslog;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.concurrent.Semaphore;
+
+@SuppressWarnings("PackageVisibleField")
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueInlineTest {
+
+    static final Semaphore done = new Semaphore(0);
+
+    @Inject MessageQueue MQ;
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    private CentralMessageQueue cmq() {
+        return (CentralMessageQueue)MQ;
+    }
+
+    @Test public void inlineDeliveryShouldRunOnTheInjectingThread() throws InterruptedException {
+        cmq().inlineDepth = 1;
+        try {
+            final ChainAgent agent = new ChainAgent(null);
+            MQ.inject(new Ball(agent, agent, 0));
+            assertThat(done.tryAcquire(5, SECONDS), is(true));
+            assertThat(agent.thread, is(Thread.currentThread()));
+        } finally {
+            cmq().inlineDepth = 0;
+        }
+    }
+
+    @Test public void inlineDeliveryShouldRespectTheDepthBound() throws InterruptedException {
+        cmq().inlineDepth = 2;
+        try {
+            final ChainAgent d = new ChainAgent(null);
+            final ChainAgent c = new ChainAgent(d);
+            final ChainAgent b = new ChainAgent(c);
+            final ChainAgent a = new ChainAgent(b);
+            MQ.inject(new Ball(a, a, 0));
+            assertThat(done.tryAcquire(5, SECONDS), is(true));
+            assertThat(a.thread, is(Thread.currentThread()));
+            assertThat(b.thread, is(Thread.currentThread()));
+            assertThat(c.thread, is(not(Thread.currentThread())));
+            assertThat(d.thread, is(c.thread));
+        } finally {
+            cmq().inlineDepth = 0;
+        }
+    }
+
+    /**
+     * Plays ping-pong between two agents with inline delivery off, bounded below and at the
+     * number of hops.  The return hop goes to the agent whose delivery is still on the stack, so
+     * it is queued whatever the depth; only the other hop can run inline.
+     */
+    @Test public void pingPongBenchmark() throws InterruptedException {
+        final int nExchanges = 10000;
+        final int[] depths = {0, 8, nExchanges};
+        final long[] elapsed = new long[depths.length];
+        for (int r = 0; r < 6; ++r) {
+            for (int i = 0; i < depths.length; ++i) {
+                final int d = (r + i) % depths.length;
+                final long time = pingPong(depths[d], nExchanges);
+                if (r > 0) elapsed[d] += time; // the first round warms up
+            }
+        }
+        Syslog.info("Ping-pong between two agents: %d ns/exchange queued, %d ns/exchange at " +
+                    "depth 8, %d ns/exchange at depth %d.", elapsed[0] / 5 / nExchanges,
+                elapsed[1] / 5 / nExchanges, elapsed[2] / 5 / nExchanges, nExchanges);
+    }
+
+    /**
+     * Relays a ball along a chain of agents with inline delivery off and at the length of the
+     * chain, where every hop goes to an idle agent.
+     */
+    @Test public void relayBenchmark() throws InterruptedException {
+        final int nAgents = 64;
+        final int nRelays = 2000;
+        @Nullable ChainAgent head = null;
+        for (int i = 0; i < nAgents; ++i) head = new ChainAgent(head);
+        final int[] depths = {0, nAgents};
+        final long[] elapsed = new long[depths.length];
+        for (int r = 0; r < 6; ++r) {
+            for (int i = 0; i < depths.length; ++i) {
+                final int d = (r + i) % depths.length;
+                final long time = relay(head, depths[d], nRelays);
+                if (r > 0) elapsed[d] += time; // the first round warms up
+            }
+        }
+        Syslog.info("Relay along %d agents: %d ns/hop queued, %d ns/hop inline.", nAgents,
+                elapsed[0] / 5 / nRelays / nAgents, elapsed[1] / 5 / nRelays / nAgents);
+    }
+
+    private long relay(final ChainAgent head, final int inlineDepth, final int nRelays)
+            throws InterruptedException {
+        cmq().inlineDepth = inlineDepth;
+        try {
+            final long start = System.nanoTime();
+            for (int i = 0; i < nRelays; ++i) {
+                MQ.inject(new Ball(head, head, 0));
+                assertThat(done.tryAcquire(50, SECONDS), is(true));
+            }
+            return System.nanoTime() - start;
+        } finally {
+            cmq().inlineDepth = 0;
+        }
+    }
+
+    private long pingPong(final int inlineDepth, final int nExchanges)
+            throws InterruptedException {
+        cmq().inlineDepth = inlineDepth;
+        try {
+            final Player ping = new Player();
+            final Player pong = new Player();
+            ping.partner = pong;
+            pong.partner = ping;
+            final long start = System.nanoTime();
+            MQ.inject(new Ball(ping, ping, nExchanges));
+            assertThat(done.tryAcquire(50, SECONDS), is(true));
+            return System.nanoTime() - start;
+        } finally {
+            cmq().inlineDepth = 0;
+        }
+    }
+
+    private static class Ball extends BasicMessage {
+
+        final int remaining;
+
+        Ball(final Origin sender, final Recipient recipient, final int remaining) {
+            super(sender, recipient);
+            this.remaining = remaining;
+        }
+
+    }
+
+    private static class Player extends BasicAgent {
+
+        Player partner;
+
+        Player() {
+            addRoute(Ball.class, this::hit);
+        }
+
+        private void hit(final Ball ball) {
+            if (ball.remaining == 0) done.release();
+            else inject(new Ball(this, partner, ball.remaining - 1));
+        }
+
+    }
+
+    private class ChainAgent extends AutoOrigin implements Origin, Recipient {
+
+        private final @Nullable ChainAgent next;
+        volatile Thread thread;
+
+        ChainAgent(final @Nullable ChainAgent next) {
+            this.next = next;
+        }
+
+        @Override public void onMessage(final Message message) {
+            thread = Thread.currentThread();
+            if (next == null) done.release();
+            else MQ.inject(new Ball(this, next, 0));
+        }
+
+        @Override public String getRecipientId() {
+            return "ChainAgent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
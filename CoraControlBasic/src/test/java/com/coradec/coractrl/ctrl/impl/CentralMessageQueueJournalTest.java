@@ -0,0 +1,246 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.OriginResolver;
+import com.coradec.coracom.ctrl.RecipientResolver;
+import com.coradec.coracom.model.Deferred;
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicDeferredRequest;
+import com.coradec.coracom.model.impl.BasicSessionRequest;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import com.coradec.corasession.model.Session;
+import com.coradec.corasession.model.Sessions;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueJournalTest {
+
+    private static final Map<String, Agent> AGENTS = new HashMap<>();
+
+    static {
+        RecipientResolver.register((session, id) -> AGENTS.get(id));
+        OriginResolver.register((session, id) -> AGENTS.get(id));
+    }
+
+    private final Session session = new TestSession();
+    private final List<CentralMessageQueue> queues = new ArrayList<>();
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void incompleteRequestsShouldBeReplayedAfterACrash() throws Exception {
+        final Path directory = Files.createTempDirectory("journal");
+        final CountDownLatch gate = new CountDownLatch(1);
+        try {
+            final Agent agent = new Agent("crashing", gate, 1);
+            final CentralMessageQueue crashed = journaled(directory);
+            final Request first = crashed.inject(new BasicSessionRequest(session, agent, agent));
+            final Request second = crashed.inject(new BasicSessionRequest(session, agent, agent));
+            final Request done = crashed.inject(new BasicSessionRequest(session, agent, agent));
+            assertThat(agent.entered.await(5, SECONDS), is(true));
+            done.succeed();
+            final Agent successor = new Agent("crashing", new CountDownLatch(0), 2);
+            journaled(directory);
+            assertThat(successor.done.await(5, SECONDS), is(true));
+            assertThat(successor.received, is(Arrays.asList(first.getId(), second.getId())));
+        } finally {
+            gate.countDown();
+            discard(directory);
+        }
+    }
+
+    @Test public void completedRequestsShouldNotBeReplayed() throws Exception {
+        final Path directory = Files.createTempDirectory("journal");
+        try {
+            final Agent agent = new Agent("completing", new CountDownLatch(0), 1);
+            final CentralMessageQueue first = journaled(directory);
+            first.inject(new BasicSessionRequest(session, agent, agent)).standby(5, SECONDS);
+            assertThat(first.journal.size(), is(0));
+            final CentralMessageQueue second = journaled(directory);
+            assertThat(second.journal.getRecovered().isEmpty(), is(true));
+        } finally {
+            discard(directory);
+        }
+    }
+
+    @Test public void deferredRequestsShouldBeReplayedWithTheirExecutionTime() throws Exception {
+        final Path directory = Files.createTempDirectory("journal");
+        try {
+            final Agent agent = new Agent("deferring", new CountDownLatch(0), 1);
+            final CentralMessageQueue crashed = journaled(directory);
+            final BasicDeferredRequest deferred =
+                    crashed.inject(new BasicDeferredRequest(1, MINUTES, agent, agent));
+            assertThat(crashed.journal.size(), is(1));
+            final CentralMessageQueue testee = journaled(directory);
+            for (int i = 0; i < 500 && testee.deferredMap.isEmpty(); ++i) Thread.sleep(10);
+            final Deferred replayed = testee.deferredMap.keySet().iterator().next();
+            assertThat(replayed, is(instanceOf(BasicDeferredRequest.class)));
+            assertThat(replayed.getId(), is(deferred.getId()));
+            assertThat(replayed.getExecutionTime(), is(deferred.getExecutionTime()));
+            crashed.revoke(deferred);
+            testee.revoke(replayed);
+        } finally {
+            discard(directory);
+        }
+    }
+
+    @Test public void requestsShouldBeReplayedWithTheirDeadline() throws Exception {
+        final Path directory = Files.createTempDirectory("journal");
+        final CountDownLatch gate = new CountDownLatch(1);
+        try {
+            final Agent agent = new Agent("expiring", gate, 1);
+            final CentralMessageQueue crashed = journaled(directory);
+            crashed.inject(new BasicSessionRequest(session, agent, agent));
+            final Request timed =
+                    crashed.inject(new BasicSessionRequest(session, agent, agent).within(1, HOURS));
+            assertThat(agent.entered.await(5, SECONDS), is(true));
+            final Agent successor = new Agent("expiring", new CountDownLatch(0), 2);
+            journaled(directory);
+            assertThat(successor.done.await(5, SECONDS), is(true));
+            final long deadline = successor.deadlines.get(timed.getId());
+            assertThat(Math.abs(deadline - timed.getDeadline()) < MILLISECONDS.toNanos(100),
+                    is(true));
+        } finally {
+            gate.countDown();
+            discard(directory);
+        }
+    }
+
+    /**
+     * Creates a message queue journaling in the specified directory.
+     */
+    private CentralMessageQueue journaled(final Path directory) {
+        final CentralMessageQueue queue =
+                new CentralMessageQueue(new Options().execution("Threads", 0).journal(directory));
+        queues.add(queue);
+        return queue;
+    }
+
+    /**
+     * Closes the journals of the queues created so far and deletes the specified directory.  The
+     * test runner ignores {@code @Before} and {@code @After}, so each test cleans up by itself.
+     */
+    private void discard(final Path directory) throws IOException {
+        for (final CentralMessageQueue queue : queues) {
+            if (queue.journal != null) queue.journal.close();
+        }
+        queues.clear();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (final Path file : files) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static class TestSession implements Session {
+
+        private final UUID id = UUID.randomUUID();
+
+        TestSession() {
+            Sessions.register(id, this);
+        }
+
+        @Override public UUID getId() {
+            return id;
+        }
+
+        @Override public String represent() {
+            return id.toString();
+        }
+
+    }
+
+    /**
+     * An agent that records the IDs of the requests it receives; it holds the first one until the
+     * gate opens and completes the others.
+     */
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch done;
+        final List<UUID> received = Collections.synchronizedList(new ArrayList<>());
+        final Map<UUID, Long> deadlines = new ConcurrentHashMap<>();
+        private final String name;
+        private final CountDownLatch gate;
+
+        Agent(final String name, final CountDownLatch gate, final int expected) {
+            this.name = name;
+            this.gate = gate;
+            done = new CountDownLatch(expected);
+            AGENTS.put(name, this);
+        }
+
+        @Override public void onMessage(final Message message) {
+            received.add(message.getId());
+            if (message instanceof Request)
+                deadlines.put(message.getId(), ((Request)message).getDeadline());
+            entered.countDown();
+            try {
+                if (received.size() == 1) gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (message instanceof Request) ((Request)message).succeed();
+            done.countDown();
+        }
+
+        @Override public String getRecipientId() {
+            return name;
+        }
+
+        @Override public String represent() {
+            return name;
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
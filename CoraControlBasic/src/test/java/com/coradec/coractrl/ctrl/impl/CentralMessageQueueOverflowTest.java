@@ -0,0 +1,155 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracore.time.Duration;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.coractrl.trouble.QueueOverflowException;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueOverflowTest {
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void failPolicyShouldRejectExcessRequests() throws InterruptedException {
+        final CentralMessageQueue testee = bounded("Fail", 0);
+        final GatedAgent agent = new GatedAgent();
+        final List<Request> accepted = fill(testee, agent);
+        assertThat(testee.getQueueDepth(agent), is(3));
+        final Request excess = new BasicRequest(agent, agent);
+        try {
+            testee.inject(excess);
+            assertThat("overflow expected", false);
+        } catch (QueueOverflowException e) {
+            assertThat(e.getTarget(), is(agent));
+        }
+        assertThat(excess.isFailed(), is(true));
+        assertThat(excess.getProblem(), is(instanceOf(QueueOverflowException.class)));
+        agent.open();
+        for (final Request request : accepted) request.standby(5, SECONDS);
+        assertThat(agent.delivered.size(), is(3));
+        assertThat(testee.getQueueDepth(), is(0));
+    }
+
+    @Test public void dropOldestPolicyShouldFailTheOldestWaitingRequest()
+            throws InterruptedException {
+        final CentralMessageQueue testee = bounded("DropOldest", 0);
+        final GatedAgent agent = new GatedAgent();
+        final List<Request> accepted = fill(testee, agent);
+        final Request newest = testee.inject(new BasicRequest(agent, agent));
+        assertThat(testee.getQueueDepth(agent), is(3));
+        // the first request is already being delivered, so the second one is the oldest waiting
+        assertThat(accepted.get(1).isFailed(), is(true));
+        assertThat(accepted.get(1).getProblem(), is(instanceOf(QueueOverflowException.class)));
+        agent.open();
+        newest.standby(5, SECONDS);
+        accepted.get(0).standby(5, SECONDS);
+        accepted.get(2).standby(5, SECONDS);
+        assertThat(agent.delivered.size(), is(3));
+    }
+
+    @Test public void blockPolicyShouldWaitForRoom() throws InterruptedException {
+        final CentralMessageQueue testee = bounded("Block", 500);
+        final GatedAgent agent = new GatedAgent();
+        fill(testee, agent);
+        final Request late = new BasicRequest(agent, agent);
+        try {
+            testee.inject(late);
+            assertThat("overflow expected", false);
+        } catch (QueueOverflowException e) {
+            assertThat(late.isFailed(), is(true));
+        }
+        final Thread opener = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            agent.open();
+        });
+        opener.start();
+        final Request blocked = testee.inject(new BasicRequest(agent, agent));
+        opener.join();
+        blocked.standby(5, SECONDS);
+        assertThat(blocked.isSuccessful(), is(true));
+    }
+
+    @Test public void urgentMessagesShouldNotBeLimited() throws InterruptedException {
+        final CentralMessageQueue testee = bounded("Fail", 0);
+        final GatedAgent agent = new GatedAgent();
+        fill(testee, agent);
+        final Request urgent = testee.inject(new UrgentRequest(agent));
+        assertThat(testee.getQueueDepth(agent), is(4));
+        agent.open();
+        urgent.standby(5, SECONDS);
+        assertThat(urgent.isSuccessful(), is(true));
+    }
+
+    /**
+     * Creates a message queue with a mailbox capacity of 3 and the specified overflow policy.
+     */
+    private CentralMessageQueue bounded(final String policy, final int patience) {
+        final Duration timeout =
+                patience == 0 ? Duration.of(5, SECONDS) : Duration.of(patience, MILLISECONDS);
+        return new CentralMessageQueue(
+                new Options().execution("Threads", 0).capacity(3, 0, policy, timeout));
+    }
+
+    /**
+     * Fills the mailbox of the specified agent to its capacity, with the first request stuck at
+     * the gate.
+     */
+    private List<Request> fill(final CentralMessageQueue testee, final GatedAgent agent)
+            throws InterruptedException {
+        final List<Request> result = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) result.add(testee.inject(new BasicRequest(agent, agent)));
+        agent.awaitFirst();
+        return result;
+    }
+
+    private static class UrgentRequest extends BasicRequest {
+
+        UrgentRequest(final GatedAgent agent) {
+            super(agent, agent);
+        }
+
+        @Override public boolean isUrgent() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.annotation.Nullable;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coracore.time.Duration;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.coractrl.trouble.MessageQueueDisabledException;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueShutdownTest {
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void shutdownShouldWaitForTheLocksAndDrainTheQueue() throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0));
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch followUps = new CountDownLatch(3);
+        final Agent sink = new Agent(new CountDownLatch(0), followUps, null, testee);
+        final Agent agent = new Agent(gate, new CountDownLatch(3), sink, testee);
+        for (int i = 0; i < 3; ++i) testee.inject(new BasicMessage(agent, agent));
+        testee.preventShutdown();
+        final Thread shutdown = new Thread(testee::shutDown);
+        shutdown.start();
+        Thread.sleep(50);
+        assertThat(testee.draining, is(false));
+        final long start = System.nanoTime();
+        testee.allowShutdown();
+        while (!testee.draining) Thread.yield();
+        assertThat(System.nanoTime() - start < MILLISECONDS.toNanos(100), is(true));
+        try {
+            testee.inject(new BasicMessage(agent, agent));
+            throw new AssertionError("New traffic should have been rejected.");
+        } catch (MessageQueueDisabledException e) {
+            // expected
+        }
+        gate.countDown();
+        shutdown.join(5000);
+        assertThat(shutdown.isAlive(), is(false));
+        assertThat(followUps.getCount(), is(0L));
+        assertThat(testee.getQueueDepth(), is(0));
+    }
+
+    @Test public void shutdownShouldNotWaitForTheLocksBeyondTheTimeout()
+            throws InterruptedException {
+        final CentralMessageQueue testee = new CentralMessageQueue(
+                new Options().execution("Threads", 0).shutdown(Duration.of(100, MILLISECONDS)));
+        testee.preventShutdown();
+        final long start = System.nanoTime();
+        final Thread shutdown = new Thread(testee::shutDown);
+        shutdown.start();
+        shutdown.join(5000);
+        assertThat(shutdown.isAlive(), is(false));
+        assertThat(System.nanoTime() - start >= MILLISECONDS.toNanos(100), is(true));
+        assertThat(testee.running, is(false));
+        assertThat(testee.getShutdownLockCount(), is(1));
+    }
+
+    @Test public void interruptedShutdownShouldStopAtOnce() throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0));
+        final Agent agent = new Agent(new CountDownLatch(1), new CountDownLatch(1), null, testee);
+        testee.inject(new BasicMessage(agent, agent));
+        final Thread shutdown = new Thread(testee::shutDown);
+        shutdown.start();
+        shutdown.interrupt();
+        shutdown.join(5000);
+        assertThat(shutdown.isAlive(), is(false));
+        assertThat(testee.running, is(false));
+    }
+
+    /**
+     * An agent that waits for its gate on every message and then passes a follow-up on to its
+     * successor, if it has one.
+     */
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        private final CountDownLatch gate;
+        private final CountDownLatch done;
+        private final @Nullable Agent next;
+        private final CentralMessageQueue queue;
+
+        Agent(final CountDownLatch gate, final CountDownLatch done, final @Nullable Agent next,
+                final CentralMessageQueue queue) {
+            this.gate = gate;
+            this.done = done;
+            this.next = next;
+            this.queue = queue;
+        }
+
+        @Override public void onMessage(final Message message) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next != null) queue.inject(new BasicMessage(this, next));
+            done.countDown();
+        }
+
+        @Override public String getRecipientId() {
+            return "Agent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
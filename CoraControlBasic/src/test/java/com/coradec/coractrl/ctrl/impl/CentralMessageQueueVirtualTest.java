@@ -0,0 +1,123 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+import static org.junit.Assume.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coracore.util.ExecUtil;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueVirtualTest {
+
+    private static final int MESSAGES = 200;
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void virtualThreadsShouldDeliverExclusively() throws Exception {
+        assumeTrue(virtualThreadsAvailable());
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Virtual", 0));
+        assertThat(testee.virtualThreads, is(notNullValue()));
+        final Agent agent = deliverTo(testee);
+        assertThat(agent.overlaps.get(), is(0));
+        for (final Thread thread : agent.threads) assertThat(isVirtual(thread), is(true));
+    }
+
+    @Test public void withoutVirtualThreadsTheProcessorsShouldDeliver() throws Exception {
+        assumeFalse(virtualThreadsAvailable());
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Virtual", 0));
+        assertThat(testee.virtualThreads, is(nullValue()));
+        final Agent agent = deliverTo(testee);
+        assertThat(agent.overlaps.get(), is(0));
+        for (final Thread thread : agent.threads)
+            assertThat(testee.processors.contains(thread), is(true));
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        return ExecUtil.getVirtualThreadFactory("Probe").isPresent();
+    }
+
+    /**
+     * Tells whether the specified thread is virtual; looked up reflectively so the test compiles
+     * for runtimes without virtual threads.
+     */
+    private static boolean isVirtual(final Thread thread) throws Exception {
+        return (Boolean)Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    private Agent deliverTo(final CentralMessageQueue testee) throws InterruptedException {
+        final Agent agent = new Agent();
+        for (int i = 0; i < MESSAGES; ++i) testee.inject(new BasicMessage(agent, agent));
+        assertThat(agent.done.await(10, SECONDS), is(true));
+        return agent;
+    }
+
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        private final CountDownLatch done = new CountDownLatch(MESSAGES);
+        private final AtomicInteger busy = new AtomicInteger();
+        private final AtomicInteger overlaps = new AtomicInteger();
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        @Override public void onMessage(final Message message) {
+            if (busy.incrementAndGet() != 1) overlaps.incrementAndGet();
+            threads.add(Thread.currentThread());
+            busy.decrementAndGet();
+            done.countDown();
+        }
+
+        @Override public String getRecipientId() {
+            return "VirtualAgent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.impl.BasicMessage;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracore.annotation.Nullable;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.coractrl.ctrl.impl.CentralMessageQueue.Options;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class CentralMessageQueueWatchdogTest {
+
+    private static final long THRESHOLD = MILLISECONDS.toNanos(20);
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void stalledTargetShouldBeReportedOnceWithTheStackOfItsWorker()
+            throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0).watchdog(true));
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Agent agent = new Agent(testee, gate, null);
+        testee.inject(new BasicMessage(agent, agent));
+        testee.inject(new BasicMessage(agent, agent));
+        assertThat(agent.entered.await(5, SECONDS), is(true));
+        Thread.sleep(50);
+        final List<StallAlert> alerts = testee.inspect(THRESHOLD);
+        gate.countDown();
+        assertThat(alerts.size(), is(2));
+        final StallAlert running = alerts.get(0);
+        assertThat(running.getKind(), is(StallAlert.Kind.RUNNING));
+        assertThat(running.getTargets(), is(Arrays.<Object>asList(agent)));
+        assertThat(running.getAge() > THRESHOLD, is(true));
+        assertThat(Arrays.stream(running.getStack())
+                         .anyMatch(frame -> frame.getMethodName().equals("onMessage")), is(true));
+        final StallAlert waiting = alerts.get(1);
+        assertThat(waiting.getKind(), is(StallAlert.Kind.WAITING));
+        assertThat(waiting.getQueued(), is(2));
+        assertThat(waiting.getWorker(), is(running.getWorker()));
+        assertThat(testee.inspect(THRESHOLD).isEmpty(), is(true));
+    }
+
+    @Test public void agentsStandingByForEachOtherShouldBeReportedAsDeadlocked()
+            throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0).watchdog(true));
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Agent first = new Agent(testee, gate, null);
+        final Agent second = new Agent(testee, gate, first);
+        first.peer = second;
+        testee.inject(new BasicMessage(first, first));
+        testee.inject(new BasicMessage(second, second));
+        assertThat(first.entered.await(5, SECONDS), is(true));
+        assertThat(second.entered.await(5, SECONDS), is(true));
+        gate.countDown();
+        Thread.sleep(50);
+        final StallAlert deadlock = testee.inspect(THRESHOLD)
+                                          .stream()
+                                          .filter(alert -> alert.getKind() ==
+                                                           StallAlert.Kind.DEADLOCKED)
+                                          .findFirst()
+                                          .orElseThrow(AssertionError::new);
+        assertThat(new HashSet<>(deadlock.getTargets()),
+                is(new HashSet<>(Arrays.<Object>asList(first, second))));
+        assertThat(testee.inspect(THRESHOLD).isEmpty(), is(true));
+    }
+
+    @Test public void agentStandingByForItselfShouldBeReportedAsDeadlocked()
+            throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0).watchdog(true));
+        final Agent agent = new Agent(testee, new CountDownLatch(0), null);
+        agent.peer = agent;
+        testee.inject(new BasicMessage(agent, agent));
+        assertThat(agent.entered.await(5, SECONDS), is(true));
+        Thread.sleep(50);
+        assertThat(testee.inspect(THRESHOLD)
+                         .stream()
+                         .anyMatch(alert -> alert.getKind() == StallAlert.Kind.DEADLOCKED &&
+                                            alert.getTargets().equals(Arrays.asList(agent))),
+                is(true));
+    }
+
+    @Test public void producersDeliveringInlineShouldNotBeTrackedAsWorkers()
+            throws InterruptedException {
+        final CentralMessageQueue testee =
+                new CentralMessageQueue(new Options().execution("Threads", 0).watchdog(true));
+        testee.inlineDepth = 1;
+        final Agent agent = new Agent(testee, new CountDownLatch(0), null);
+        for (int i = 0; i < 50; ++i) {
+            final Thread producer = new Thread(
+                    () -> testee.inject(new BasicRequest(agent, agent)).standby(5, SECONDS));
+            producer.start();
+            producer.join();
+        }
+        assertThat(testee.workers.size() <= testee.processors.size(), is(true));
+    }
+
+    /**
+     * An agent that waits for its gate on every message but requests, and then, if it has a peer,
+     * stands by for a request to the peer for a while.
+     */
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        private final CentralMessageQueue queue;
+        private final CountDownLatch gate;
+        @Nullable Agent peer;
+
+        Agent(final CentralMessageQueue queue, final CountDownLatch gate,
+                final @Nullable Agent peer) {
+            this.queue = queue;
+            this.gate = gate;
+            this.peer = peer;
+        }
+
+        @Override public void onMessage(final Message message) {
+            if (message instanceof BasicRequest) {
+                ((BasicRequest)message).succeed();
+                return;
+            }
+            entered.countDown();
+            try {
+                gate.await();
+                if (peer != null) queue.inject(new BasicRequest(this, peer)).standby(1, SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // timed out, as expected
+            }
+        }
+
+        @Override public String getRecipientId() {
+            return "Agent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeadlineQueueTest {
+
+    private final DeadlineQueue<String> testee = new DeadlineQueue<>(
+            element -> element.length() > 1 ? Long.parseLong(element.substring(1)) : Long.MAX_VALUE);
+
+    @Test public void earliestDeadlineShouldComeFirst() {
+        testee.add("a30");
+        testee.add("b10");
+        testee.add("c20");
+        assertThat(testee.peek(), is("b10"));
+        assertThat(drain(), is("[b10, c20, a30]"));
+        assertThat(testee.isEmpty(), is(true));
+    }
+
+    @Test public void elementsWithoutOrWithTheSameDeadlineShouldStayInOrder() {
+        testee.add("x");
+        testee.add("a5");
+        testee.add("y");
+        testee.add("b5");
+        testee.add("z");
+        testee.add("c1");
+        assertThat(drain(), is("[c1, a5, b5, x, y, z]"));
+    }
+
+    private String drain() {
+        final List<String> result = new ArrayList<>();
+        String element;
+        while ((element = testee.poll()) != null) result.add(element);
+        return result.toString();
+    }
+
+}
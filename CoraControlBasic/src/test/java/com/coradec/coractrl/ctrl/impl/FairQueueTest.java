@@ -0,0 +1,83 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FairQueueTest {
+
+    private final Map<Object, Integer> weights = new HashMap<>();
+    private final FairQueue<String> testee =
+            new FairQueue<>(element -> element.length() > 1 ? element.substring(0, 1) : null,
+                    group -> weights.getOrDefault(group, 1));
+
+    @Test public void groupsShouldTakeTurns() {
+        for (int i = 0; i < 4; ++i) testee.add("a" + i);
+        testee.add("b0");
+        testee.add("b1");
+        testee.add("x");
+        assertThat(drain(), is("[a0, b0, x, a1, b1, a2, a3]"));
+        assertThat(testee.isEmpty(), is(true));
+    }
+
+    @Test public void groupsShouldBeServedAccordingToTheirWeights() {
+        weights.put("a", 3);
+        for (int i = 0; i < 6; ++i) testee.add("a" + i);
+        for (int i = 0; i < 3; ++i) testee.add("b" + i);
+        assertThat(drain(), is("[a0, a1, a2, b0, a3, a4, a5, b1, b2]"));
+    }
+
+    @Test public void lateGroupShouldWaitAtMostOneRound() {
+        weights.put("a", 2);
+        for (int i = 0; i < 100; ++i) testee.add("a" + i);
+        testee.poll();
+        testee.add("b0");
+        assertThat(testee.poll(), is("a1"));
+        assertThat(testee.poll(), is("b0"));
+        assertThat(testee.size(), is(98));
+    }
+
+    @Test public void groupBecomingIdleShouldStartAfresh() {
+        weights.put("a", 2);
+        testee.add("a0");
+        assertThat(testee.poll(), is("a0"));
+        testee.add("b0");
+        testee.add("a1");
+        testee.add("a2");
+        testee.add("a3");
+        assertThat(drain(), is("[b0, a1, a2, a3]"));
+    }
+
+    private String drain() {
+        final List<String> result = new ArrayList<>();
+        String element;
+        while ((element = testee.poll()) != null) result.add(element);
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ​​A test agent that holds the messages delivered to it at a gate until the gate is opened, so
+ * that the following messages pile up in its mailbox.  It records every message passing the gate
+ * and lets requests succeed.
+ */
+class GatedAgent extends AutoOrigin implements Origin, Recipient {
+
+    private final Semaphore gate = new Semaphore(0);
+    private final Semaphore arrived = new Semaphore(0);
+    private final Semaphore passed = new Semaphore(0);
+    final List<Message> delivered = new CopyOnWriteArrayList<>();
+
+    @Override public void onMessage(final Message message) {
+        arrived.release();
+        try {
+            gate.acquire();
+            gate.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delivered.add(message);
+        if (message instanceof Request) ((Request)message).succeed();
+        passed.release();
+    }
+
+    /**
+     * Waits until the first message arrived at the gate.
+     */
+    void awaitFirst() throws InterruptedException {
+        assertThat(arrived.tryAcquire(5, SECONDS), is(true));
+    }
+
+    /**
+     * Waits until the specified number of messages passed the gate.
+     *
+     * @param count the number of messages.
+     */
+    void awaitDelivered(final int count) throws InterruptedException {
+        assertThat(passed.tryAcquire(count, 5, SECONDS), is(true));
+    }
+
+    /**
+     * Opens the gate for good.
+     */
+    void open() {
+        gate.release();
+    }
+
+    @Override public String getRecipientId() {
+        return "GatedAgent";
+    }
+
+    @Override public String represent() {
+        return getClass().getSimpleName();
+    }
+
+    @Override public URI toURI() {
+        return URI.create(represent());
+    }
+
+}
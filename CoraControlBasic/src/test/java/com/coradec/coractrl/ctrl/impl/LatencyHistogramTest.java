@@ -0,0 +1,74 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram testee = new LatencyHistogram();
+
+    @Test public void bucketsShouldCoverEveryValueWithinTwentyFivePercent() {
+        long value = 1;
+        while (value > 0) {
+            for (final long v : new long[] {value - 1, value, value + value / 3}) {
+                if (v < 0) continue;
+                final int index = LatencyHistogram.indexOf(v);
+                assertThat(index < LatencyHistogram.BUCKETS, is(true));
+                final long upper = LatencyHistogram.upperBoundOf(index);
+                assertThat(upper >= v, is(true));
+                assertThat(upper - v <= v / 4 + 1, is(true));
+                if (index > 0)
+                    assertThat(LatencyHistogram.upperBoundOf(index - 1) < v, is(true));
+            }
+            value <<= 1;
+        }
+        assertThat(LatencyHistogram.indexOf(Long.MAX_VALUE) < LatencyHistogram.BUCKETS, is(true));
+    }
+
+    @Test public void percentilesShouldReflectTheRecordedValues() {
+        for (int i = 1; i <= 1000; ++i) testee.record(i * 1000L);
+        assertThat(testee.getCount(), is(1000L));
+        assertThat(testee.getMax(), is(1000000L));
+        assertThat(testee.getMean(), is(500500.0));
+        final long p50 = testee.getPercentile(50);
+        assertThat(p50 >= 500000 && p50 <= 625000, is(true));
+        final long p99 = testee.getPercentile(99);
+        assertThat(p99 >= 990000 && p99 <= 1000000, is(true));
+        assertThat(testee.getPercentile(100), is(1000000L));
+    }
+
+    @Test public void snapshotShouldBeDetachedFromTheHistogram() {
+        testee.record(42);
+        testee.record(-5);
+        final LatencyHistogram snapshot = testee.snapshot();
+        testee.reset();
+        testee.record(7);
+        assertThat(snapshot.getCount(), is(2L));
+        assertThat(snapshot.getTotal(), is(42L));
+        assertThat(snapshot.getMax(), is(42L));
+        assertThat(testee.getCount(), is(1L));
+        assertThat(testee.getMax(), is(7L));
+    }
+
+}
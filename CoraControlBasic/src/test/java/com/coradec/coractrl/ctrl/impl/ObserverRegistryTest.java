@@ -0,0 +1,107 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.ctrl.Observer;
+import com.coradec.coracom.model.Information;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ObserverRegistryTest {
+
+    private final ObserverRegistry testee = new ObserverRegistry();
+
+    @Test public void observersShouldOnlyResolveForTheirInterests() {
+        final Observer any = new TestObserver(Information.class);
+        final Observer a = new TestObserver(EventA.class);
+        final Observer b = new TestObserver(EventB.class);
+        final Observer other = new TestObserver(Other.class);
+        testee.add(any);
+        testee.add(a);
+        testee.add(b);
+        testee.add(other);
+        assertThat(testee.resolve(EventA.class), is(equalTo(Arrays.asList(any, a))));
+        assertThat(testee.resolve(EventB.class), is(equalTo(Arrays.asList(any, a, b))));
+        assertThat(testee.resolve(Other.class), is(equalTo(Arrays.asList(any, other))));
+        assertThat(testee.resolve(Information.class), is(equalTo(Collections.singletonList(any))));
+    }
+
+    @Test public void subscriptionChangesShouldInvalidateResolvedObservers() {
+        final Observer a = new TestObserver(EventA.class);
+        final Observer b = new TestObserver(EventA.class);
+        testee.add(a);
+        assertThat(testee.resolve(EventB.class), is(equalTo(Collections.singletonList(a))));
+        testee.add(b);
+        assertThat(testee.resolve(EventB.class), is(equalTo(Arrays.asList(a, b))));
+        assertThat(testee.remove(a), is(true));
+        assertThat(testee.remove(a), is(false));
+        assertThat(testee.resolve(EventB.class), is(equalTo(Collections.singletonList(b))));
+        assertThat(testee.size(), is(1));
+    }
+
+    @Test public void observerWithMultipleMatchingInterestsShouldResolveOnce() {
+        final Observer both = new TestObserver(EventA.class, EventB.class);
+        testee.add(both);
+        assertThat(testee.resolve(EventB.class), is(equalTo(Collections.singletonList(both))));
+    }
+
+    private interface EventA extends Information {
+
+    }
+
+    private interface EventB extends EventA {
+
+    }
+
+    private interface Other extends Information {
+
+    }
+
+    private static class TestObserver implements Observer {
+
+        private final Set<Class<?>> interests;
+
+        TestObserver(final Class<?>... interests) {
+            this.interests = new HashSet<>(Arrays.asList(interests));
+        }
+
+        @Override public boolean notify(final Information info) {
+            return false;
+        }
+
+        @Override public boolean wants(final Information info) {
+            return true;
+        }
+
+        @Override public Set<Class<?>> getInterests() {
+            return interests;
+        }
+
+    }
+
+}
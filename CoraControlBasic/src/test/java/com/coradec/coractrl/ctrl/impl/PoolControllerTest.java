@@ -0,0 +1,159 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.corajet.cldr.Syslog;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+public class PoolControllerTest {
+
+    private static final long MS = 1000000;
+    private static final int LOW_WATER_MARK = 3;
+    private static final int HIGH_WATER_MARK = 20;
+    private static final long TICK = MS / 10;
+    private static final long INTERVAL = 50 * MS;
+    private static final long TARGET_WAIT = 2 * MS;
+    private static final long PATIENCE = 20000 * MS;
+
+    private final PoolController testee =
+            new PoolController(LOW_WATER_MARK, HIGH_WATER_MARK, TARGET_WAIT, 0.5);
+
+    @Test public void poolShouldGrowByTheBacklogWhileMessagesWaitTooLong() {
+        assertThat(testee.adjust(4, 3 * MS, 1.0, 5), is(9));
+        assertThat(testee.adjust(18, 3 * MS, 1.0, 5), is(HIGH_WATER_MARK));
+    }
+
+    @Test public void poolShouldHoldWhenNothingIsWaiting() {
+        assertThat(testee.adjust(8, 3 * MS, 1.0, 0), is(8));
+        assertThat(testee.adjust(8, MS, 0.9, 2), is(8));
+    }
+
+    @Test public void poolShouldShrinkByAQuarterWhileMostlyIdle() {
+        assertThat(testee.adjust(16, MS, 0.1, 0), is(12));
+        assertThat(testee.adjust(5, 0, 0.0, 0), is(4));
+        assertThat(testee.adjust(4, 0, 0.0, 0), is(LOW_WATER_MARK));
+        assertThat(testee.adjust(LOW_WATER_MARK, 0, 0.0, 0), is(LOW_WATER_MARK));
+    }
+
+    /**
+     * Replays the same seeded load — steady traffic with bursts and occasional long-running
+     * handlers — against the boost heuristic and the adaptive controller, and compares the waits.
+     */
+    @Test public void adaptiveControlShouldCutTheTailWaitUnderBurstyLoad() {
+        final LatencyHistogram boost = simulate(null);
+        final LatencyHistogram adaptive = simulate(testee);
+        Syslog.info("Simulated queue wait p50/p99.9/max: boost %d/%d/%d µs, adaptive %d/%d/%d µs.",
+                boost.getPercentile(50) / 1000, boost.getPercentile(99.9) / 1000,
+                boost.getMax() / 1000, adaptive.getPercentile(50) / 1000,
+                adaptive.getPercentile(99.9) / 1000, adaptive.getMax() / 1000);
+        assertThat(adaptive.getCount(), is(boost.getCount()));
+        assertThat(adaptive.getPercentile(99.9) < boost.getPercentile(99.9), is(true));
+        assertThat(adaptive.getMax() < boost.getMax(), is(true));
+    }
+
+    /**
+     * Runs a discrete-time model of the message processor pool for ten seconds of load and one
+     * more to drain the queue.
+     *
+     * @param controller the pool controller, or {@code null} to model the boost heuristic.
+     * @return the distribution of the time messages waited for a processor.
+     */
+    private static LatencyHistogram simulate(final PoolController controller) {
+        final Random random = new Random(4711);
+        final LatencyHistogram waits = new LatencyHistogram();
+        final Deque<long[]> ready = new ArrayDeque<>();
+        final long[] busyUntil = new long[HIGH_WATER_MARK];
+        final long[] idleSince = new long[HIGH_WATER_MARK];
+        final boolean[] alive = new boolean[HIGH_WATER_MARK];
+        int workers = LOW_WATER_MARK;
+        int target = LOW_WATER_MARK;
+        for (int i = 0; i < workers; ++i) alive[i] = true;
+        long waitSum = 0, waitCount = 0, busy = 0;
+        for (long now = 0; now < 11000 * MS; now += TICK) {
+            int arrivals = now < 10000 * MS && random.nextInt(100) < 5 ? 1 : 0;
+            if (now < 10000 * MS && now % (1000 * MS) == 500 * MS) arrivals += 40;
+            for (int i = 0; i < arrivals; ++i) {
+                final long service = random.nextInt(100) < 4 ? 150 * MS : MS;
+                ready.add(new long[] {now, service});
+                final int spare = controller == null ? workers : idle(alive, busyUntil, now);
+                if (ready.size() > spare && workers < HIGH_WATER_MARK)
+                    workers = start(alive, idleSince, busyUntil, now, workers);
+            }
+            for (int i = 0; i < HIGH_WATER_MARK; ++i) {
+                if (!alive[i]) continue;
+                if (busyUntil[i] > now) {
+                    busy += TICK;
+                    continue;
+                }
+                if (busyUntil[i] == now) idleSince[i] = now;
+                final long[] message = ready.poll();
+                if (message != null) {
+                    final long wait = now - message[0];
+                    waits.record(wait);
+                    waitSum += wait;
+                    ++waitCount;
+                    busyUntil[i] = now + message[1];
+                    busy += TICK;
+                } else if (controller == null
+                           ? now - idleSince[i] >= PATIENCE && workers > LOW_WATER_MARK
+                           : now - idleSince[i] >= INTERVAL && workers > target) {
+                    alive[i] = false;
+                    --workers;
+                }
+            }
+            if (controller != null && now % INTERVAL == 0 && now != 0) {
+                final long meanWait =
+                        waitCount != 0 ? waitSum / waitCount : ready.isEmpty() ? 0 : INTERVAL;
+                final double utilization = (double)busy / ((double)INTERVAL * workers);
+                target = controller.adjust(workers, meanWait, utilization, ready.size());
+                while (workers < target) workers = start(alive, idleSince, busyUntil, now, workers);
+                waitSum = waitCount = busy = 0;
+            }
+        }
+        return waits;
+    }
+
+    private static int idle(final boolean[] alive, final long[] busyUntil, final long now) {
+        int result = 0;
+        for (int i = 0; i < alive.length; ++i) if (alive[i] && busyUntil[i] <= now) ++result;
+        return result;
+    }
+
+    private static int start(final boolean[] alive, final long[] idleSince, final long[] busyUntil,
+            final long now, final int workers) {
+        for (int i = 0; i < alive.length; ++i) {
+            if (!alive[i]) {
+                alive[i] = true;
+                idleSince[i] = now;
+                busyUntil[i] = now;
+                break;
+            }
+        }
+        return workers + 1;
+    }
+
+}
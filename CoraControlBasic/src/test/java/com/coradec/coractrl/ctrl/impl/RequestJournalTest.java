@@ -0,0 +1,173 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class RequestJournalTest {
+
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private Path directory;
+
+    @Before public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @After public void teardown() throws IOException {
+        for (final Path file : files()) Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Test public void incompleteEntriesShouldBeRecoveredInOrder() throws InterruptedException {
+        final UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+        try (RequestJournal testee = new RequestJournal(directory, 4096, FLUSH_INTERVAL)) {
+            testee.append(a, entry("A"));
+            testee.append(b, entry("B"));
+            testee.commit(testee.append(c, entry("C")));
+            testee.complete(b);
+            assertThat(testee.size(), is(2));
+        }
+        try (RequestJournal testee = new RequestJournal(directory, 4096, FLUSH_INTERVAL)) {
+            final Map<UUID, Map<String, Object>> recovered = testee.getRecovered();
+            assertThat(new ArrayList<>(recovered.keySet()), is(Arrays.asList(a, c)));
+            assertThat(recovered.get(c), is(entry("C")));
+            testee.discardRecovered();
+        }
+        assertThat(files().isEmpty(), is(true));
+    }
+
+    @Test public void segmentsShouldBeDeletedOnceTheirEntriesAreComplete() {
+        try (RequestJournal testee = new RequestJournal(directory, 256, FLUSH_INTERVAL)) {
+            final UUID first = UUID.randomUUID();
+            testee.append(first, entry("first"));
+            for (int i = 0; i < 100; ++i) {
+                final UUID id = UUID.randomUUID();
+                testee.append(id, entry("entry " + i));
+                testee.complete(id);
+            }
+            // the segment of the first entry holds back the newer ones
+            assertThat(files().size() > 2, is(true));
+            testee.complete(first);
+            assertThat(files().size(), is(1));
+        }
+        assertThat(files().isEmpty(), is(true));
+    }
+
+    @Test public void completionMarksShouldOutliveTheSegmentsOfTheirEntries() {
+        final UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+        final UUID d = UUID.randomUUID();
+        // every segment takes two entries of 41 bytes, or one entry and two marks of 25 bytes
+        try (RequestJournal testee = new RequestJournal(directory, 100, FLUSH_INTERVAL)) {
+            testee.append(a, entry("A"));
+            testee.append(c, entry("C"));
+            testee.append(b, entry("B"));
+            testee.complete(a);
+            testee.complete(b);
+            testee.append(d, entry("D"));
+            assertThat(files().size(), is(3));
+        }
+        try (RequestJournal testee = new RequestJournal(directory, 100, FLUSH_INTERVAL)) {
+            assertThat(new ArrayList<>(testee.getRecovered().keySet()), is(Arrays.asList(c, d)));
+            testee.discardRecovered();
+        }
+        assertThat(files().isEmpty(), is(true));
+    }
+
+    @Test public void tornRecordShouldEndTheRecovery() throws IOException {
+        final UUID a = UUID.randomUUID(), b = UUID.randomUUID();
+        try (RequestJournal testee = new RequestJournal(directory, 4096, FLUSH_INTERVAL)) {
+            testee.append(a, entry("A"));
+            testee.append(b, entry("B"));
+        }
+        final Path segment = files().get(0);
+        try (FileChannel channel = FileChannel.open(segment, READ, WRITE)) {
+            final ByteBuffer record = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(record, 0);
+            final int length = ((ByteBuffer)record.flip()).getInt();
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), Integer.BYTES + length + 40);
+        }
+        try (RequestJournal testee = new RequestJournal(directory, 4096, FLUSH_INTERVAL)) {
+            assertThat(new ArrayList<>(testee.getRecovered().keySet()),
+                    is(Collections.singletonList(a)));
+            testee.discardRecovered();
+        }
+    }
+
+    @Test public void concurrentCommitsShouldAllBeServed() throws Exception {
+        final ExecutorService producers = Executors.newFixedThreadPool(8);
+        try (RequestJournal testee = new RequestJournal(directory, 1 << 20, FLUSH_INTERVAL)) {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                results.add(producers.submit(() -> {
+                    for (int j = 0; j < 500; ++j)
+                        testee.commit(testee.append(UUID.randomUUID(), entry("entry " + j)));
+                    return null;
+                }));
+            }
+            for (final Future<?> result : results) result.get(30, TimeUnit.SECONDS);
+            assertThat(testee.size(), is(4000));
+        } finally {
+            producers.shutdown();
+        }
+        try (RequestJournal testee = new RequestJournal(directory, 1 << 20, FLUSH_INTERVAL)) {
+            assertThat(testee.getRecovered().size(), is(4000));
+            testee.discardRecovered();
+        }
+    }
+
+    private static Map<String, Object> entry(final String value) {
+        return Collections.singletonMap("Value", value);
+    }
+
+    private List<Path> files() {
+        final List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (final Path file : files) result.add(file);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.ctrl.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class TimingWheelTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<String> released = new ArrayList<>();
+    private final TimingWheel<String> testee = new TimingWheel<>(1, MILLISECONDS, 8, 2, () -> {});
+
+    private void runDown(final TimingWheel<String> wheel, final long maxMillis) {
+        final long deadline = System.currentTimeMillis() + maxMillis;
+        while (wheel.size() > 0 && System.currentTimeMillis() < deadline) {
+            final long wait = wheel.advance(batch -> {
+                batches.add(batch);
+                released.addAll(batch);
+            });
+            LockSupport.parkNanos(Math.min(wait, MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    @Test public void elementsShouldExpireInDeadlineOrder() {
+        final long then = System.currentTimeMillis();
+        testee.schedule("C", 30, MILLISECONDS);
+        testee.schedule("A", 5, MILLISECONDS);
+        testee.schedule("D", 150, MILLISECONDS); // beyond the range of the wheel: overflow
+        testee.schedule("B", 20, MILLISECONDS);
+        runDown(testee, 2000);
+        assertThat(released, is(equalTo(Arrays.asList("A", "B", "C", "D"))));
+        assertThat(System.currentTimeMillis() - then >= 150, is(true));
+        assertThat(testee.size(), is(0));
+    }
+
+    @Test public void cancelledElementsShouldNotExpire() {
+        final TimingWheel.Timeout<String> a = testee.schedule("A", 10, MILLISECONDS);
+        final TimingWheel.Timeout<String> b = testee.schedule("B", 40, MILLISECONDS);
+        testee.advance(released::addAll);
+        assertThat(b.cancel(), is(true));
+        assertThat(b.cancel(), is(false));
+        runDown(testee, 1000);
+        assertThat(released, is(equalTo(Arrays.asList("A"))));
+        assertThat(a.isExpired(), is(true));
+        assertThat(a.cancel(), is(false));
+        assertThat(b.isCancelled(), is(true));
+    }
+
+    @Test public void handleCreatedAheadShouldBeCancellableBeforeScheduling() {
+        final TimingWheel.Timeout<String> a = testee.timeout("A", 0, MILLISECONDS);
+        final TimingWheel.Timeout<String> b = testee.timeout("B", 0, MILLISECONDS);
+        assertThat(testee.size(), is(2));
+        assertThat(a.cancel(), is(true));
+        testee.schedule(a);
+        testee.schedule(b);
+        runDown(testee, 1000);
+        assertThat(released, is(equalTo(Arrays.asList("B"))));
+        assertThat(testee.size(), is(0));
+    }
+
+    @Test public void elementsDueInTheSameTickShouldBeReleasedAsOneBatch() {
+        final TimingWheel<String> wheel =
+                new TimingWheel<>(100, MILLISECONDS, 8, 2, () -> {});
+        for (int i = 0; i < 100; ++i) wheel.schedule(String.valueOf(i), 10, MILLISECONDS);
+        runDown(wheel, 1000);
+        assertThat(batches.size(), is(1));
+        assertThat(batches.get(0).size(), is(100));
+        assertThat(wheel.size(), is(0));
+    }
+
+    @Test public void newElementDueBeforeTheWakeupShouldRaiseTheAlarm() {
+        final List<String> alarms = new ArrayList<>();
+        final TimingWheel<String> wheel =
+                new TimingWheel<>(1, SECONDS, 8, 2, () -> alarms.add("alarm"));
+        wheel.schedule("late", 100, SECONDS);
+        final long wait = wheel.advance(batches::add);
+        assertThat(wait > 0, is(true));
+        alarms.clear();
+        wheel.schedule("early", 0, SECONDS);
+        assertThat(alarms.size(), is(1));
+        wheel.schedule("later", 200, SECONDS);
+        assertThat(alarms.size(), is(1));
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.model.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracom.trouble.RequestFailedException;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coracore.trouble.OperationTimedoutException;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class BasicRequestCompletionTest {
+
+    private static final int ROUNDS = 500;
+    private static final Agent AGENT = new Agent();
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void concurrentCompletionShouldHaveExactlyOneWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; ++round) {
+            final Request request = new BasicRequest(AGENT, AGENT);
+            final AtomicInteger successes = new AtomicInteger();
+            final AtomicInteger failures = new AtomicInteger();
+            request.andThen(successes::incrementAndGet).orElse(e -> failures.incrementAndGet());
+            final CyclicBarrier start = new CyclicBarrier(3);
+            final Thread succeeder = race(start, request::succeed);
+            final Thread failer = race(start, () -> request.fail(new IllegalStateException()));
+            final Thread canceller = race(start, request::cancel);
+            succeeder.join();
+            failer.join();
+            canceller.join();
+            assertThat(successes.get() + failures.get(), is(1));
+            assertThat(request.isSuccessful(), is(successes.get() == 1));
+            assertThat(request.isFailed() || request.isCancelled(), is(failures.get() == 1));
+        }
+    }
+
+    @Test public void callbacksRacingCompletionShouldRunExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; ++round) {
+            final Request request = new BasicRequest(AGENT, AGENT);
+            final AtomicInteger calls = new AtomicInteger();
+            final CyclicBarrier start = new CyclicBarrier(2);
+            final Thread registrar = race(start, () -> {
+                for (int i = 0; i < 10; ++i) request.andThen(calls::incrementAndGet);
+            });
+            final Thread completer = race(start, request::succeed);
+            registrar.join();
+            completer.join();
+            assertThat(calls.get(), is(10));
+        }
+    }
+
+    @Test public void waitersShouldBeReleasedOnCompletion() throws Exception {
+        final Request request = new BasicRequest(AGENT, AGENT);
+        final CountDownLatch released = new CountDownLatch(4);
+        for (int i = 0; i < 4; ++i) {
+            final Thread waiter = new Thread(() -> {
+                try {
+                    request.standby(5, SECONDS);
+                    released.countDown();
+                } catch (Exception e) {
+                    // leaves the latch short
+                }
+            });
+            waiter.start();
+        }
+        request.succeed();
+        assertThat(released.await(5, SECONDS), is(true));
+        assertThat(request.standby(), is(request));
+    }
+
+    @Test public void standbyOnFailedOrPendingRequestShouldThrow() throws InterruptedException {
+        final Request failed = new BasicRequest(AGENT, AGENT);
+        failed.fail(new IllegalStateException());
+        try {
+            failed.standby();
+            Assert.fail("Expected RequestFailedException");
+        } catch (RequestFailedException e) {
+            // expected that
+        }
+        try {
+            new BasicRequest(AGENT, AGENT).standby(10, MILLISECONDS);
+            Assert.fail("Expected OperationTimedoutException");
+        } catch (OperationTimedoutException e) {
+            // expected that
+        }
+    }
+
+    @Test public void renewalShouldKeepPendingCallbacksAndResetSettledRequests() {
+        final Request request = new BasicRequest(AGENT, AGENT);
+        final AtomicInteger calls = new AtomicInteger();
+        request.andThen(calls::incrementAndGet);
+        request.renew();
+        request.succeed();
+        assertThat(calls.get(), is(1));
+        request.renew();
+        assertThat(request.isSuccessful(), is(false));
+        request.andThen(calls::incrementAndGet);
+        assertThat(calls.get(), is(1));
+        request.succeed();
+        assertThat(calls.get(), is(2));
+    }
+
+    private static Thread race(final CyclicBarrier start, final Runnable action) {
+        final Thread thread = new Thread(() -> {
+            try {
+                start.await();
+            } catch (Exception e) {
+                return;
+            }
+            action.run();
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        @Override public void onMessage(final Message message) {
+        }
+
+        @Override public String getRecipientId() {
+            return "Agent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
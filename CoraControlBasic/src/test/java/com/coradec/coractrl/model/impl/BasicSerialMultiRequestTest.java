@@ -0,0 +1,162 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.model.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Independent;
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracom.model.impl.BasicSerialMultiRequest;
+import com.coradec.coracom.trouble.RequestFailedException;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class BasicSerialMultiRequestTest {
+
+    private static final ScheduledExecutorService COMPLETER = Executors.newScheduledThreadPool(4);
+
+    @AfterClass public static void teardownSuite() {
+        COMPLETER.shutdownNow();
+        SysControl.terminate();
+    }
+
+    @Test public void dependentSubRequestsShouldRunOneAfterAnotherInOrder()
+            throws InterruptedException {
+        final Agent agent = new Agent();
+        final List<Request> steps = new ArrayList<>();
+        for (int i = 0; i < 12; ++i) steps.add(new Step(agent, i, false));
+        final BasicSerialMultiRequest testee = new BasicSerialMultiRequest(agent, agent, steps);
+        testee.process().standby(10, SECONDS);
+        assertThat(testee.isSuccessful(), is(true));
+        assertThat(agent.order.toString(), is("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11]"));
+        assertThat(agent.maxActive.get(), is(1));
+    }
+
+    @Test public void independentSubRequestsShouldRunInParallel() throws InterruptedException {
+        final Agent agent = new Agent();
+        final List<Request> steps = new ArrayList<>();
+        steps.add(new Step(agent, 0, false));
+        for (int i = 1; i <= 6; ++i) steps.add(new IndependentStep(agent, i));
+        steps.add(new Step(agent, 7, false));
+        final BasicSerialMultiRequest testee = new BasicSerialMultiRequest(agent, agent, steps);
+        testee.process().standby(10, SECONDS);
+        assertThat(testee.isSuccessful(), is(true));
+        assertThat(agent.order.get(0), is(0));
+        assertThat(agent.order.get(7), is(7));
+        assertThat(agent.maxActive.get() > 1, is(true));
+        assertThat(agent.startedAlone.toString(), is("[0, 7]"));
+    }
+
+    @Test public void failingSubRequestShouldStopTheSequence() throws InterruptedException {
+        final Agent agent = new Agent();
+        final List<Request> steps = new ArrayList<>();
+        for (int i = 0; i < 6; ++i) steps.add(new Step(agent, i, i == 2));
+        final BasicSerialMultiRequest testee = new BasicSerialMultiRequest(agent, agent, steps);
+        try {
+            testee.process().standby(10, SECONDS);
+            Assert.fail("Expected RequestFailedException");
+        } catch (RequestFailedException e) {
+            // expected that
+        }
+        assertThat(agent.order.toString(), is("[0, 1, 2]"));
+    }
+
+    private static class Step extends BasicRequest {
+
+        final int index;
+        final boolean failing;
+
+        Step(final Agent agent, final int index, final boolean failing) {
+            super(agent, agent);
+            this.index = index;
+            this.failing = failing;
+        }
+
+    }
+
+    private static class IndependentStep extends Step implements Independent {
+
+        IndependentStep(final Agent agent, final int index) {
+            super(agent, index, false);
+        }
+
+    }
+
+    /**
+     * Completes each step asynchronously a little later, so only the multi-request keeps the
+     * steps apart.
+     */
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final List<Integer> startedAlone = new CopyOnWriteArrayList<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        @Override public void onMessage(final Message message) {
+            if (!(message instanceof Step)) return;
+            final Step step = (Step)message;
+            order.add(step.index);
+            final int now = active.incrementAndGet();
+            if (now == 1 && !(step instanceof Independent)) startedAlone.add(step.index);
+            maxActive.accumulateAndGet(now, Math::max);
+            COMPLETER.schedule(() -> {
+                active.decrementAndGet();
+                if (step.failing) step.fail(new IllegalStateException());
+                else step.succeed();
+            }, 5, MILLISECONDS);
+        }
+
+        @Override public String getRecipientId() {
+            return "Agent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
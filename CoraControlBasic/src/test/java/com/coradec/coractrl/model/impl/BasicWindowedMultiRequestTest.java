@@ -0,0 +1,158 @@
+/*
+ * Copyright ⓒ 2017 by Coradec GmbH.
+ *
+ * This file is part of the Coradeck.
+ *
+ * Coradeck is free software: you can redistribute it under the the terms of the GNU General
+ * Public License as published by the Free Software Foundation, either version 3 of the License,
+ * or any later version.
+ *
+ * Coradeck is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR ANY PARTICULAR PURPOSE.  See the
+ * GNU General Public License for further details.
+ *
+ * The GNU General Public License is available from <http://www.gnu.org/licenses/>.
+ *
+ * @license GPL-3.0+ <http://spdx.org/licenses/GPL-3.0+>
+ * @author Dominik Wezel <dom@coradec.com>
+ *
+ */
+
+package com.coradec.coractrl.model.impl;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import com.coradec.coracom.model.Message;
+import com.coradec.coracom.model.Recipient;
+import com.coradec.coracom.model.Request;
+import com.coradec.coracom.model.WindowedMultiRequest;
+import com.coradec.coracom.model.impl.BasicRequest;
+import com.coradec.coracom.model.impl.BasicWindowedMultiRequest;
+import com.coradec.coracom.trouble.RequestFailedException;
+import com.coradec.coracom.trouble.SubRequestsFailedException;
+import com.coradec.coracore.ctrl.AutoOrigin;
+import com.coradec.coracore.model.Origin;
+import com.coradec.coractrl.ctrl.SysControl;
+import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RunWith(CoradeckJUnit4TestRunner.class)
+public class BasicWindowedMultiRequestTest {
+
+    @AfterClass public static void teardownSuite() {
+        SysControl.terminate();
+    }
+
+    @Test public void windowShouldBoundTheSubRequestsInFlight() throws InterruptedException {
+        final Agent agent = new Agent();
+        final WindowedMultiRequest testee = new BasicWindowedMultiRequest(agent, agent,
+                launchers(agent, 40, -1), 4, true);
+        testee.process().standby(10, SECONDS);
+        assertThat(testee.isSuccessful(), is(true));
+        assertThat(agent.handled.get(), is(40));
+        assertThat(agent.maxActive.get() <= 4, is(true));
+        assertThat(testee.getTimings().size(), is(40));
+    }
+
+    @Test public void failFastShouldStopLaunchingOnTheFirstFailure() throws InterruptedException {
+        final Agent agent = new Agent();
+        final WindowedMultiRequest testee = new BasicWindowedMultiRequest(agent, agent,
+                launchers(agent, 20, 2), 1, true);
+        try {
+            testee.process().standby(10, SECONDS);
+            Assert.fail("Expected RequestFailedException");
+        } catch (RequestFailedException e) {
+            // expected that
+        }
+        assertThat(testee.getProblem() instanceof IllegalStateException, is(true));
+        assertThat(agent.handled.get(), is(3));
+    }
+
+    @Test public void collectAllShouldLaunchEverythingAndReportAllProblems()
+            throws InterruptedException {
+        final Agent agent = new Agent();
+        final WindowedMultiRequest testee = new BasicWindowedMultiRequest(agent, agent,
+                launchers(agent, 10, 3), 2, false);
+        try {
+            testee.process().standby(10, SECONDS);
+            Assert.fail("Expected RequestFailedException");
+        } catch (RequestFailedException e) {
+            // expected that
+        }
+        assertThat(agent.handled.get(), is(10));
+        assertThat(testee.getProblem() instanceof SubRequestsFailedException, is(true));
+        assertThat(((SubRequestsFailedException)testee.getProblem()).getProblems().size(), is(2));
+    }
+
+    /**
+     * Creates the specified number of sub-request launchers, every {@code failEvery}th of which
+     * launches a failing sub-request (none if negative).
+     */
+    private static List<Supplier<Request>> launchers(final Agent agent, final int count,
+            final int failEvery) {
+        final List<Supplier<Request>> result = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final boolean failing = failEvery >= 0 && i % (failEvery + 1) == failEvery;
+            result.add(() -> new WorkRequest(agent, failing));
+        }
+        return result;
+    }
+
+    private static class WorkRequest extends BasicRequest {
+
+        final boolean failing;
+
+        WorkRequest(final Agent agent, final boolean failing) {
+            super(agent, agent);
+            this.failing = failing;
+        }
+
+    }
+
+    private static class Agent extends AutoOrigin implements Origin, Recipient {
+
+        final AtomicInteger handled = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        @Override public void onMessage(final Message message) {
+            if (!(message instanceof WorkRequest)) return;
+            final WorkRequest request = (WorkRequest)message;
+            handled.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            active.decrementAndGet();
+            if (request.failing) request.fail(new IllegalStateException());
+            else request.succeed();
+        }
+
+        @Override public String getRecipientId() {
+            return "Agent";
+        }
+
+        @Override public String represent() {
+            return getClass().getSimpleName();
+        }
+
+        @Override public URI toURI() {
+            return URI.create(represent());
+        }
+
+    }
+
+}
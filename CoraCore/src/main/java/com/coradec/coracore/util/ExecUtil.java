@@ -21,12 +21,15 @@
 package com.coradec.coracore.util;
 
 import com.coradec.coracore.annotation.Inject;
+import com.coradec.coracore.annotation.Nullable;
 import com.coradec.coracore.model.Factory;
 import com.coradec.coracore.model.StackFrame;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 
 /**
@@ -143,4 +146,28 @@ public final class ExecUtil {
                     frame.getFileName(), frame.getLineNumber());
         }
     }
+
+    /**
+     * Returns a factory for virtual threads named with the specified prefix and a running number,
+     * if the runtime supports virtual threads.
+     * <p>
+     * The factory is looked up reflectively, so the library still runs on runtimes without virtual
+     * threads, where the result is empty.
+     *
+     * @param prefix the thread name prefix.
+     * @return a virtual thread factory, or nothing if the runtime does not support virtual threads.
+     */
+    public static Optional<ThreadFactory> getVirtualThreadFactory(final String prefix) {
+        @Nullable ThreadFactory result;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                                  .invoke(builder, prefix, 0L);
+            result = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            result = null;
+        }
+        return Optional.ofNullable(result);
+    }
 }
@@ -21,6 +21,7 @@
 package com.coradec.coragui.html.model.impl;
 
 import com.coradec.corabus.model.BusNode;
+import com.coradec.coracom.model.Conflatable;
 import com.coradec.coracom.model.Request;
 import com.coradec.coracom.model.impl.BasicCommand;
 import com.coradec.coracore.util.ClassUtil;
@@ -118,7 +119,11 @@ public class HtmlWidget<P> extends HtmlGadget<P> implements Widget<P> {
         return inject(new InternalSetVisibilityCommand(state));
     }
 
-    private abstract class SetPropertyCommand extends BasicCommand {
+    /**
+     * Base class of the commands setting a property.  A newer command setting the same property
+     * supersedes a pending one, which then succeeds without being executed.
+     */
+    private abstract class SetPropertyCommand extends BasicCommand implements Conflatable {
 
         public SetPropertyCommand() {
             super(HtmlWidget.this, HtmlWidget.this);
@@ -128,6 +133,14 @@ public class HtmlWidget<P> extends HtmlGadget<P> implements Widget<P> {
             super(properties);
         }
 
+        @Override public Object getConflationKey() {
+            return getClass();
+        }
+
+        @Override public Supersession getSupersession() {
+            return Supersession.SUCCEED;
+        }
+
     }
 
     @SuppressWarnings("ClassHasNoToStringMethod")
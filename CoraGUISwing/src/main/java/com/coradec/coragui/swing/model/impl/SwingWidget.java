@@ -21,6 +21,7 @@
 package com.coradec.coragui.swing.model.impl;
 
 import com.coradec.corabus.model.BusNode;
+import com.coradec.coracom.model.Conflatable;
 import com.coradec.coracom.model.Request;
 import com.coradec.coracom.model.impl.BasicCommand;
 import com.coradec.coraconf.model.ValueMap;
@@ -314,7 +315,11 @@ public class SwingWidget<P extends Component> extends SwingGadget<P> implements
         }
     }
 
-    private abstract class SetPropertyCommand extends BasicCommand {
+    /**
+     * Base class of the commands setting a property.  A newer command setting the same property
+     * supersedes a pending one, which then succeeds without being executed.
+     */
+    private abstract class SetPropertyCommand extends BasicCommand implements Conflatable {
 
         public SetPropertyCommand() {
             super(SwingWidget.this, SwingWidget.this);
@@ -324,6 +329,14 @@ public class SwingWidget<P extends Component> extends SwingGadget<P> implements
             super(properties);
         }
 
+        @Override public Object getConflationKey() {
+            return getClass();
+        }
+
+        @Override public Supersession getSupersession() {
+            return Supersession.SUCCEED;
+        }
+
     }
 
     @SuppressWarnings("ClassHasNoToStringMethod")
@@ -60,6 +60,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
@@ -71,10 +72,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -88,15 +89,53 @@ public class CarInjector {
     static final Map<String, Scope> implementations = new HashMap<>();
     private static final Map<Class<?>, Object> singletons = new HashMap<>();
     static final Set<String> components = new HashSet<>();
+    /**
+     * The injectable instance fields of each class and its superclasses, made accessible, so
+     * {@link #finish(Object)} does not have to copy every declared field of the class hierarchy
+     * each time an instance is constructed.
+     */
+    private static final ClassValue<List<Field>> INJECTION_POINTS = new ClassValue<List<Field>>() {
+        @Override protected List<Field> computeValue(final Class<?> type) {
+            return AccessController.doPrivileged((PrivilegedAction<List<Field>>)() -> {
+                final List<Field> fields = new ArrayList<>();
+                for (Class<?> targetClass = type;
+                     targetClass != null;
+                     targetClass = targetClass.getSuperclass()) {
+                    for (Field field : targetClass.getDeclaredFields()) {
+                        if (field.isAnnotationPresent(Inject.class) &&
+                            !Modifier.isStatic(field.getModifiers())) {
+                            field.setAccessible(true);
+                            fields.add(field);
+                        }
+                    }
+                }
+                return fields.isEmpty() ? Collections.emptyList() : fields;
+            });
+        }
+    };
     static final Map<String, String> register = new HashMap<>();
     private static Set<ImplementationClass<?>> implementationClasses;
+    /**
+     * The matching implementation classes of an interface with its type arguments, in order of
+     * relevance.
+     */
+    private static final Map<List<Object>, List<ImplementationClass<?>>> candidates =
+            new ConcurrentHashMap<>();
+    /**
+     * The implementation class and constructor or factory method selected for an interface with
+     * its type arguments, the type of the context and the types of the arguments.
+     */
+    private static final Map<List<Object>, Resolution> resolutions = new ConcurrentHashMap<>();
+    private static final Object NONE = new Object();
 
     @SuppressWarnings("unchecked")
     private static Set<ImplementationClass<?>> getImplementationClasses(
             final Class<?> interfaceClass) {
         if (implementationClasses == null ||
             implementationClasses.size() != implementations.size()) {
-            implementationClasses = new HashSet<>();
+            candidates.clear();
+            resolutions.clear();
+            final Set<ImplementationClass<?>> implementationClasses = new HashSet<>();
             for (final Entry<String, Scope> entry : implementations.entrySet()) {
                 try {
                     final Class<?> klass = Class.forName(entry.getKey());
@@ -110,10 +149,102 @@ public class CarInjector {
                                    " when analyzing dependency injection ERRORs down the line:");
                 }
             }
+            CarInjector.implementationClasses = implementationClasses;
         }
         return implementationClasses;
     }
 
+    /**
+     * Returns the implementation classes matching the specified interface with the specified type
+     * arguments, in order of relevance.
+     *
+     * @param ics            the current implementation classes.
+     * @param interfaceClass the interface class.
+     * @param types          the type arguments.
+     * @param key            the cache key of the interface with its type arguments, or {@code
+     *                       null} if the type arguments cannot serve as a key.
+     * @return the candidate implementation classes.
+     */
+    private static List<ImplementationClass<?>> candidatesFor(
+            final Set<ImplementationClass<?>> ics, final Class<?> interfaceClass,
+            final List<Type> types, @Nullable final List<Object> key) {
+        List<ImplementationClass<?>> result = key == null ? null : candidates.get(key);
+        if (result == null) {
+            result = ics.stream()
+                        .filter(ic -> ic.matches(interfaceClass, types))
+                        .sorted(Comparator.comparingInt(
+                                o -> o.relevanceFor(interfaceClass, types)))
+                        .collect(Collectors.toList());
+            if (key != null && ics == implementationClasses) candidates.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cache key of the specified interface with the specified type arguments.
+     *
+     * @param interfaceClass the interface class.
+     * @param types          the type arguments.
+     * @return the key, or {@code null} if any of the type arguments is neither a class nor a
+     * parametrized type thereof.
+     */
+    private static @Nullable List<Object> typeKeyOf(final Class<?> interfaceClass,
+            final List<Type> types) {
+        final List<Object> key = new ArrayList<>(types.size() + 1);
+        key.add(interfaceClass);
+        for (final Type type : types) {
+            final Object typeKey = typeKeyOf(type);
+            if (typeKey == null) return null;
+            key.add(typeKey);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the cache key of the specified type, which is the class itself or the structure of
+     * a parametrized type, since not all implementations of parametrized types define equality.
+     *
+     * @param type the type.
+     * @return the key, or {@code null} if the type has no stable key.
+     */
+    private static @Nullable Object typeKeyOf(final Type type) {
+        if (type instanceof Class) return type;
+        if (type instanceof ParameterizedType) {
+            final Type[] typeArgs = ((ParameterizedType)type).getActualTypeArguments();
+            final List<Object> key = new ArrayList<>(typeArgs.length + 1);
+            key.add(((ParameterizedType)type).getRawType());
+            for (final Type typeArg : typeArgs) {
+                final Object typeKey = typeKeyOf(typeArg);
+                if (typeKey == null) return null;
+                key.add(typeKey);
+            }
+            return key;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cache key of a resolution, which consists of the key of the interface with its
+     * type arguments, the type of the context and the type of each argument.  Class arguments
+     * stand for themselves, because constructor matching compares them with the type arguments.
+     *
+     * @param typeKey the key of the interface with its type arguments.
+     * @param context the context (optional).
+     * @param args    the arguments.
+     * @return the key.
+     */
+    private static List<Object> resolutionKeyOf(final List<Object> typeKey,
+            @Nullable final Object context, final Object[] args) {
+        final List<Object> key = new ArrayList<>(args.length + 2);
+        key.add(typeKey);
+        key.add(context == null ? NONE : context.getClass());
+        for (final Object arg : args) {
+            key.add(arg == null ? NONE : arg instanceof Class ? Arrays.asList(Class.class, arg)
+                                                              : arg.getClass());
+        }
+        return key;
+    }
+
     /**
      * Embeds the class file in the specified buffer by resolving its static injection points and
      * prepares it to resolve its instance injection points.
@@ -223,36 +354,26 @@ public class CarInjector {
 //        Syslog.debug(">>> %s.finish()", instance);
 //        Class<?> klass = instance.getClass();
 //        while (klass.isMemberClass()) ;
+        final List<Field> fields = INJECTION_POINTS.get(instance.getClass());
+        if (fields.isEmpty()) return;
         try {
             AccessController.doPrivileged((PrivilegedExceptionAction<Object>)() -> {
-                for (Class<?> targetClass = instance.getClass();
-                     targetClass != null;
-                     targetClass = targetClass.getSuperclass()) {
-                    for (Field field : targetClass.getDeclaredFields()) {
-                        if (field.isAnnotationPresent(Inject.class) &&
-                            !Modifier.isStatic(field.getModifiers())) {
-                            field.setAccessible(true);
-                            if (field.get(instance) == null) try {
-                                final String name = field.getName();
-                                final Class<?> fieldType = field.getType();
-                                final Type genericType = field.getGenericType();
-                                Syslog.debug(">>> inject: %s.%s", instance.getClass().getName(),
-                                        name);
-                                Syslog.trace("Field %s.%s has generic type parameters %s",
-                                        instance.getClass().getName(), name, genericType);
-                                List<Type> typeArgs = Collections.EMPTY_LIST;
-                                if (genericType instanceof ParameterizedType) typeArgs =
-                                        Arrays.asList(
-                                                ((ParameterizedType)genericType)
-                                                        .getActualTypeArguments());
-                                field.set(instance,
-                                        implementationFor(fieldType, typeArgs, instance));
-//                                Syslog.debug("Field %s of %s set to %s", name, instance,
-//                                        StringUtil.toString(field.get(instance)));
-                            } catch (Exception e) {
-                                Syslog.error(e);
-                            }
-                        }
+                for (Field field : fields) {
+                    if (field.get(instance) == null) try {
+                        final String name = field.getName();
+                        final Class<?> fieldType = field.getType();
+                        final Type genericType = field.getGenericType();
+                        Syslog.debug(">>> inject: %s.%s", instance.getClass().getName(), name);
+                        Syslog.trace("Field %s.%s has generic type parameters %s",
+                                instance.getClass().getName(), name, genericType);
+                        List<Type> typeArgs = Collections.EMPTY_LIST;
+                        if (genericType instanceof ParameterizedType) typeArgs = Arrays.asList(
+                                ((ParameterizedType)genericType).getActualTypeArguments());
+                        field.set(instance, implementationFor(fieldType, typeArgs, instance));
+//                        Syslog.debug("Field %s of %s set to %s", name, instance,
+//                                StringUtil.toString(field.get(instance)));
+                    } catch (Exception e) {
+                        Syslog.error(e);
                     }
                 }
                 return null;
@@ -288,30 +409,50 @@ public class CarInjector {
         if (Factory.class.isAssignableFrom(interfaceClass)) {
             return new ObjectFactory(types);
         }
-        Exception[] failed = new Exception[1];
+        Exception failed = null;
         try {
             final Set<ImplementationClass<?>> ics = getImplementationClasses(interfaceClass);
-            //noinspection ConstantConditions
-            return ics.stream()
-                      .filter(ic -> ic.matches(interfaceClass, types))
-                      .sorted(Comparator.comparingInt(o -> o.relevanceFor(interfaceClass, types)))
-                      .map(ic -> {
-                          try {
-                              Syslog.debug("Instantiating %s%s%s",
-                                      ClassUtil.nameOf(ic.getEmbeddedClass()),
-                                      StringUtil.toString(types, '<', '>'),
-                                      StringUtil.toString(args, '(', ')'));
-                              return ic.instantiate(interfaceClass, types, context, args);
-                          } catch (CannotInstantiateClassFailure e) {
-                              return null;
-                          } catch (ObjectInstantiationFailure e) {
-                              failed[0] = e;
-                              return null;
-                          }
-                      })
-                      .filter(Objects::nonNull)
-                      .findFirst()
-                      .orElseGet(() -> alternatives(interfaceClass, types, args, failed[0]));
+            final List<Object> typeKey = typeKeyOf(interfaceClass, types);
+            final List<ImplementationClass<?>> matching =
+                    candidatesFor(ics, interfaceClass, types, typeKey);
+            final List<Object> key =
+                    typeKey == null ? null : resolutionKeyOf(typeKey, context, args);
+            int start = 0;
+            final Resolution resolution = key == null ? null : resolutions.get(key);
+            if (resolution != null) {
+                // The arguments have the same types as in an earlier call, so the selected
+                // constructor or factory method needs to be matched again, but not searched.
+                final ImplementationClass<?> ic = resolution.getImplementationClass();
+                try {
+                    final Object result =
+                            ic.reinstantiate(resolution.getExecutable(), types, context, args);
+                    if (result != null) return result;
+                } catch (ObjectInstantiationFailure e) {
+                    failed = e;
+                    start = matching.indexOf(ic) + 1;
+                }
+            }
+            final Executable[] chosen = new Executable[1];
+            for (int i = start, is = matching.size(); i < is; ++i) {
+                final ImplementationClass<?> ic = matching.get(i);
+                try {
+                    Syslog.debug("Instantiating %s%s%s", ClassUtil.nameOf(ic.getEmbeddedClass()),
+                            StringUtil.toString(types, '<', '>'),
+                            StringUtil.toString(args, '(', ')'));
+                    final Object result = ic.instantiate(interfaceClass, types, context, args,
+                            chosen);
+                    if (key != null && failed == null && chosen[0] != null &&
+                        ics == implementationClasses) {
+                        resolutions.put(key, new Resolution(ic, chosen[0]));
+                    }
+                    return result;
+                } catch (CannotInstantiateClassFailure e) {
+                    // try the next candidate
+                } catch (ObjectInstantiationFailure e) {
+                    failed = e;
+                }
+            }
+            return alternatives(interfaceClass, types, args, failed);
         } catch (ObjectInstantiationFailure e) {
             throw e;
         } catch (Exception e) {
@@ -491,33 +632,32 @@ public class CarInjector {
          * @param iface  the implemented interface.
          * @param types  the type arguments.
          * @param values additional arguments.
+         * @param chosen a slot receiving the constructor or factory method used.
          * @return an instance of the class.
          * @throws ObjectInstantiationFailure if the class could not be instantiated due to one or
          *                                    more of several reasons..
          */
-        @SuppressWarnings("unchecked") T instantiate(final Class<?> iface, final List<Type> types,
-                @Nullable Object context, final Object[] values) throws ObjectInstantiationFailure {
+        T instantiate(final Class<?> iface, final List<Type> types, @Nullable Object context,
+                final Object[] values, final Executable[] chosen)
+                throws ObjectInstantiationFailure {
             Syslog.debug("Instantiating %s%s", //
                     klass.getName(), StringUtil.toString(typeParameters)
                                                .replaceFirst("^\\[", "<")
                                                .replaceFirst("]$", ">"));
-            T result = tryFactoryMethod(iface, types, context, values);
+            T result = tryFactoryMethod(iface, types, context, values, chosen);
             if (result != null) return result;
-            Scope scope, conScope = null;
             Constructor<?> constructor = null;
-            Object[] args = null;
-            List<ParameterizedType> parametrized, conPara = null;
+            Match best = null;
             for (final Constructor<?> constr : klass.getConstructors()) {
                 Syslog.trace("Examining constructor %s", constr);
                 final Match match =
                         match(constr.getGenericParameterTypes(), values, types, this.scope, context,
                                 constr);
-                if (match != null && (args == null || match.getArgs().length > args.length)) {
+                if (match != null &&
+                    (best == null || match.getArgs().length > best.getArgs().length)) {
                     // override best choice so far (if any) only if new one has more arguments.
                     constructor = constr;
-                    conPara = match.getParametrizedTypes();
-                    args = match.getArgs();
-                    conScope = match.getScope();
+                    best = match;
                 }
             }
             if (constructor == null) {
@@ -534,25 +674,91 @@ public class CarInjector {
                 }
                 throw new CannotInstantiateClassFailure(klass, message);
             }
+            chosen[0] = constructor;
+            return create(constructor, best);
+        }
+
+        /**
+         * Returns an instance of this implementation class using the specified constructor or
+         * factory method, which an earlier call selected for arguments of the same types.
+         *
+         * @param executable the constructor or factory method.
+         * @param types      the type arguments.
+         * @param context    the context (optional).
+         * @param values     additional arguments.
+         * @return an instance of the class, or {@code null} if the arguments no longer match.
+         * @throws ObjectInstantiationFailure if the constructor or factory method failed.
+         */
+        @Nullable T reinstantiate(final Executable executable, final List<Type> types,
+                @Nullable final Object context, final Object[] values)
+                throws ObjectInstantiationFailure {
+            final Match match = match(executable.getGenericParameterTypes(), values, types,
+                    this.scope, context, executable);
+            return match == null ? null : create(executable, match);
+        }
+
+        @Nullable private T tryFactoryMethod(final Class<?> iface, final List<Type> types,
+                @Nullable final Object context, final Object[] values, final Executable[] chosen) {
+            Method factoryMethod = null;
+            Match best = null;
+            for (final Method method : klass.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())) continue;
+                if (!method.isAnnotationPresent(com.coradec.coracore.annotation.Constructor.class))
+                    continue;
+                if (!iface.isAssignableFrom(method.getReturnType())) continue;
+                Syslog.trace("Examining factory method %s", method);
+                final Match match =
+                        match(method.getGenericParameterTypes(), values, types, this.scope, context,
+                                method);
+                if (match != null &&
+                    (best == null || match.getArgs().length > best.getArgs().length)) {
+                    // override best choice so far (if any) only if new one has more arguments.
+                    factoryMethod = method;
+                    best = match;
+                }
+            }
+            if (factoryMethod == null) {
+                return null;
+            }
+            final T result = create(factoryMethod, best);
+            if (result != null) chosen[0] = factoryMethod;
+            return result;
+        }
+
+        /**
+         * Invokes the specified constructor or static factory method with the arguments of the
+         * specified match, observing the scope of the match.
+         *
+         * @param executable the constructor or factory method.
+         * @param match      the match.
+         * @return the instance.
+         * @throws ObjectInstantiationFailure if the invocation failed.
+         */
+        @SuppressWarnings("unchecked") private T create(final Executable executable,
+                final Match match) throws ObjectInstantiationFailure {
+            final boolean factory = executable instanceof Method;
+            final Object[] args = match.getArgs();
+            final Scope conScope = match.getScope();
             try {
-                Syslog.trace("Using %s with %s in scope %s", constructor, StringUtil.toString(args),
+                Syslog.trace("Using %s with %s in scope %s", executable, StringUtil.toString(args),
                         conScope);
                 switch (conScope) {
                     case SINGLETON:
                         if (singleton == null) {
                             Syslog.trace("No singleton so far in %s → instantiating it.", this);
-                            singleton = (T)constructor.newInstance(args);
+                            singleton = invoke(executable, args);
                         }
                         return singleton;
                     case TEMPLATE:
-                        return (T)constructor.newInstance(args);
+                        return invoke(executable, args);
                     case PARAMETRIZED:
+                        final List<ParameterizedType> conPara = match.getParametrizedTypes();
                         T instance = parametrizedInstances.get(conPara);
                         if (instance == null) parametrizedInstances.put(conPara,
-                                instance = (T)constructor.newInstance(args));
+                                instance = invoke(executable, args));
                         return instance;
                     case IDEMPOTENT:
-                        return (T)constructor.newInstance(args);
+                        return invoke(executable, args);
                     default:
                         throw new IllegalArgumentException(
                                 String.format("Unknown scope: %s", conScope.name()));
@@ -561,8 +767,10 @@ public class CarInjector {
                 throw new ObjectInstantiationFailure(klass, new IllegalArgumentException(
                         String.format(
                                 "Argument type mismatch: cannot fit arguments %s into invocation " +
-                                "of constructor %s", StringUtil.toString(args), constructor)));
+                                "of %s %s", StringUtil.toString(args),
+                                factory ? "factory method" : "constructor", executable)));
             } catch (Exception e) {
+                if (factory) throw new ObjectInstantiationFailure(klass, e);
                 if (e instanceof InvocationTargetException &&
                     e.getCause() instanceof NoClassDefFoundError) {
                     NoClassDefFoundError ncdfe = (NoClassDefFoundError)e.getCause();
@@ -596,63 +804,10 @@ public class CarInjector {
             }
         }
 
-        @Nullable private T tryFactoryMethod(final Class<?> iface, final List<Type> types,
-                @Nullable final Object context, final Object[] values) {
-            Scope scope, conScope = null;
-            Method factoryMethod = null;
-            Object[] args = null;
-            List<ParameterizedType> parametrized, conPara = null;
-            for (final Method method : klass.getMethods()) {
-                if (!Modifier.isStatic(method.getModifiers())) continue;
-                if (!method.isAnnotationPresent(com.coradec.coracore.annotation.Constructor.class))
-                    continue;
-                if (!iface.isAssignableFrom(method.getReturnType())) continue;
-                Syslog.trace("Examining factory method %s", method);
-                final Match match =
-                        match(method.getGenericParameterTypes(), values, types, this.scope, context,
-                                method);
-                if (match != null && (args == null || match.getArgs().length > args.length)) {
-                    // override best choice so far (if any) only if new one has more arguments.
-                    factoryMethod = method;
-                    conPara = match.getParametrizedTypes();
-                    args = match.getArgs();
-                    conScope = match.getScope();
-                }
-            }
-            if (factoryMethod == null) {
-                return null;
-            }
-            try {
-                Syslog.trace("Using %s with %s in scope %s", factoryMethod,
-                        StringUtil.toString(args), conScope);
-                switch (conScope) {
-                    case SINGLETON:
-                        if (singleton == null) {
-                            Syslog.trace("No singleton so far in %s → instantiating it.", this);
-                            singleton = (T)factoryMethod.invoke(null, args);
-                        }
-                        return singleton;
-                    case TEMPLATE:
-                        return (T)factoryMethod.invoke(null, args);
-                    case PARAMETRIZED:
-                        T instance = parametrizedInstances.get(conPara);
-                        if (instance == null) parametrizedInstances.put(conPara,
-                                instance = (T)factoryMethod.invoke(null, args));
-                        return instance;
-                    case IDEMPOTENT:
-                        return (T)factoryMethod.invoke(null, args);
-                    default:
-                        throw new IllegalArgumentException(
-                                String.format("Unknown scope: %s", conScope.name()));
-                }
-            } catch (IllegalArgumentException e) {
-                throw new ObjectInstantiationFailure(klass, new IllegalArgumentException(
-                        String.format(
-                                "Argument type mismatch: cannot fit arguments %s into invocation " +
-                                "of factory method %s", StringUtil.toString(args), factoryMethod)));
-            } catch (Exception e) {
-                throw new ObjectInstantiationFailure(klass, e);
-            }
+        @SuppressWarnings("unchecked") private T invoke(final Executable executable,
+                final Object[] args) throws ReflectiveOperationException {
+            return executable instanceof Method ? (T)((Method)executable).invoke(null, args)
+                                                : (T)((Constructor<?>)executable).newInstance(args);
         }
 
         @SuppressWarnings({
@@ -892,6 +1047,26 @@ public class CarInjector {
         }
     }
 
+    @SuppressWarnings("ClassHasNoToStringMethod")
+    private static class Resolution {
+
+        private final ImplementationClass<?> implementationClass;
+        private final Executable executable;
+
+        Resolution(final ImplementationClass<?> implementationClass, final Executable executable) {
+            this.implementationClass = implementationClass;
+            this.executable = executable;
+        }
+
+        ImplementationClass<?> getImplementationClass() {
+            return implementationClass;
+        }
+
+        Executable getExecutable() {
+            return executable;
+        }
+    }
+
     @SuppressWarnings("ClassHasNoToStringMethod")
     private static class Match {
 
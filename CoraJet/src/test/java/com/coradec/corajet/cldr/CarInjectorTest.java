@@ -24,6 +24,8 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
 import com.coradec.coracore.annotation.Inject;
+import com.coradec.coracore.model.Factory;
+import com.coradec.coracore.trouble.ObjectInstantiationFailure;
 import com.coradec.corajet.cldr.model.ClassArgObject;
 import com.coradec.corajet.cldr.model.ImplArgObject;
 import com.coradec.corajet.cldr.model.InterfaceArgFactoryMethodObject;
@@ -35,6 +37,7 @@ import com.coradec.corajet.cldr.model.impl.BasicNoArgObject;
 import com.coradec.corajet.cldr.model.impl.SpecialInterfaceArgFactoryMethodObject;
 import com.coradec.corajet.cldr.model.impl.SpecialNoArgFactoryMethodObject;
 import com.coradec.corajet.test.CoradeckJUnit4TestRunner;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -49,6 +52,8 @@ public class CarInjectorTest {
     @Inject private ClassArgObject classArgObject;
     @Inject private NoArgFactoryMethodObject noArgFactoryMethodObject;
     @Inject private InterfaceArgFactoryMethodObject interfaceArgFactoryMethodObject;
+    @Inject private Factory<ClassArgObject> classArgObjects;
+    @Inject private Factory<NoArgFactoryMethodObject> noArgFactoryMethodObjects;
 
     @Test public void testConstructorInjection() {
         assertThat(noArgObject, is(instanceOf(BasicNoArgObject.class)));
@@ -59,4 +64,22 @@ public class CarInjectorTest {
                 is(instanceOf(SpecialInterfaceArgFactoryMethodObject.class)));
     }
 
+    @Test public void repeatedResolutionShouldFollowTheArgumentTypes() {
+        for (int i = 0; i < 3; ++i) {
+            final ClassArgObject first = classArgObjects.create("text");
+            final ClassArgObject second = classArgObjects.create(i);
+            assertThat(first, is(instanceOf(BasicClassArgObject.class)));
+            assertThat(second, is(instanceOf(BasicClassArgObject.class)));
+            assertThat(first, is(not(sameInstance(second))));
+            assertThat(noArgFactoryMethodObjects.get(),
+                    is(instanceOf(SpecialNoArgFactoryMethodObject.class)));
+            try {
+                classArgObjects.create("too", "many");
+                Assert.fail("Expected ObjectInstantiationFailure");
+            } catch (ObjectInstantiationFailure e) {
+                // expected that
+            }
+        }
+    }
+
 }
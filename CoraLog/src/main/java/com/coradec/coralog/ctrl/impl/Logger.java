@@ -45,6 +45,15 @@ public class Logger extends AutoOrigin {
 
     @Inject
     private static Factory<ClassLog> CLASSLOG;
+    /**
+     * The class logs, one per class: a class log only depends on its class, and creating one
+     * through the factory costs far more than most of the objects it is created for.
+     */
+    private static final ClassValue<ClassLog> CLASS_LOGS = new ClassValue<ClassLog>() {
+        @Override protected ClassLog computeValue(final Class<?> type) {
+            return CLASSLOG.create(type);
+        }
+    };
 
     private static Text ENTERING;
     private static Text LEAVING;
@@ -54,7 +63,7 @@ public class Logger extends AutoOrigin {
     final ClassLog log;
 
     protected Logger() {
-        log = CLASSLOG.create(getClass());
+        log = CLASS_LOGS.get(getClass());
     }
 
     /**